@@ -26,6 +26,7 @@ package be.yildizgames.engine.feature.city;
 
 import be.yildizgames.common.geometry.Point3D;
 import be.yildizgames.common.model.EntityId;
+import be.yildizgames.common.model.Level;
 import be.yildizgames.common.model.PlayerId;
 import be.yildizgames.engine.feature.city.building.Building;
 import be.yildizgames.engine.feature.city.building.BuildingData;
@@ -36,9 +37,13 @@ import be.yildizgames.engine.feature.resource.ResourcesProducer;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * A BaseCity.
@@ -60,10 +65,49 @@ public class BaseCity<T extends Building, D extends BuildingData> implements Cit
     private final CityId id;
 
     /**
-     * List of buildings.
+     * Building by position, null for the positions where no building was created.
+     */
+    private final Building[] slots;
+
+    /**
+     * Index of every position in the buildings list, -1 if the slot is empty.
+     */
+    private final int[] indexes;
+
+    /**
+     * Buildings of the non empty slots, ordered by position.
      */
     private final List<T> buildings;
 
+    /**
+     * Read only view on the buildings.
+     */
+    private final List<T> buildingsView;
+
+    /**
+     * Positions of the existing buildings by type.
+     */
+    private final BuildingTypeIndex typeIndex = new BuildingTypeIndex();
+
+    /**
+     * Type under which every slot is in the type index, null if the slot is not indexed.
+     */
+    private final BuildingType[] indexedTypes;
+
+    /**
+     * Type, level and staff of every slot as last counted in the statistics.
+     */
+    private final BuildingType[] countedTypes;
+
+    private final int[] countedLevels;
+
+    private final int[] countedStaff;
+
+    /**
+     * World statistics to keep up to date, null if none.
+     */
+    private BuildingStatistics statistics;
+
     /**
      * Resource production for this city.
      */
@@ -74,7 +118,7 @@ public class BaseCity<T extends Building, D extends BuildingData> implements Cit
      */
     private final Map<BuildingType, D> data;
 
-    private final PlayerId owner;
+    private PlayerId owner;
 
     private final Point3D position;
 
@@ -92,8 +136,16 @@ public class BaseCity<T extends Building, D extends BuildingData> implements Cit
         this.position = position;
         this.owner = owner;
         this.data = data;
-        this.buildings = new ArrayList<>();
         this.positionOffset = Arrays.copyOf(positionOffset, positionOffset.length);
+        this.slots = new Building[positionOffset.length];
+        this.indexes = new int[positionOffset.length];
+        Arrays.fill(this.indexes, -1);
+        this.indexedTypes = new BuildingType[positionOffset.length];
+        this.countedTypes = new BuildingType[positionOffset.length];
+        this.countedLevels = new int[positionOffset.length];
+        this.countedStaff = new int[positionOffset.length];
+        this.buildings = new ArrayList<>(positionOffset.length);
+        this.buildingsView = Collections.unmodifiableList(this.buildings);
         for (int i = 0; i < this.positionOffset.length; i++) {
             this.positionOffset[i] = this.positionOffset[i].add(position);
         }
@@ -117,38 +169,193 @@ public class BaseCity<T extends Building, D extends BuildingData> implements Cit
 
     @Override
     public final Point3D getBuildingPosition(final BuildingPosition position) {
-        return positionOffset[position.value];
+        return this.positionOffset[this.checkPosition(position)];
     }
 
     @Override
     public final int getAllocatedStaff() {
         int total = 0;
-        for (T b : this.buildings) {
-            total += b.getOldStaff().value;
+        for (int i = 0; i < this.buildings.size(); i++) {
+            total += this.buildings.get(i).getOldStaff().value;
         }
         return total;
     }
 
+    /**
+     * Give the Building matching a position.
+     *
+     * @param position Building position.
+     * @return The building at the given position, null if no building was created at that position.
+     * @throws IllegalArgumentException If the position is not in the city.
+     */
+    @SuppressWarnings("unchecked")
     @Override
     public final T getBuilding(final BuildingPosition position) {
-        return this.buildings.get(position.value);
+        return (T) this.slots[this.checkPosition(position)];
     }
 
+    /**
+     * Set the building at its position, replacing any previous one in O(1), positions can be filled in any order.
+     *
+     * @param building Building to add.
+     * @throws IllegalArgumentException If the building position is not in the city or if the building belongs to another city.
+     */
     @Override
     public final void createConstruction(final T building) {
-        if (this.buildings.size() > building.getBuildingPosition().value) {
-            this.buildings.remove(building.getBuildingPosition().value);
+        int position = this.checkPosition(building.getBuildingPosition());
+        if (!this.id.equals(building.getCity())) {
+            throw new IllegalArgumentException(building + " does not belong to " + this.id);
+        }
+        if (this.indexes[position] >= 0) {
+            this.buildings.set(this.indexes[position], building);
+        } else {
+            int index = 0;
+            while (index < this.buildings.size() && this.buildings.get(index).getBuildingPosition().value < position) {
+                index++;
+            }
+            this.buildings.add(index, building);
+            for (int i = index; i < this.buildings.size(); i++) {
+                this.indexes[this.buildings.get(i).getBuildingPosition().value] = i;
+            }
+        }
+        this.slots[position] = building;
+        this.index(position);
+        this.count(position);
+    }
+
+    /**
+     * Update the type index and the statistics with the current level and staff of a building.
+     *
+     * @param position Position of the building changed in place.
+     * @throws IllegalArgumentException If the position is not in the city.
+     */
+    @Override
+    public final void buildingUpdated(final BuildingPosition position) {
+        int index = this.checkPosition(position);
+        this.index(index);
+        this.count(index);
+    }
+
+    /**
+     * Set the statistics to keep up to date, the buildings of the city are removed from the previous ones and added to the new ones.
+     *
+     * @param statistics Statistics to update, null to stop counting this city.
+     */
+    final void setStatistics(final BuildingStatistics statistics) {
+        for (int i = 0; i < this.slots.length; i++) {
+            this.uncount(i);
+        }
+        this.statistics = statistics;
+        for (int i = 0; i < this.slots.length; i++) {
+            this.count(i);
+        }
+    }
+
+    /**
+     * Index a slot under the type of its building if it exists, a building existing only from level 1.
+     */
+    private void index(final int position) {
+        Building building = this.slots[position];
+        BuildingType type = building != null && building.exists() ? building.getType() : null;
+        if (type == this.indexedTypes[position]) {
+            return;
+        }
+        if (this.indexedTypes[position] != null) {
+            this.typeIndex.remove(this.indexedTypes[position], position);
+        }
+        if (type != null) {
+            this.typeIndex.add(type, position);
+        }
+        this.indexedTypes[position] = type;
+    }
+
+    /**
+     * Replace the counted state of a slot by the current one of its building.
+     */
+    private void count(final int position) {
+        this.uncount(position);
+        Building building = this.slots[position];
+        if (this.statistics != null && building != null) {
+            this.countedTypes[position] = building.getType();
+            this.countedLevels[position] = building.getLevel().value;
+            this.countedStaff[position] = building.getStaff().value;
+            this.statistics.add(this.countedTypes[position], this.countedLevels[position], this.countedStaff[position]);
+        }
+    }
+
+    private void uncount(final int position) {
+        if (this.countedTypes[position] != null) {
+            this.statistics.remove(this.countedTypes[position], this.countedLevels[position], this.countedStaff[position]);
+            this.countedTypes[position] = null;
+        }
+    }
+
+    @Override
+    public final void forEachBuilding(final Consumer<? super T> action) {
+        for (int i = 0; i < this.buildings.size(); i++) {
+            action.accept(this.buildings.get(i));
         }
-        this.buildings.add(building.getBuildingPosition().value, building);
+    }
+
+    @Override
+    public final int getSlotCount() {
+        return this.slots.length;
+    }
+
+    @Override
+    public final int getBuildingCount() {
+        return this.buildings.size();
+    }
+
+    private int checkPosition(final BuildingPosition position) {
+        if (position.value < 0 || position.value >= this.slots.length) {
+            throw new IllegalArgumentException("Position " + position + " is not in " + this.id + ", slots: " + this.slots.length);
+        }
+        return position.value;
+    }
+
+    @Override
+    public final int countByType(final BuildingType type) {
+        return this.typeIndex.get(type).length;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final boolean hasBuilding(final BuildingType type, final Level level) {
+        for (int position : this.typeIndex.get(type)) {
+            if (this.slots[position].getLevel().value >= level.value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public final List<T> getBuildings(final BuildingType type) {
+        int[] positions = this.typeIndex.get(type);
+        List<T> result = new ArrayList<>(positions.length);
+        for (int position : positions) {
+            result.add((T) this.slots[position]);
+        }
+        return result;
+    }
+
+    @Override
+    public final boolean isInstanceLimitReached(final BuildingType type) {
+        D d = this.data.get(type);
+        return d == null || this.countByType(type) >= d.getMaxInstances().number;
     }
 
     @Override
     public final Set<BuildingType> getAllowedType() {
-        Set<BuildingType> l = this.data.keySet();
-        for (Building b : this.buildings) {
-            l.remove(b.getType());
+        Set<BuildingType> allowed = new HashSet<>();
+        for (BuildingType type : this.data.keySet()) {
+            if (!this.isInstanceLimitReached(type)) {
+                allowed.add(type);
+            }
         }
-        return l;
+        return allowed;
     }
 
     @Override
@@ -171,6 +378,15 @@ public class BaseCity<T extends Building, D extends BuildingData> implements Cit
         return this.owner;
     }
 
+    /**
+     * Change the owner of the city, only called by the city manager to keep its owner index up to date.
+     * @param owner New owner of the city.
+     */
+    final void setOwner(final PlayerId owner) {
+        Objects.requireNonNull(owner);
+        this.owner = owner;
+    }
+
     @Override
     public final Point3D getPosition() {
         return this.position;
@@ -183,7 +399,7 @@ public class BaseCity<T extends Building, D extends BuildingData> implements Cit
 
     @Override
     public final List<T> getBuildings() {
-        return buildings;
+        return this.buildingsView;
     }
 
     @Override
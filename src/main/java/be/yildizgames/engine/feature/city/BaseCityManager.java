@@ -34,10 +34,10 @@ import be.yildizgames.engine.feature.city.building.BuildingTypeFactory;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * @param <T> Building implementation.
@@ -48,20 +48,41 @@ import java.util.Set;
 public abstract class BaseCityManager<T extends Building, D extends BuildingData, C extends City<T, D>> implements CityManager<T, D, C> {
 
     /**
-     * List of all BaseCity for a Player.
+     * List of all BaseCity for a Player, sorted by city id.
      */
-    private final Map<PlayerId, Set<C>> cityList = new HashMap<>();
+    private final Map<PlayerId, OwnerCities<C>> cityList = new HashMap<>();
 
     /**
      * List of all BaseCity, by Id.
      */
     private final Map<CityId, C> cities = new HashMap<>();
 
+    /**
+     * Default size of a spatial index cell side.
+     */
+    public static final float DEFAULT_CELL_SIZE = 500f;
+
+    /**
+     * All BaseCity, by position.
+     */
+    private final CitySpatialIndex<C> spatialIndex;
+
     private final BuildingTypeFactory<T, D> typeFactory;
 
+    private final BuildingStatistics statistics = new BuildingStatistics();
+
     protected BaseCityManager(BuildingTypeFactory<T, D> typeFactory) {
+        this(typeFactory, DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * @param typeFactory Factory holding the building types.
+     * @param cellSize    Size of a spatial index cell side, should be close to the usual distance between two cities.
+     */
+    protected BaseCityManager(BuildingTypeFactory<T, D> typeFactory, float cellSize) {
         super();
         this.typeFactory = typeFactory;
+        this.spatialIndex = new CitySpatialIndex<>(cellSize);
     }
 
 
@@ -73,8 +94,12 @@ public abstract class BaseCityManager<T extends Building, D extends BuildingData
     @Override
     public final C createCity(final CityId id, PlayerId owner, Point3D position) {
         C city = this.createCityImpl(id, owner, position);
-        this.cityList.computeIfAbsent(owner, s -> new HashSet<>()).add(city);
+        if (city instanceof BaseCity) {
+            ((BaseCity<?, ?>) city).setStatistics(this.statistics);
+        }
+        this.cityList.computeIfAbsent(owner, s -> new OwnerCities<>()).add(city);
         this.cities.put(id, city);
+        this.spatialIndex.add(city);
         return city;
     }
 
@@ -92,7 +117,77 @@ public abstract class BaseCityManager<T extends Building, D extends BuildingData
 
     @Override
     public final Set<C> getCities(final PlayerId player) {
-        return this.cityList.getOrDefault(player, Collections.emptySet());
+        OwnerCities<C> owned = this.cityList.get(player);
+        return owned == null ? Collections.emptySet() : owned.view();
+    }
+
+    @Override
+    public final int getCityCount(final PlayerId player) {
+        OwnerCities<C> owned = this.cityList.get(player);
+        return owned == null ? 0 : owned.size();
+    }
+
+    @Override
+    public final void forEachCity(final PlayerId player, final Consumer<? super C> action) {
+        OwnerCities<C> owned = this.cityList.get(player);
+        if (owned != null) {
+            owned.forEach(action);
+        }
+    }
+
+    @Override
+    public final void transferCity(final CityId id, final PlayerId newOwner) {
+        C city = this.cities.get(id);
+        if (city == null) {
+            throw new IllegalArgumentException("Unknown city " + id);
+        }
+        PlayerId previous = city.getOwner();
+        if (previous.equals(newOwner)) {
+            return;
+        }
+        if (!(city instanceof BaseCity)) {
+            throw new UnsupportedOperationException("City " + id + " does not support owner change.");
+        }
+        OwnerCities<C> owned = this.cityList.get(previous);
+        owned.remove(city);
+        if (owned.isEmpty()) {
+            this.cityList.remove(previous);
+        }
+        ((BaseCity<?, ?>) city).setOwner(newOwner);
+        this.cityList.computeIfAbsent(newOwner, s -> new OwnerCities<>()).add(city);
+    }
+
+    @Override
+    public final C removeCity(final CityId id) {
+        C city = this.cities.remove(id);
+        if (city == null) {
+            throw new IllegalArgumentException("Unknown city " + id);
+        }
+        OwnerCities<C> owned = this.cityList.get(city.getOwner());
+        owned.remove(city);
+        if (owned.isEmpty()) {
+            this.cityList.remove(city.getOwner());
+        }
+        this.spatialIndex.remove(city);
+        if (city instanceof BaseCity) {
+            ((BaseCity<?, ?>) city).setStatistics(null);
+        }
+        return city;
+    }
+
+    @Override
+    public final C findNearest(final Point3D position) {
+        return this.spatialIndex.findNearest(position);
+    }
+
+    @Override
+    public final List<C> findWithinRadius(final Point3D position, final float radius) {
+        return this.spatialIndex.findWithinRadius(position, radius);
+    }
+
+    @Override
+    public final List<C> findInBox(final Point3D min, final Point3D max) {
+        return this.spatialIndex.findInBox(min, max);
     }
 
     @Override
@@ -100,6 +195,15 @@ public abstract class BaseCityManager<T extends Building, D extends BuildingData
         this.typeFactory.createEmptyCity(city);
     }
 
+    /**
+     * Provide the building statistics of all the cities created by this manager, kept up to date as buildings change.
+     *
+     * @return The statistics, readable from any thread.
+     */
+    public final BuildingStatistics getStatistics() {
+        return this.statistics;
+    }
+
     @Override
     public final D getData(BuildingType entityType) {
         return this.typeFactory.getRegisteredData().get(entityType);
@@ -0,0 +1,233 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city;
+
+import be.yildizgames.engine.feature.city.building.BuildingType;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Number of buildings and allocated staff of every building type at every level, for all the cities of a manager.
+ * Counters are updated incrementally by the cities when a building is created, replaced or changed, so reading them never scans the cities.
+ * Counters are lock free adders, updates can come from several threads and reads never block them. A read is not an atomic snapshot of
+ * all the counters, but every counter is exact once the updates are completed.
+ * Only the existing buildings, with a level above 0, are counted.
+ *
+ * @author Grégory Van den Borre
+ */
+public final class BuildingStatistics {
+
+    /**
+     * Counters by building type.
+     */
+    private final Map<BuildingType, TypeCounters> types = new ConcurrentHashMap<>();
+
+    BuildingStatistics() {
+        super();
+    }
+
+    /**
+     * Count a building.
+     *
+     * @param type  Building type.
+     * @param level Building level, not counted if 0.
+     * @param staff Staff allocated in the building.
+     */
+    void add(final BuildingType type, final int level, final int staff) {
+        if (level > 0) {
+            this.types.computeIfAbsent(type, t -> new TypeCounters()).update(level, 1, staff);
+        }
+    }
+
+    /**
+     * Stop counting a building previously added.
+     *
+     * @param type  Building type.
+     * @param level Building level when it was added.
+     * @param staff Staff allocated in the building when it was added.
+     */
+    void remove(final BuildingType type, final int level, final int staff) {
+        if (level > 0) {
+            this.types.computeIfAbsent(type, t -> new TypeCounters()).update(level, -1, -staff);
+        }
+    }
+
+    /**
+     * @param type  Building type.
+     * @param level Building level.
+     * @return The number of buildings of that type at that level in all cities.
+     */
+    public long getCount(final BuildingType type, final int level) {
+        TypeCounters counters = this.types.get(type);
+        return counters == null ? 0 : counters.getCount(level);
+    }
+
+    /**
+     * @param type Building type.
+     * @return The number of buildings of that type, at any level, in all cities.
+     */
+    public long getCount(final BuildingType type) {
+        TypeCounters counters = this.types.get(type);
+        return counters == null ? 0 : counters.getCount();
+    }
+
+    /**
+     * @param type Building type.
+     * @return The staff allocated in all the buildings of that type in all cities.
+     */
+    public long getStaff(final BuildingType type) {
+        TypeCounters counters = this.types.get(type);
+        return counters == null ? 0 : counters.getStaff();
+    }
+
+    /**
+     * @param type Building type.
+     * @return The highest level with a counted building of that type, 0 if none.
+     */
+    public int getMaxLevel(final BuildingType type) {
+        TypeCounters counters = this.types.get(type);
+        return counters == null ? 0 : counters.getMaxLevel();
+    }
+
+    /**
+     * @return The building types counted so far, ordered by type value.
+     */
+    public List<BuildingType> getTypes() {
+        List<BuildingType> result = new ArrayList<>(this.types.keySet());
+        result.sort(Comparator.comparingInt(t -> t.type));
+        return result;
+    }
+
+    /**
+     * Write the statistics as CSV, with a header line and one line per type and level having at least one building:
+     * type value, type name, level, building count, allocated staff.
+     *
+     * @param out Destination.
+     * @throws IOException If the destination cannot be written.
+     */
+    public void writeCsv(final Appendable out) throws IOException {
+        out.append("type,name,level,count,staff\n");
+        for (BuildingType type : this.getTypes()) {
+            TypeCounters counters = this.types.get(type);
+            int max = counters.getMaxLevel();
+            for (int level = 1; level <= max; level++) {
+                long count = counters.getCount(level);
+                if (count > 0) {
+                    out.append(String.valueOf(type.type)).append(',').append(type.name).append(',')
+                            .append(String.valueOf(level)).append(',').append(String.valueOf(count)).append(',')
+                            .append(String.valueOf(counters.getStaff(level))).append('\n');
+                }
+            }
+        }
+    }
+
+    /**
+     * Counters of a building type, by level.
+     * The arrays only grow, when they do, the existing adders are copied so no concurrent update is lost.
+     */
+    private static final class TypeCounters {
+
+        private static final int INITIAL_LEVELS = 8;
+
+        private volatile LongAdder[] counts = createAdders(INITIAL_LEVELS);
+
+        private volatile LongAdder[] staff = createAdders(INITIAL_LEVELS);
+
+        private void update(final int level, final int count, final int staff) {
+            if (level >= this.counts.length) {
+                this.grow(level);
+            }
+            this.counts[level].add(count);
+            this.staff[level].add(staff);
+        }
+
+        private synchronized void grow(final int level) {
+            int length = this.counts.length;
+            if (level < length) {
+                return;
+            }
+            int size = Math.max(length * 2, level + 1);
+            LongAdder[] newCounts = Arrays.copyOf(this.counts, size);
+            LongAdder[] newStaff = Arrays.copyOf(this.staff, size);
+            for (int i = length; i < size; i++) {
+                newCounts[i] = new LongAdder();
+                newStaff[i] = new LongAdder();
+            }
+            this.staff = newStaff;
+            this.counts = newCounts;
+        }
+
+        private long getCount(final int level) {
+            LongAdder[] current = this.counts;
+            return level < 0 || level >= current.length ? 0 : current[level].sum();
+        }
+
+        private long getStaff(final int level) {
+            LongAdder[] current = this.staff;
+            return level < 0 || level >= current.length ? 0 : current[level].sum();
+        }
+
+        private long getCount() {
+            long total = 0;
+            for (LongAdder a : this.counts) {
+                total += a.sum();
+            }
+            return total;
+        }
+
+        private long getStaff() {
+            long total = 0;
+            for (LongAdder a : this.staff) {
+                total += a.sum();
+            }
+            return total;
+        }
+
+        private int getMaxLevel() {
+            LongAdder[] current = this.counts;
+            for (int level = current.length - 1; level > 0; level--) {
+                if (current[level].sum() != 0) {
+                    return level;
+                }
+            }
+            return 0;
+        }
+
+        private static LongAdder[] createAdders(final int size) {
+            LongAdder[] result = new LongAdder[size];
+            for (int i = 0; i < size; i++) {
+                result[i] = new LongAdder();
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city;
+
+import be.yildizgames.engine.feature.city.building.BuildingType;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Positions of the existing buildings of a city, by building type.
+ * A city only holds a few buildings of a given type, so positions are kept in small sorted arrays replaced on modification.
+ *
+ * @author Grégory Van den Borre
+ */
+final class BuildingTypeIndex {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final Map<BuildingType, int[]> positions = new HashMap<>();
+
+    BuildingTypeIndex() {
+        super();
+    }
+
+    void add(final BuildingType type, final int position) {
+        int[] current = this.positions.getOrDefault(type, EMPTY);
+        int index = Arrays.binarySearch(current, position);
+        if (index >= 0) {
+            return;
+        }
+        int insert = -index - 1;
+        int[] updated = new int[current.length + 1];
+        System.arraycopy(current, 0, updated, 0, insert);
+        updated[insert] = position;
+        System.arraycopy(current, insert, updated, insert + 1, current.length - insert);
+        this.positions.put(type, updated);
+    }
+
+    void remove(final BuildingType type, final int position) {
+        int[] current = this.positions.get(type);
+        if (current == null) {
+            return;
+        }
+        int index = Arrays.binarySearch(current, position);
+        if (index < 0) {
+            return;
+        }
+        if (current.length == 1) {
+            this.positions.remove(type);
+        } else {
+            int[] updated = new int[current.length - 1];
+            System.arraycopy(current, 0, updated, 0, index);
+            System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+            this.positions.put(type, updated);
+        }
+    }
+
+    /**
+     * @param type Building type.
+     * @return The sorted positions of the buildings of that type, must not be modified.
+     */
+    int[] get(final BuildingType type) {
+        return this.positions.getOrDefault(type, EMPTY);
+    }
+}
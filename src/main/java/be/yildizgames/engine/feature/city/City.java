@@ -25,6 +25,7 @@
 package be.yildizgames.engine.feature.city;
 
 import be.yildizgames.common.geometry.Point3D;
+import be.yildizgames.common.model.Level;
 import be.yildizgames.common.model.PlayerId;
 import be.yildizgames.engine.feature.city.building.Building;
 import be.yildizgames.engine.feature.city.building.BuildingData;
@@ -33,8 +34,10 @@ import be.yildizgames.engine.feature.city.building.BuildingType;
 import be.yildizgames.engine.feature.resource.ResourceOwner;
 import be.yildizgames.engine.feature.resource.ResourcesProducer;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * @author Grégory Van den Borre
@@ -84,12 +87,65 @@ public interface City<T extends Building, D extends BuildingData> extends Resour
     void createConstruction(T building);
 
     /**
-     * Provide the list of building type allowed to be built in this city.
+     * Provide the list of building type allowed to be built in this city, the types where the instance limit is not reached.
      *
-     * @return The list of allowed type to be built.
+     * @return The list of allowed type to be built, modifying it does not affect the city.
      */
     Set<BuildingType> getAllowedType();
 
+    /**
+     * Count the existing buildings of a type.
+     *
+     * @param type Building type.
+     * @return The number of buildings of that type with a level above 0.
+     */
+    default int countByType(BuildingType type) {
+        return this.getBuildings(type).size();
+    }
+
+    /**
+     * Check if the city has a building of a type with at least a level, to check the prerequisites.
+     *
+     * @param type  Building type.
+     * @param level Minimum level.
+     * @return <code>true</code> if a building of that type has at least that level.
+     */
+    default boolean hasBuilding(BuildingType type, Level level) {
+        for (T b : this.getBuildings(type)) {
+            if (b.getLevel().value >= level.value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Provide the existing buildings of a type.
+     *
+     * @param type Building type.
+     * @return The buildings of that type with a level above 0, ordered by position.
+     */
+    default List<T> getBuildings(BuildingType type) {
+        List<T> result = new ArrayList<>();
+        for (T b : this.getBuildings()) {
+            if (b.exists() && b.getType().equals(type)) {
+                result.add(b);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Check if the maximum number of instances of a type is reached.
+     *
+     * @param type Building type.
+     * @return <code>true</code> if no more building of that type can be built, or if the type is not available in the city.
+     */
+    default boolean isInstanceLimitReached(BuildingType type) {
+        D d = this.getByType(type);
+        return d == null || this.countByType(type) >= d.getMaxInstances().number;
+    }
+
     /**
      * Provide the list of all possible building data available.
      * @return The list.
@@ -132,8 +188,45 @@ public interface City<T extends Building, D extends BuildingData> extends Resour
 
     ResourcesProducer getProducer();
 
+    /**
+     * Provide the buildings created in the city, ordered by position, positions without building are skipped.
+     * @return The buildings, read only.
+     */
     List<T> getBuildings();
 
+    /**
+     * Call an action for every building created in the city, ordered by position.
+     * @param action Action to call.
+     */
+    default void forEachBuilding(Consumer<? super T> action) {
+        this.getBuildings().forEach(action);
+    }
+
+    /**
+     * Provide the number of building positions in the city.
+     * @return The number of slots, created or not.
+     */
+    //@Ensures ("result >= 0")
+    default int getSlotCount() {
+        return this.getMaximumBuildings();
+    }
+
+    /**
+     * Provide the number of positions where a building was created.
+     * @return The number of non empty slots.
+     */
+    //@Ensures ("result >= 0 && result <= getSlotCount()")
+    default int getBuildingCount() {
+        return this.getBuildings().size();
+    }
+
+    /**
+     * Notify the city that the level or the staff of one of its buildings was changed in place, to update the statistics depending on it.
+     * @param position Position of the changed building.
+     */
+    default void buildingUpdated(BuildingPosition position) {
+    }
+
     D getByType(BuildingType e);
 
 }
@@ -32,6 +32,7 @@ import be.yildizgames.engine.feature.city.building.BuildingType;
 
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * @author Grégory Van den Borre
@@ -44,8 +45,75 @@ public interface CityManager<T extends Building, D extends BuildingData, C exten
 
     List<C> getCities();
 
+    /**
+     * Provide the cities owned by a player.
+     *
+     * @param player Owner of the cities.
+     * @return A read only view of the cities owned by the player, iterated by ascending city id.
+     */
     Set<C> getCities(PlayerId player);
 
+    /**
+     * Provide the number of cities owned by a player, in constant time.
+     *
+     * @param player Owner of the cities.
+     * @return The number of cities owned by the player.
+     */
+    int getCityCount(PlayerId player);
+
+    /**
+     * Execute an action on every city owned by a player, by ascending city id, without allocating any iterator.
+     *
+     * @param player Owner of the cities.
+     * @param action Action to execute.
+     */
+    void forEachCity(PlayerId player, Consumer<? super C> action);
+
+    /**
+     * Change the owner of a city, when it is captured for example.
+     *
+     * @param id       Id of the city to transfer.
+     * @param newOwner New owner of the city.
+     * @throws IllegalArgumentException If the city does not exist.
+     * @throws UnsupportedOperationException If the city implementation does not allow its owner to change.
+     */
+    void transferCity(CityId id, PlayerId newOwner);
+
+    /**
+     * Remove a city and all its buildings from this manager.
+     *
+     * @param id Id of the city to remove.
+     * @return The removed city.
+     * @throws IllegalArgumentException If the city does not exist.
+     */
+    C removeCity(CityId id);
+
+    /**
+     * Find the city closest to a position, this method can be called concurrently with city creation.
+     *
+     * @param position Position to check.
+     * @return The closest city, null if there is no city.
+     */
+    C findNearest(Point3D position);
+
+    /**
+     * Find all the cities within a distance of a position, this method can be called concurrently with city creation.
+     *
+     * @param position Center of the searched area.
+     * @param radius   Maximum distance to the position.
+     * @return The cities in the area, in no particular order.
+     */
+    List<C> findWithinRadius(Point3D position, float radius);
+
+    /**
+     * Find all the cities in an axis aligned box, this method can be called concurrently with city creation.
+     *
+     * @param min Box corner with the lowest coordinates.
+     * @param max Box corner with the highest coordinates.
+     * @return The cities in the box, in no particular order.
+     */
+    List<C> findInBox(Point3D min, Point3D max);
+
     void createEmptyCityBuildings(C city);
 
     D getData(BuildingType entityType);
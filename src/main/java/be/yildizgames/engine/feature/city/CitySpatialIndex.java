@@ -0,0 +1,286 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city;
+
+import be.yildizgames.common.geometry.Point3D;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Uniform grid index of the cities by position.
+ * Every cell holds an immutable array of cities replaced on modification, so queries never lock and can run concurrently with the city creation.
+ * A query only visits the cells intersecting the searched area, and the nearest city search stops as soon as no unvisited cell can contain a closer city.
+ *
+ * @param <C> City implementation.
+ * @author Grégory Van den Borre
+ */
+final class CitySpatialIndex<C extends City<?, ?>> {
+
+    /**
+     * Number of bits used for every axis in a cell key.
+     */
+    private static final int AXIS_BITS = 21;
+
+    private static final int AXIS_OFFSET = 1 << (AXIS_BITS - 1);
+
+    private static final long AXIS_MASK = (1L << AXIS_BITS) - 1;
+
+    private static final City<?, ?>[] EMPTY = new City<?, ?>[0];
+
+    /**
+     * Size of a cell side in world units.
+     */
+    private final float cellSize;
+
+    /**
+     * Cities by cell key.
+     */
+    private final Map<Long, City<?, ?>[]> cells = new ConcurrentHashMap<>();
+
+    /**
+     * Bounds of the non empty cells, only valid if count is above 0.
+     */
+    private volatile int minX;
+
+    private volatile int minY;
+
+    private volatile int minZ;
+
+    private volatile int maxX;
+
+    private volatile int maxY;
+
+    private volatile int maxZ;
+
+    private volatile int count;
+
+    /**
+     * Create a new index.
+     *
+     * @param cellSize Size of a cell side, should be close to the usual distance between two cities.
+     */
+    CitySpatialIndex(final float cellSize) {
+        super();
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("Cell size must be positive.");
+        }
+        this.cellSize = cellSize;
+    }
+
+    synchronized void add(final C city) {
+        Point3D p = city.getPosition();
+        int x = this.cell(p.x);
+        int y = this.cell(p.y);
+        int z = this.cell(p.z);
+        City<?, ?>[] current = this.cells.getOrDefault(key(x, y, z), EMPTY);
+        City<?, ?>[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = city;
+        this.cells.put(key(x, y, z), updated);
+        if (this.count == 0) {
+            this.minX = this.maxX = x;
+            this.minY = this.maxY = y;
+            this.minZ = this.maxZ = z;
+        } else {
+            this.minX = Math.min(this.minX, x);
+            this.minY = Math.min(this.minY, y);
+            this.minZ = Math.min(this.minZ, z);
+            this.maxX = Math.max(this.maxX, x);
+            this.maxY = Math.max(this.maxY, y);
+            this.maxZ = Math.max(this.maxZ, z);
+        }
+        this.count++;
+    }
+
+    /**
+     * Remove a city, the bounds are not shrunk, they are only used to limit the searched cells.
+     *
+     * @param city City to remove.
+     */
+    synchronized void remove(final C city) {
+        Point3D p = city.getPosition();
+        long key = key(this.cell(p.x), this.cell(p.y), this.cell(p.z));
+        City<?, ?>[] current = this.cells.get(key);
+        if (current == null) {
+            return;
+        }
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == city) {
+                if (current.length == 1) {
+                    this.cells.remove(key);
+                } else {
+                    City<?, ?>[] updated = new City<?, ?>[current.length - 1];
+                    System.arraycopy(current, 0, updated, 0, i);
+                    System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                    this.cells.put(key, updated);
+                }
+                this.count--;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Find the city closest to a position.
+     *
+     * @param position Position to check.
+     * @return The closest city, null if there is no city.
+     */
+    @SuppressWarnings("unchecked")
+    C findNearest(final Point3D position) {
+        if (this.count == 0) {
+            return null;
+        }
+        int qx = this.cell(position.x);
+        int qy = this.cell(position.y);
+        int qz = this.cell(position.z);
+        int maxRing = Math.max(Math.max(Math.max(Math.abs(qx - this.minX), Math.abs(qx - this.maxX)), Math.max(Math.abs(qy - this.minY), Math.abs(qy - this.maxY))),
+                Math.max(Math.abs(qz - this.minZ), Math.abs(qz - this.maxZ)));
+        Nearest nearest = new Nearest();
+        for (int ring = 0; ring <= maxRing; ring++) {
+            int x0 = Math.max(qx - ring, this.minX);
+            int x1 = Math.min(qx + ring, this.maxX);
+            int y0 = Math.max(qy - ring, this.minY);
+            int y1 = Math.min(qy + ring, this.maxY);
+            for (int x = x0; x <= x1; x++) {
+                for (int y = y0; y <= y1; y++) {
+                    if (Math.abs(x - qx) == ring || Math.abs(y - qy) == ring) {
+                        for (int z = Math.max(qz - ring, this.minZ); z <= Math.min(qz + ring, this.maxZ); z++) {
+                            this.visit(x, y, z, position, nearest);
+                        }
+                    } else {
+                        if (qz - ring >= this.minZ) {
+                            this.visit(x, y, qz - ring, position, nearest);
+                        }
+                        if (ring > 0 && qz + ring <= this.maxZ) {
+                            this.visit(x, y, qz + ring, position, nearest);
+                        }
+                    }
+                }
+            }
+            float reach = ring * this.cellSize;
+            if (nearest.city != null && nearest.distance <= reach * reach) {
+                break;
+            }
+        }
+        return (C) nearest.city;
+    }
+
+    /**
+     * Find all the cities within a distance of a position.
+     *
+     * @param position Center of the searched sphere.
+     * @param radius   Radius of the searched sphere.
+     * @return The cities in the sphere.
+     */
+    List<C> findWithinRadius(final Point3D position, final float radius) {
+        List<C> result = new ArrayList<>();
+        float squaredRadius = radius * radius;
+        this.search(position.x - radius, position.y - radius, position.z - radius, position.x + radius, position.y + radius, position.z + radius,
+                c -> Point3D.squaredDistance(c.getPosition(), position) <= squaredRadius, result);
+        return result;
+    }
+
+    /**
+     * Find all the cities in an axis aligned box.
+     *
+     * @param min Box corner with the lowest coordinates.
+     * @param max Box corner with the highest coordinates.
+     * @return The cities in the box.
+     */
+    List<C> findInBox(final Point3D min, final Point3D max) {
+        List<C> result = new ArrayList<>();
+        this.search(min.x, min.y, min.z, max.x, max.y, max.z, c -> {
+            Point3D p = c.getPosition();
+            return p.x >= min.x && p.x <= max.x && p.y >= min.y && p.y <= max.y && p.z >= min.z && p.z <= max.z;
+        }, result);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void search(final float x0, final float y0, final float z0, final float x1, final float y1, final float z1, final Filter filter, final List<C> result) {
+        if (this.count == 0) {
+            return;
+        }
+        int cx1 = Math.min(this.cell(x1), this.maxX);
+        int cy1 = Math.min(this.cell(y1), this.maxY);
+        int cz1 = Math.min(this.cell(z1), this.maxZ);
+        for (int x = Math.max(this.cell(x0), this.minX); x <= cx1; x++) {
+            for (int y = Math.max(this.cell(y0), this.minY); y <= cy1; y++) {
+                for (int z = Math.max(this.cell(z0), this.minZ); z <= cz1; z++) {
+                    City<?, ?>[] cities = this.cells.get(key(x, y, z));
+                    if (cities != null) {
+                        for (City<?, ?> c : cities) {
+                            if (filter.accept(c)) {
+                                result.add((C) c);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void visit(final int x, final int y, final int z, final Point3D position, final Nearest nearest) {
+        City<?, ?>[] cities = this.cells.get(key(x, y, z));
+        if (cities != null) {
+            for (City<?, ?> c : cities) {
+                float distance = Point3D.squaredDistance(c.getPosition(), position);
+                if (distance < nearest.distance) {
+                    nearest.distance = distance;
+                    nearest.city = c;
+                }
+            }
+        }
+    }
+
+    private int cell(final float value) {
+        long cell = (long) Math.floor(value / this.cellSize);
+        return (int) Math.max(-AXIS_OFFSET, Math.min(AXIS_OFFSET - 1, cell));
+    }
+
+    private static long key(final int x, final int y, final int z) {
+        return ((x + AXIS_OFFSET) & AXIS_MASK) << (AXIS_BITS * 2) | ((y + AXIS_OFFSET) & AXIS_MASK) << AXIS_BITS | ((z + AXIS_OFFSET) & AXIS_MASK);
+    }
+
+    @FunctionalInterface
+    private interface Filter {
+
+        boolean accept(City<?, ?> city);
+    }
+
+    /**
+     * Best candidate of a nearest search.
+     */
+    private static final class Nearest {
+
+        private City<?, ?> city;
+
+        private float distance = Float.MAX_VALUE;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Cities owned by a player, kept in an array sorted by city id.
+ * Size is O(1), iteration is ordered by id and forEach does not allocate, add and remove are O(log n) to find the slot plus an array copy,
+ * which is cheap for the number of cities a player can own.
+ *
+ * @param <C> City implementation.
+ * @author Grégory Van den Borre
+ */
+final class OwnerCities<C extends City<?, ?>> extends AbstractSet<C> {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    /**
+     * Read only view given to the callers.
+     */
+    private final Set<C> view = Collections.unmodifiableSet(this);
+
+    /**
+     * Cities, sorted by id, only the first size elements are set.
+     */
+    private City<?, ?>[] cities = new City<?, ?>[INITIAL_CAPACITY];
+
+    private int size;
+
+    OwnerCities() {
+        super();
+    }
+
+    @Override
+    public boolean add(final C city) {
+        int index = this.indexOf(city.getId().value);
+        if (index >= 0) {
+            return false;
+        }
+        int insert = -index - 1;
+        if (this.size == this.cities.length) {
+            this.cities = Arrays.copyOf(this.cities, this.size * 2);
+        }
+        System.arraycopy(this.cities, insert, this.cities, insert + 1, this.size - insert);
+        this.cities[insert] = city;
+        this.size++;
+        return true;
+    }
+
+    @Override
+    public boolean remove(final Object o) {
+        if (!(o instanceof City)) {
+            return false;
+        }
+        int index = this.indexOf(((City<?, ?>) o).getId().value);
+        if (index < 0) {
+            return false;
+        }
+        this.size--;
+        System.arraycopy(this.cities, index + 1, this.cities, index, this.size - index);
+        this.cities[this.size] = null;
+        return true;
+    }
+
+    @Override
+    public boolean contains(final Object o) {
+        return o instanceof City && this.indexOf(((City<?, ?>) o).getId().value) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void forEach(final Consumer<? super C> action) {
+        for (int i = 0; i < this.size; i++) {
+            action.accept((C) this.cities[i]);
+        }
+    }
+
+    @Override
+    public Iterator<C> iterator() {
+        return new Iterator<>() {
+
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return this.index < size;
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public C next() {
+                if (this.index >= size) {
+                    throw new NoSuchElementException();
+                }
+                return (C) cities[this.index++];
+            }
+        };
+    }
+
+    /**
+     * @return A read only view on this set.
+     */
+    Set<C> view() {
+        return this.view;
+    }
+
+    /**
+     * Binary search of a city id.
+     *
+     * @param id City id value.
+     * @return The index of the city, or (-(insertion point) - 1) if not found.
+     */
+    private int indexOf(final int id) {
+        int low = 0;
+        int high = this.size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midId = this.cities[mid].getId().value;
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+}
@@ -25,6 +25,7 @@
 package be.yildizgames.engine.feature.city.building;
 
 import be.yildizgames.common.model.Level;
+import be.yildizgames.engine.feature.city.Instance;
 import be.yildizgames.engine.feature.city.building.staff.Staff;
 import be.yildizgames.engine.feature.resource.ResourceValue;
 import be.yildizgames.engine.feature.resource.bonus.BonusResources;
@@ -117,6 +118,15 @@ public interface BuildingData {
 
     boolean isBuildable();
 
+    /**
+     * Provide the maximum number of buildings of this type in a city.
+     *
+     * @return The maximum number of instances, unique by default.
+     */
+    default Instance getMaxInstances() {
+        return Instance.UNIQUE;
+    }
+
     /**
      * Contains the time and price to build a building at a specified level.
      *
@@ -125,6 +125,7 @@ public abstract class GameBuildingData implements BuildingData {
         return type;
     }
 
+    @Override
     public Instance getMaxInstances() {
         return maxInstances;
     }
@@ -0,0 +1,208 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.building;
+
+import be.yildizgames.common.model.PlayerId;
+import be.yildizgames.engine.feature.city.CityId;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Listeners of a manager, notified of all the events or subscribed to the events of a city, of the cities of an owner or of a building type.
+ * Every scope holds an array replaced on modification, so the managers dispatch an event with at most one map lookup per scope and without
+ * allocation, the scoped lookups are skipped when no listener is scoped.
+ * A listener subscribed to several matching scopes is notified once per scope.
+ * This class is not thread safe.
+ *
+ * @param <L> Listener type.
+ * @author Grégory Van den Borre
+ */
+public final class ListenerRegistry<L> {
+
+    private final IntFunction<L[]> arrays;
+
+    private final L[] empty;
+
+    /**
+     * Listeners notified of all the events.
+     */
+    private L[] all;
+
+    private final Map<CityId, L[]> cities = new HashMap<>();
+
+    private final Map<PlayerId, L[]> owners = new HashMap<>();
+
+    private final Map<BuildingType, L[]> types = new HashMap<>();
+
+    /**
+     * <code>true</code> if at least one listener is scoped.
+     */
+    private boolean scoped;
+
+    /**
+     * Create a new registry.
+     *
+     * @param arrays Factory creating the listener arrays.
+     */
+    public ListenerRegistry(final IntFunction<L[]> arrays) {
+        super();
+        this.arrays = arrays;
+        this.empty = arrays.apply(0);
+        this.all = this.empty;
+    }
+
+    /**
+     * Add a listener notified of all the events, a listener already registered is ignored.
+     *
+     * @param listener Listener to add.
+     */
+    public void add(final L listener) {
+        this.all = this.append(this.all, listener);
+    }
+
+    /**
+     * Add a listener notified of the events of a city, a listener already registered for that city is ignored.
+     *
+     * @param city     City to follow.
+     * @param listener Listener to add.
+     */
+    public void addForCity(final CityId city, final L listener) {
+        this.cities.put(city, this.append(this.cities.getOrDefault(city, this.empty), listener));
+        this.scoped = true;
+    }
+
+    /**
+     * Add a listener notified of the events of the cities owned by a player, the owner is checked when the event occurs.
+     *
+     * @param owner    Player to follow.
+     * @param listener Listener to add.
+     */
+    public void addForOwner(final PlayerId owner, final L listener) {
+        this.owners.put(owner, this.append(this.owners.getOrDefault(owner, this.empty), listener));
+        this.scoped = true;
+    }
+
+    /**
+     * Add a listener notified of the events of the buildings of a type.
+     *
+     * @param type     Building type to follow.
+     * @param listener Listener to add.
+     */
+    public void addForType(final BuildingType type, final L listener) {
+        this.types.put(type, this.append(this.types.getOrDefault(type, this.empty), listener));
+        this.scoped = true;
+    }
+
+    /**
+     * Remove a listener from all the scopes it is registered in.
+     *
+     * @param listener Listener to remove.
+     */
+    public void remove(final L listener) {
+        this.all = this.without(this.all, listener);
+        this.removeScoped(this.cities, listener);
+        this.removeScoped(this.owners, listener);
+        this.removeScoped(this.types, listener);
+        this.scoped = !this.cities.isEmpty() || !this.owners.isEmpty() || !this.types.isEmpty();
+    }
+
+    /**
+     * @return The listeners notified of all the events, must not be modified.
+     */
+    public L[] getAll() {
+        return this.all;
+    }
+
+    /**
+     * @return <code>true</code> if at least one listener is registered for a city, an owner or a building type.
+     */
+    public boolean hasScoped() {
+        return this.scoped;
+    }
+
+    /**
+     * @param city City of the event.
+     * @return The listeners registered for the city, must not be modified.
+     */
+    public L[] getForCity(final CityId city) {
+        return this.scoped ? this.cities.getOrDefault(city, this.empty) : this.empty;
+    }
+
+    /**
+     * @param owner Owner of the city of the event.
+     * @return The listeners registered for the owner, must not be modified.
+     */
+    public L[] getForOwner(final PlayerId owner) {
+        return this.scoped ? this.owners.getOrDefault(owner, this.empty) : this.empty;
+    }
+
+    /**
+     * @param type Type of the building of the event.
+     * @return The listeners registered for the building type, must not be modified.
+     */
+    public L[] getForType(final BuildingType type) {
+        return this.scoped ? this.types.getOrDefault(type, this.empty) : this.empty;
+    }
+
+    private L[] append(final L[] current, final L listener) {
+        for (L l : current) {
+            if (l.equals(listener)) {
+                return current;
+            }
+        }
+        L[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = listener;
+        return updated;
+    }
+
+    private L[] without(final L[] current, final L listener) {
+        for (int i = 0; i < current.length; i++) {
+            if (current[i].equals(listener)) {
+                L[] updated = current.length == 1 ? this.empty : this.arrays.apply(current.length - 1);
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, updated.length - i);
+                return updated;
+            }
+        }
+        return current;
+    }
+
+    private <K> void removeScoped(final Map<K, L[]> scope, final L listener) {
+        Iterator<Map.Entry<K, L[]>> it = scope.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<K, L[]> entry = it.next();
+            L[] updated = this.without(entry.getValue(), listener);
+            if (updated.length == 0) {
+                it.remove();
+            } else {
+                entry.setValue(updated);
+            }
+        }
+    }
+}
@@ -37,6 +37,26 @@ import be.yildizgames.engine.feature.city.building.BuildingData;
  */
 public interface BuildingConstructionListener<B extends Building, D extends BuildingData, C extends City<B, D>> {
 
+    /**
+     * Called when a building construction is started, once it is assigned a construction slot.
+     *
+     * @param city     City where the building is built.
+     * @param building Building to build.
+     * @param timeLeft Time before the construction is completed.
+     */
+    default void buildingConstructionStarted(C city, B building, long timeLeft) {
+    }
+
+    /**
+     * Called when a building construction waits for a free construction slot, buildingConstructionStarted is called once it starts.
+     *
+     * @param city     City where the building is built.
+     * @param building Building to build.
+     * @param timeLeft Time the construction will take once started.
+     */
+    default void buildingConstructionQueued(C city, B building, long timeLeft) {
+    }
+
     /**
      * Called when a building has been completed.
      *
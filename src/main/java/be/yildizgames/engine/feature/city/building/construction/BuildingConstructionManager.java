@@ -25,51 +25,110 @@
 package be.yildizgames.engine.feature.city.building.construction;
 
 import be.yildizgames.common.frame.EndFrameListener;
+import be.yildizgames.common.model.PlayerId;
 import be.yildizgames.engine.feature.city.City;
+import be.yildizgames.engine.feature.city.CityId;
 import be.yildizgames.engine.feature.city.CityManager;
 import be.yildizgames.engine.feature.city.building.Building;
 import be.yildizgames.engine.feature.city.building.BuildingData;
+import be.yildizgames.engine.feature.city.building.BuildingPosition;
+import be.yildizgames.engine.feature.city.building.BuildingType;
+import be.yildizgames.engine.feature.city.building.ListenerRegistry;
+import be.yildizgames.engine.feature.city.metrics.ManagerMetrics;
+import be.yildizgames.engine.feature.city.timer.Timer;
+import be.yildizgames.engine.feature.city.timer.TimerService;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 /**
  * Check all builder List and execute their build method. Primary task is Call all builder to create their units, if they don't have anything to create, they are removed from the builder list.
+ * Once the constructions are requested, a frame does not allocate: listeners are kept in arrays, every waiting construction references its
+ * city queue and the events are dispatched without lambda.
+ * The completions are scheduled in a timer service on the manager clock, the sum of the frame times, a construction timer is only rescheduled
+ * when the construction rate of its city changes.
  *
  * @author Grégory Van den Borre
  */
 public class BuildingConstructionManager<B extends Building, D extends BuildingData, C extends City<B, D>> extends EndFrameListener {
 
+    private static final int STARTED = 0;
+
+    private static final int QUEUED = 1;
+
+    private static final int COMPLETE = 2;
+
+    private static final int IN_CONSTRUCTION = 3;
+
     /**
      * Associated city manager to retrieve cities.
      */
     private final CityManager<B,D,C> cityManager;
 
     /**
-     * List of construction waiting to be build.
+     * Completion timers of the running constructions, in start order.
      */
-    private final List<WaitingBuilding<B>> constructionToBuildList = new ArrayList<>();
+    private final TimerService<WaitingBuilding<B>> timers = new TimerService<>(this::completed);
 
     /**
-     * List of the building to build by city.
+     * Listeners to notify, for all the events or by city, owner and building type.
      */
-    private final Map<C, Set<WaitingBuilding<B>>> constructionToBuildByCity = new HashMap<>();
+    private final ListenerRegistry<BuildingConstructionListener<B, D, C>> listeners = new ListenerRegistry<>(BuildingConstructionManager::newListeners);
 
     /**
-     * Listener to notify when a construction is completed.
+     * Factory to build the entities.
      */
-    private final Set<BuildingConstructionListener<B, D, C>> listenerList = new LinkedHashSet<>();
+    private final BuildingFactory<B> associatedFactory;
 
     /**
-     * Factory to build the entities.
+     * Policy giving the number of constructions a city can run at the same time.
      */
-    private final BuildingFactory<B> associatedFactory;
+    private final ConstructionSlotPolicy slotPolicy;
+
+    /**
+     * Slots in use and constructions waiting for a slot, by city.
+     */
+    private final Map<C, ConstructionQueue<B>> queues = new HashMap<>();
+
+    /**
+     * Same queues as the map, to iterate them without iterator.
+     */
+    private final List<ConstructionQueue<B>> queueList = new ArrayList<>();
+
+    /**
+     * Queues where a construction completed during the current frame, to promote their waiting constructions.
+     */
+    private final List<ConstructionQueue<B>> freedQueues = new ArrayList<>();
+
+    /**
+     * Construction speed multipliers.
+     */
+    private final ConstructionSpeed speed = new ConstructionSpeed();
+
+    /**
+     * Sequence giving the request order of the waiting constructions.
+     */
+    private long sequence;
+
+    /**
+     * Manager clock, sum of the frame times.
+     */
+    private long clock;
+
+    /**
+     * Constructions completed during the current frame.
+     */
+    private int completed;
+
+    /**
+     * Metrics receiving the frame measures.
+     */
+    private ManagerMetrics metrics = ManagerMetrics.NOOP;
 
     /**
      * Create a new BuilderManager.
@@ -78,13 +137,27 @@ public class BuildingConstructionManager<B extends Building, D extends BuildingD
      * @param factory Factory to create the materialization for the buildings.
      */
     public BuildingConstructionManager(final CityManager<B,D,C> cityManager, final BuildingFactory<B> factory) {
+        this(cityManager, factory, ConstructionSlotPolicy.UNLIMITED);
+    }
+
+    /**
+     * Create a new BuilderManager limiting the constructions running at the same time in a city.
+     *
+     * @param cityManager Associated BaseCityManager.
+     * @param factory Factory to create the materialization for the buildings.
+     * @param slotPolicy Policy giving the number of constructions a city can run at the same time.
+     */
+    public BuildingConstructionManager(final CityManager<B,D,C> cityManager, final BuildingFactory<B> factory, final ConstructionSlotPolicy slotPolicy) {
         super();
         this.cityManager = cityManager;
         this.associatedFactory = factory;
+        this.slotPolicy = Objects.requireNonNull(slotPolicy);
     }
 
     /**
      * Add a building to build in the builder list if time left is above 0, otherwise, building is built immediately.
+     * If all the construction slots of the city are in use, the construction waits until a slot is free.
+     * A building built immediately can provide new slots, the waiting constructions of the city are then started at once.
      *
      * @param b        Data to build the Building.
      * @param timeLeft Time to wait before the build is complete.
@@ -93,11 +166,28 @@ public class BuildingConstructionManager<B extends Building, D extends BuildingD
         C city = this.cityManager.getCityById(b.getCity());
         if (timeLeft > 0) {
             WaitingBuilding<B> data = new WaitingBuilding<>(b, timeLeft);
-            this.constructionToBuildByCity.computeIfAbsent(city, s -> new HashSet<>()).add(data);
-            this.constructionToBuildList.add(data);
+            ConstructionQueue<B> queue = this.queues.get(city);
+            if (queue == null) {
+                queue = new ConstructionQueue<>(city);
+                this.queues.put(city, queue);
+                this.queueList.add(queue);
+            }
+            data.queue = queue;
+            queue.addPosition(b.getBuildingPosition().value);
+            if (queue.waiting.isEmpty() && queue.running.size() < this.slotPolicy.getSlots(city)) {
+                this.start(queue, data);
+            } else {
+                queue.waiting.add(new ConstructionQueue.Queued<>(data, this.sequence++));
+                this.fire(QUEUED, city, b, timeLeft);
+            }
         } else {
             this.associatedFactory.createBuilding(b);
-            this.listenerList.forEach(l -> l.buildingComplete(city, b));
+            city.buildingUpdated(b.getBuildingPosition());
+            this.fire(COMPLETE, city, b, 0);
+            ConstructionQueue<B> queue = this.queues.get(city);
+            if (queue != null && !queue.waiting.isEmpty()) {
+                this.promote(queue);
+            }
         }
     }
 
@@ -116,54 +206,327 @@ public class BuildingConstructionManager<B extends Building, D extends BuildingD
      */
     @Override
     public boolean frameEnded(final long time) {
-        for (int i = 0; i < this.constructionToBuildList.size(); i++) {
-            WaitingBuilding<B> waitingBuilding = this.constructionToBuildList.get(i);
-            waitingBuilding.time -= time;
-            B building = waitingBuilding.getB();
-            C city = this.cityManager.getCityById(building.getCity());
-            if (waitingBuilding.time <= 0) {
-                this.associatedFactory.createBuilding(building);
-                this.listenerList.forEach(l -> l.buildingComplete(city, building));
-                this.constructionToBuildByCity.get(city).remove(waitingBuilding);
-                this.constructionToBuildList.remove(i);
-                i--;
-            } else {
-                this.listenerList.forEach(l -> l.buildingInConstruction(city, building, waitingBuilding.time));
+        long start = System.nanoTime();
+        this.completed = 0;
+        this.clock += time;
+        for (int i = 0; i < this.queueList.size(); i++) {
+            ConstructionQueue<B> queue = this.queueList.get(i);
+            if (!queue.running.isEmpty()) {
+                queue.virtualTime += time * (double) queue.rate;
+                float rate = this.speed.getRate(queue.city);
+                if (rate != queue.rate) {
+                    queue.rate = rate;
+                    this.reschedule(queue);
+                }
             }
         }
+        this.timers.advance(this.clock);
+        Timer<WaitingBuilding<B>> timer = this.timers.getFirst();
+        while (timer != null) {
+            Timer<WaitingBuilding<B>> next = timer.getNext();
+            WaitingBuilding<B> waitingBuilding = timer.getValue();
+            @SuppressWarnings("unchecked")
+            C city = (C) waitingBuilding.queue.city;
+            this.fire(IN_CONSTRUCTION, city, waitingBuilding.getB(), waitingBuilding.getTime());
+            timer = next;
+        }
+        for (int i = 0; i < this.freedQueues.size(); i++) {
+            this.promote(this.freedQueues.get(i));
+        }
+        this.freedQueues.clear();
+        this.metrics.frameProcessed(System.nanoTime() - start, this.timers.size(), this.completed);
         return true;
     }
 
     /**
-     * Add a listener to notify when a construction is completed.
+     * Complete the constructions expired during a frame.
+     *
+     * @param buildings Completed constructions, in start order.
+     */
+    private void completed(final List<WaitingBuilding<B>> buildings) {
+        for (int i = 0; i < buildings.size(); i++) {
+            WaitingBuilding<B> waitingBuilding = buildings.get(i);
+            B building = waitingBuilding.getB();
+            ConstructionQueue<B> queue = waitingBuilding.queue;
+            @SuppressWarnings("unchecked")
+            C city = (C) queue.city;
+            this.associatedFactory.createBuilding(building);
+            city.buildingUpdated(building.getBuildingPosition());
+            this.fire(COMPLETE, city, building, 0);
+            queue.running.remove(waitingBuilding);
+            queue.removePosition(building.getBuildingPosition().value);
+            this.completed++;
+            if (!queue.waiting.isEmpty()) {
+                this.freedQueues.add(queue);
+            }
+        }
+    }
+
+    /**
+     * Move the completion timers of a city after its construction rate changed.
+     *
+     * @param queue Queue of the city, with its new rate.
+     */
+    private void reschedule(final ConstructionQueue<B> queue) {
+        for (WaitingBuilding<B> w : queue.running) {
+            this.timers.reschedule(w.timer, this.toDeadline(ConstructionSpeed.toRealTime(w.deadline - queue.virtualTime, queue.rate)));
+        }
+    }
+
+    /**
+     * @param timeLeft Real time left.
+     * @return The time stamp on the manager clock, Long.MAX_VALUE if the time left is infinite.
+     */
+    private long toDeadline(final long timeLeft) {
+        return timeLeft >= Long.MAX_VALUE - this.clock ? Long.MAX_VALUE : this.clock + timeLeft;
+    }
+
+    /**
+     * Start the waiting constructions of a city while slots are available, in request order.
+     *
+     * @param queue Queue of the city with a free slot.
+     */
+    private void promote(final ConstructionQueue<B> queue) {
+        int slots = this.slotPolicy.getSlots(queue.city);
+        while (!queue.waiting.isEmpty() && queue.running.size() < slots) {
+            this.start(queue, queue.waiting.poll().building);
+        }
+    }
+
+    private void start(final ConstructionQueue<B> queue, final WaitingBuilding<B> data) {
+        @SuppressWarnings("unchecked")
+        C city = (C) queue.city;
+        if (queue.running.isEmpty()) {
+            queue.rate = this.speed.getRate(city);
+        }
+        data.deadline = queue.virtualTime + data.work;
+        queue.running.add(data);
+        long timeLeft = ConstructionSpeed.toRealTime(data.work, queue.rate);
+        data.timer = this.timers.schedule(data, this.toDeadline(timeLeft));
+        this.fire(STARTED, city, data.getB(), timeLeft);
+    }
+
+    /**
+     * Remove all the constructions of a city, to move it to another manager.
+     * The constructions are returned with the work left instead of the real time left, so creating them again with createBuilding
+     * resumes them exactly where they were, at the speed of the new manager. Running constructions come first, in start order,
+     * then the waiting ones in request order. No listener is notified.
+     *
+     * @param city City to freeze.
+     * @return The removed constructions, with their time set to the work left in milliseconds.
+     */
+    public List<WaitingBuilding<B>> freeze(final C city) {
+        List<WaitingBuilding<B>> result = this.export(city);
+        ConstructionQueue<B> queue = this.queues.remove(city);
+        if (queue != null) {
+            this.queueList.remove(queue);
+            for (WaitingBuilding<B> w : queue.running) {
+                this.timers.cancel(w.timer);
+            }
+            queue.running.clear();
+            queue.waiting.clear();
+        }
+        return result;
+    }
+
+    /**
+     * Copy all the constructions of a city without removing them, to save it.
+     * The constructions are returned as freeze returns them: with the work left, running constructions first, in start order,
+     * then the waiting ones in request order.
+     *
+     * @param city City to export.
+     * @return Copies of the running and waiting constructions, with their time set to the work left in milliseconds.
+     */
+    public List<WaitingBuilding<B>> export(final C city) {
+        List<WaitingBuilding<B>> result = new ArrayList<>();
+        ConstructionQueue<B> queue = this.queues.get(city);
+        if (queue == null) {
+            return result;
+        }
+        for (WaitingBuilding<B> w : queue.running) {
+            result.add(new WaitingBuilding<>(w.getB(), w.getWork()));
+        }
+        List<ConstructionQueue.Queued<B>> waiting = new ArrayList<>(queue.waiting);
+        waiting.sort(queue.waiting.comparator());
+        for (ConstructionQueue.Queued<B> q : waiting) {
+            result.add(new WaitingBuilding<>(q.building.getB(), q.building.work));
+        }
+        return result;
+    }
+
+    /**
+     * Set the metrics receiving the frame processing measures.
+     *
+     * @param metrics Metrics to use, ManagerMetrics.NOOP to disable them.
+     */
+    public void setMetrics(final ManagerMetrics metrics) {
+        this.metrics = Objects.requireNonNull(metrics);
+    }
+
+    /**
+     * Notify the listeners of all the events and the ones subscribed to the city, its owner or the building type.
+     *
+     * @param event Event kind.
+     * @param city  City of the construction.
+     * @param b     Building constructed.
+     * @param time  Time left, unused for a completion.
+     */
+    private void fire(final int event, final C city, final B b, final long time) {
+        this.dispatch(this.listeners.getAll(), event, city, b, time);
+        if (this.listeners.hasScoped()) {
+            this.dispatch(this.listeners.getForCity(city.getId()), event, city, b, time);
+            this.dispatch(this.listeners.getForOwner(city.getOwner()), event, city, b, time);
+            this.dispatch(this.listeners.getForType(b.getType()), event, city, b, time);
+        }
+    }
+
+    private void dispatch(final BuildingConstructionListener<B, D, C>[] current, final int event, final C city, final B b, final long time) {
+        boolean timed = this.metrics.isListenerTimingEnabled();
+        for (BuildingConstructionListener<B, D, C> l : current) {
+            long start = timed ? System.nanoTime() : 0;
+            switch (event) {
+                case STARTED:
+                    l.buildingConstructionStarted(city, b, time);
+                    break;
+                case QUEUED:
+                    l.buildingConstructionQueued(city, b, time);
+                    break;
+                case COMPLETE:
+                    l.buildingComplete(city, b);
+                    break;
+                default:
+                    l.buildingInConstruction(city, b, time);
+                    break;
+            }
+            if (timed) {
+                this.metrics.listenerDispatched(l, System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * Add a listener to notify when a construction is completed, a listener already registered is ignored.
      *
      * @param listener Listener to notify.
      */
     public void willNotify(final BuildingConstructionListener<B, D, C> listener) {
-        this.listenerList.add(listener);
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Add a listener only notified of the constructions of a city.
+     *
+     * @param city     City to follow.
+     * @param listener Listener to notify.
+     */
+    public void willNotify(final CityId city, final BuildingConstructionListener<B, D, C> listener) {
+        this.listeners.addForCity(city, listener);
+    }
+
+    /**
+     * Add a listener only notified of the constructions of the cities owned by a player when the event occurs.
+     *
+     * @param owner    Player to follow.
+     * @param listener Listener to notify.
+     */
+    public void willNotify(final PlayerId owner, final BuildingConstructionListener<B, D, C> listener) {
+        this.listeners.addForOwner(owner, listener);
+    }
+
+    /**
+     * Add a listener only notified of the constructions of a building type.
+     *
+     * @param type     Building type to follow.
+     * @param listener Listener to notify.
+     */
+    public void willNotify(final BuildingType type, final BuildingConstructionListener<B, D, C> listener) {
+        this.listeners.addForType(type, listener);
     }
 
     /**
-     * Remove a listener to notify when a construction is completed.
+     * Remove a listener from all the events and scopes it was registered for.
      *
      * @param listener Listener to remove.
      */
     public void removeListener(final BuildingConstructionListener<B, D, C> listener) {
-        this.listenerList.remove(listener);
+        this.listeners.remove(listener);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <B extends Building, D extends BuildingData, C extends City<B, D>> BuildingConstructionListener<B, D, C>[] newListeners(final int size) {
+        return new BuildingConstructionListener[size];
     }
 
     /**
-     * @return The list of buildings in the building queue.
+     * @return The running constructions, in start order, their time left is computed from the city clocks when requested.
      */
     public List<WaitingBuilding<B>> getBuildingList() {
-        return Collections.unmodifiableList(this.constructionToBuildList);
+        List<WaitingBuilding<B>> result = new ArrayList<>(this.timers.size());
+        for (Timer<WaitingBuilding<B>> t = this.timers.getFirst(); t != null; t = t.getNext()) {
+            result.add(t.getValue());
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Provide the construction speed multipliers, a change applies from the next frame to all the running constructions.
+     *
+     * @return The speed multipliers of this manager.
+     */
+    public ConstructionSpeed getSpeed() {
+        return this.speed;
+    }
+
+    /**
+     * Compute the real time left before a running construction is completed, with the current speed multipliers.
+     *
+     * @param w Running construction.
+     * @return The time left in milliseconds, Long.MAX_VALUE if the construction is paused.
+     */
+    public long getTimeLeft(final WaitingBuilding<B> w) {
+        return ConstructionSpeed.toRealTime(w.deadline - w.queue.virtualTime, this.speed.getRate(w.queue.city));
+    }
+
+    /**
+     * @param c City.
+     * @return The constructions of a city waiting for a free slot, in no particular order.
+     */
+    public List<WaitingBuilding<B>> getQueuedBuildings(final C c) {
+        ConstructionQueue<B> queue = this.queues.get(c);
+        List<WaitingBuilding<B>> result = new ArrayList<>();
+        if (queue != null) {
+            queue.waiting.forEach(q -> result.add(q.building));
+        }
+        return result;
+    }
+
+    /**
+     * Check if a building is being upgraded, in constant time and without allocation.
+     *
+     * @param c        City.
+     * @param position Building position.
+     * @return <code>true</code> if a construction is running or waiting for a slot at the position.
+     */
+    public boolean isInConstruction(final C c, final BuildingPosition position) {
+        ConstructionQueue<B> queue = this.queues.get(c);
+        return queue != null && queue.hasPosition(position.value);
+    }
+
+    /**
+     * @param c City.
+     * @return The number of constructions running in a city.
+     */
+    public int getActiveConstructionCount(final C c) {
+        ConstructionQueue<B> queue = this.queues.get(c);
+        return queue == null ? 0 : queue.running.size();
     }
 
     /**
      * @param c City.
-     * @return The list of buildings to build for a city.
+     * @return The running constructions of a city, use export to get the waiting ones too.
      */
     public Set<WaitingBuilding<B>> getBuildingList(C c) {
-        return Collections.unmodifiableSet(this.constructionToBuildByCity.computeIfAbsent(c, s -> new HashSet<>()));
+        ConstructionQueue<B> queue = this.queues.get(c);
+        return queue == null ? Collections.emptySet() : Collections.unmodifiableSet(queue.running);
     }
 }
@@ -0,0 +1,114 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.building.construction;
+
+import be.yildizgames.engine.feature.city.City;
+import be.yildizgames.engine.feature.city.building.Building;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Construction state of a city: slots in use, constructions waiting for a free slot in request order, and construction clock.
+ *
+ * @param <B> Building implementation.
+ * @author Grégory Van den Borre
+ */
+final class ConstructionQueue<B extends Building> {
+
+    /**
+     * City owning this queue.
+     */
+    final City<?, ?> city;
+
+    /**
+     * Constructions running, in start order.
+     */
+    final Set<WaitingBuilding<B>> running = new LinkedHashSet<>();
+
+    /**
+     * Construction work done in the city since its first construction, in milliseconds at normal speed.
+     */
+    double virtualTime;
+
+    /**
+     * Construction rate used during the last frame.
+     */
+    float rate = 1f;
+
+    /**
+     * Constructions waiting for a slot, ordered by request.
+     */
+    final PriorityQueue<Queued<B>> waiting = new PriorityQueue<>(Comparator.comparingLong(q -> q.sequence));
+
+    /**
+     * Number of running and waiting constructions by building position.
+     */
+    private int[] positions = new int[8];
+
+    ConstructionQueue(final City<?, ?> city) {
+        super();
+        this.city = city;
+    }
+
+    void addPosition(final int position) {
+        if (position >= this.positions.length) {
+            this.positions = Arrays.copyOf(this.positions, Math.max(position + 1, this.positions.length * 2));
+        }
+        this.positions[position]++;
+    }
+
+    void removePosition(final int position) {
+        this.positions[position]--;
+    }
+
+    /**
+     * @return <code>true</code> if a construction is running or waiting at the position.
+     */
+    boolean hasPosition(final int position) {
+        return position < this.positions.length && this.positions[position] > 0;
+    }
+
+    /**
+     * Construction request waiting for a slot.
+     *
+     * @param <B> Building implementation.
+     */
+    static final class Queued<B extends Building> {
+
+        final WaitingBuilding<B> building;
+
+        final long sequence;
+
+        Queued(final WaitingBuilding<B> building, final long sequence) {
+            super();
+            this.building = building;
+            this.sequence = sequence;
+        }
+    }
+}
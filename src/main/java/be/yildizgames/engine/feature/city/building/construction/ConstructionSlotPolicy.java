@@ -0,0 +1,69 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.building.construction;
+
+import be.yildizgames.engine.feature.city.City;
+import be.yildizgames.engine.feature.city.building.Building;
+
+/**
+ * Provide the number of constructions a city can run at the same time.
+ *
+ * @author Grégory Van den Borre
+ */
+@FunctionalInterface
+public interface ConstructionSlotPolicy {
+
+    /**
+     * No limit, all constructions run at the same time.
+     */
+    ConstructionSlotPolicy UNLIMITED = c -> Integer.MAX_VALUE;
+
+    /**
+     * Every existing builder building of the city provides one slot.
+     *
+     * @param baseSlots Slots available without any builder building.
+     * @return The created policy.
+     */
+    static ConstructionSlotPolicy builders(final int baseSlots) {
+        if (baseSlots < 0) {
+            throw new IllegalArgumentException("Base slots cannot be negative.");
+        }
+        return c -> {
+            int slots = baseSlots;
+            for (Building b : c.getBuildings()) {
+                if (b.exists() && b.isBuilder()) {
+                    slots++;
+                }
+            }
+            return slots;
+        };
+    }
+
+    /**
+     * @param city City to check.
+     * @return The number of constructions the city can run at the same time.
+     */
+    int getSlots(City<?, ?> city);
+}
@@ -0,0 +1,129 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.building.construction;
+
+import be.yildizgames.common.model.PlayerId;
+import be.yildizgames.engine.feature.city.City;
+import be.yildizgames.engine.feature.city.CityId;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Construction speed multipliers, global, by player and by city, the rate of a city is the product of the three.
+ * Changing a multiplier is O(1), the constructions are not modified: every city has its own construction clock advancing at its rate.
+ *
+ * @author Grégory Van den Borre
+ */
+public final class ConstructionSpeed {
+
+    /**
+     * Multiplier of the players and cities without specific speed, boxed once so getting a rate does not allocate.
+     */
+    private static final Float NORMAL = 1f;
+
+    private final Map<PlayerId, Float> players = new ConcurrentHashMap<>();
+
+    private final Map<CityId, Float> cities = new ConcurrentHashMap<>();
+
+    private volatile float global = 1f;
+
+    ConstructionSpeed() {
+        super();
+    }
+
+    /**
+     * @param multiplier Multiplier for all cities, 1 is the normal speed, 0 pauses the constructions.
+     */
+    public void setGlobal(final float multiplier) {
+        this.global = check(multiplier);
+    }
+
+    /**
+     * @param player     Player owning the cities.
+     * @param multiplier Multiplier for all the cities of the player.
+     */
+    public void setPlayer(final PlayerId player, final float multiplier) {
+        this.players.put(player, check(multiplier));
+    }
+
+    /**
+     * @param city       City to modify.
+     * @param multiplier Multiplier for the city.
+     */
+    public void setCity(final CityId city, final float multiplier) {
+        this.cities.put(city, check(multiplier));
+    }
+
+    /**
+     * Restore the normal speed of a player.
+     *
+     * @param player Player to reset.
+     */
+    public void resetPlayer(final PlayerId player) {
+        this.players.remove(player);
+    }
+
+    /**
+     * Restore the normal speed of a city.
+     *
+     * @param city City to reset.
+     */
+    public void resetCity(final CityId city) {
+        this.cities.remove(city);
+    }
+
+    /**
+     * @param city City to check.
+     * @return The construction rate of the city, the product of the global, owner and city multipliers.
+     */
+    public float getRate(final City<?, ?> city) {
+        return this.global * this.players.getOrDefault(city.getOwner(), NORMAL) * this.cities.getOrDefault(city.getId(), NORMAL);
+    }
+
+    /**
+     * Convert an amount of construction work in real time.
+     *
+     * @param work Work left, in milliseconds at normal speed.
+     * @param rate Current rate.
+     * @return The real time to complete the work, Long.MAX_VALUE if the rate is 0.
+     */
+    static long toRealTime(final double work, final float rate) {
+        if (work <= 0) {
+            return 0;
+        }
+        if (rate <= 0) {
+            return Long.MAX_VALUE;
+        }
+        return (long) Math.ceil(work / rate);
+    }
+
+    private static float check(final float multiplier) {
+        if (multiplier < 0 || Float.isNaN(multiplier) || Float.isInfinite(multiplier)) {
+            throw new IllegalArgumentException("Invalid speed multiplier: " + multiplier);
+        }
+        return multiplier;
+    }
+}
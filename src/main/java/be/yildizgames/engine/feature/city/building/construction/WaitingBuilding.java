@@ -26,9 +26,12 @@ package be.yildizgames.engine.feature.city.building.construction;
 
 
 import be.yildizgames.engine.feature.city.building.Building;
+import be.yildizgames.engine.feature.city.timer.Timer;
 
 /**
  * Class with building data and building time.
+ * A running construction only stores its completion deadline on the construction clock of its city, the time left is computed when requested,
+ * so the frames never write in the waiting buildings.
  *
  * @author Grégory Van den Borre
  */
@@ -40,44 +43,59 @@ public final class WaitingBuilding<B extends Building> {
     private final B b;
 
     /**
-     * Time stamp of the time when the building must be built.
+     * Construction work requested, in milliseconds at normal speed.
      */
-    long time;
+    final long work;
+
+    /**
+     * Value of the city construction clock when the building will be built.
+     */
+    double deadline;
+
+    /**
+     * Construction queue of the city, set when the construction is requested, to avoid any lookup during the frame.
+     */
+    ConstructionQueue<B> queue;
+
+    /**
+     * Completion timer, on the manager clock, set when the construction is started.
+     */
+    Timer<WaitingBuilding<B>> timer;
 
     public WaitingBuilding(B b, final long time) {
         this.b = b;
-        this.time = time;
+        this.work = time;
     }
 
     public B getB() {
         return b;
     }
 
+    /**
+     * @return The work requested if the construction is waiting for a slot, the real time left at the construction rate of its city if it is
+     * running, Long.MAX_VALUE if it is paused, 0 once it is completed or removed.
+     */
     public long getTime() {
-        return time;
-    }
-
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) {
-            return true;
+        if (this.timer == null) {
+            return this.work;
         }
-        if (o == null || getClass() != o.getClass()) {
-            return false;
-        }
-
-        WaitingBuilding<?> that = (WaitingBuilding<?>) o;
-
-        if (time != that.time) {
-            return false;
+        if (!this.timer.isPending()) {
+            return 0;
         }
-        return b.equals(that.b);
+        return ConstructionSpeed.toRealTime(this.deadline - this.queue.virtualTime, this.queue.rate);
     }
 
-    @Override
-    public int hashCode() {
-        int result = b.hashCode();
-        result = 31 * result + (int) (time ^ (time >>> 32));
-        return result;
+    /**
+     * @return The construction work left, in milliseconds at normal speed, independent of the construction rate: the work requested if the
+     * construction is waiting for a slot, 0 once it is completed or removed.
+     */
+    public long getWork() {
+        if (this.timer == null) {
+            return this.work;
+        }
+        if (!this.timer.isPending()) {
+            return 0;
+        }
+        return (long) Math.ceil(Math.max(0, this.deadline - this.queue.virtualTime));
     }
 }
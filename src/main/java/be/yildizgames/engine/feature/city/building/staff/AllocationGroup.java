@@ -0,0 +1,89 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.building.staff;
+
+import be.yildizgames.engine.feature.city.City;
+import be.yildizgames.engine.feature.city.building.Building;
+import be.yildizgames.engine.feature.city.timer.Timer;
+
+import java.util.List;
+
+/**
+ * Staff allocations of a city sharing a single countdown, completed together.
+ * The city is resolved once when the group is created, the completion time stamp is held by the group timer.
+ *
+ * @param <B> Building implementation.
+ * @param <C> City implementation.
+ * @author Grégory Van den Borre
+ */
+final class AllocationGroup<B extends Building, C extends City<B, ?>> {
+
+    /**
+     * Allocations in the group, all with the same time to allocate and the same creation time.
+     */
+    private final List<WaitingAllocation<B>> allocations;
+
+    /**
+     * City of the allocated buildings.
+     */
+    private final C city;
+
+    /**
+     * <code>true</code> if the group was created by a staff plan, even with a single allocation.
+     */
+    private final boolean plan;
+
+    /**
+     * Completion timer, on the wall clock.
+     */
+    Timer<AllocationGroup<B, C>> timer;
+
+    AllocationGroup(final List<WaitingAllocation<B>> allocations, final C city, final boolean plan) {
+        super();
+        this.allocations = allocations;
+        this.city = city;
+        this.plan = plan;
+    }
+
+    List<WaitingAllocation<B>> getAllocations() {
+        return this.allocations;
+    }
+
+    WaitingAllocation<B> getFirst() {
+        return this.allocations.get(0);
+    }
+
+    C getCity() {
+        return this.city;
+    }
+
+    boolean isPlan() {
+        return this.plan;
+    }
+
+    long getTime(final long now) {
+        return Math.max(0, this.timer.getDeadline() - now);
+    }
+}
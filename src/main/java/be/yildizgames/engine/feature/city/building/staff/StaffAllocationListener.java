@@ -28,6 +28,8 @@ import be.yildizgames.engine.feature.city.City;
 import be.yildizgames.engine.feature.city.building.Building;
 import be.yildizgames.engine.feature.city.building.BuildingData;
 
+import java.util.List;
+
 /**
  * Listener to notify for event about staff allocation in buildings.
  * @param <B> Building implementation.
@@ -39,6 +41,17 @@ import be.yildizgames.engine.feature.city.building.BuildingData;
 @FunctionalInterface
 public interface StaffAllocationListener<B extends Building, D extends BuildingData, C extends City<B, D>> {
 
+    /**
+     * Notify when a staff allocation is started.
+     *
+     * @param city     BaseCity where the allocation occurs.
+     * @param building Building in the city.
+     * @param number   number of worker to allocate.
+     * @param timeLeft Time left to allocate the staff.
+     */
+    default void allocationStarted(C city, B building, Staff number, long timeLeft) {
+    }
+
     /**
      * Notify for the time left to allocate the staff.
      *
@@ -57,4 +70,45 @@ public interface StaffAllocationListener<B extends Building, D extends BuildingD
      * @param number   number of worker allocated.
      */
     void staffAllocated(C city, B building, Staff number);
+
+    /**
+     * Notify when a staff plan is started for a city, by default notify every allocation of the plan separately.
+     *
+     * @param city        BaseCity where the allocation occurs.
+     * @param allocations Allocations of the plan.
+     * @param timeLeft    Time left to allocate the staff.
+     */
+    default void allocationPlanStarted(C city, List<WaitingAllocation<B>> allocations, long timeLeft) {
+        for (int i = 0; i < allocations.size(); i++) {
+            WaitingAllocation<B> a = allocations.get(i);
+            this.allocationStarted(city, a.getB(), a.getStaff(), timeLeft);
+        }
+    }
+
+    /**
+     * Notify for the time left to complete a staff plan, by default notify every building of the plan separately.
+     *
+     * @param city        BaseCity where the allocation occurs.
+     * @param allocations Allocations of the plan.
+     * @param timeLeft    Time left to allocate the staff.
+     */
+    default void allocationPlanUpdated(C city, List<WaitingAllocation<B>> allocations, long timeLeft) {
+        for (int i = 0; i < allocations.size(); i++) {
+            WaitingAllocation<B> a = allocations.get(i);
+            this.updateTime(city, a.getB(), timeLeft);
+        }
+    }
+
+    /**
+     * Notify when a staff plan has been applied, by default notify every allocation of the plan separately.
+     *
+     * @param city        BaseCity where the allocation occurs.
+     * @param allocations Allocations of the plan.
+     */
+    default void allocationPlanCompleted(C city, List<WaitingAllocation<B>> allocations) {
+        for (int i = 0; i < allocations.size(); i++) {
+            WaitingAllocation<B> a = allocations.get(i);
+            this.staffAllocated(city, a.getB(), a.getStaff());
+        }
+    }
 }
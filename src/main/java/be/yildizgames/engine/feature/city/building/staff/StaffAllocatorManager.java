@@ -25,15 +25,24 @@
 package be.yildizgames.engine.feature.city.building.staff;
 
 import be.yildizgames.common.frame.EndFrameListener;
+import be.yildizgames.common.model.PlayerId;
 import be.yildizgames.engine.feature.city.City;
+import be.yildizgames.engine.feature.city.CityId;
 import be.yildizgames.engine.feature.city.CityManager;
 import be.yildizgames.engine.feature.city.building.Building;
 import be.yildizgames.engine.feature.city.building.BuildingData;
+import be.yildizgames.engine.feature.city.building.BuildingPosition;
+import be.yildizgames.engine.feature.city.building.BuildingType;
+import be.yildizgames.engine.feature.city.building.ListenerRegistry;
+import be.yildizgames.engine.feature.city.metrics.ManagerMetrics;
+import be.yildizgames.engine.feature.city.timer.Timer;
+import be.yildizgames.engine.feature.city.timer.TimerService;
 
 import java.util.ArrayList;
-import java.util.LinkedHashSet;
+import java.util.Collections;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * Manager to allocate staff in a building.
@@ -46,20 +55,45 @@ import java.util.Set;
 public class StaffAllocatorManager<B extends Building, D extends BuildingData, C extends City<B, D>> extends EndFrameListener {
 
     /**
-     * List of building waiting for staff allocation.
+     * Listener event kinds.
      */
-    private final List<BuildingToAllocate<B>> toAllocateList = new ArrayList<>();
+    private static final int STARTED = 0;
+
+    private static final int UPDATED = 1;
+
+    private static final int ALLOCATED = 2;
+
+    private static final int PLAN_STARTED = 3;
+
+    private static final int PLAN_UPDATED = 4;
+
+    private static final int PLAN_COMPLETED = 5;
 
     /**
-     * List of listeners to notify about allocation changes.
+     * Completion timers of the staff allocation groups waiting to be completed, on the wall clock, a single allocation is a group of one.
      */
-    private final Set<StaffAllocationListener<B, D, C>> listenerList = new LinkedHashSet<>();
+    private final TimerService<AllocationGroup<B, C>> timers = new TimerService<>(this::completed);
+
+    /**
+     * Allocations completed during the current frame.
+     */
+    private int completed;
+
+    /**
+     * Listeners to notify about allocation changes, for all the events or by city, owner and building type.
+     */
+    private final ListenerRegistry<StaffAllocationListener<B, D, C>> listeners = new ListenerRegistry<>(StaffAllocatorManager::newListeners);
 
     /**
      *
      */
     private final CityManager<B,D,C> cityManager;
 
+    /**
+     * Metrics receiving the frame measures.
+     */
+    private ManagerMetrics metrics = ManagerMetrics.NOOP;
+
     /**
      * Simple constructor.
      * @param cityManager Associated city manager.
@@ -78,83 +112,285 @@ public class StaffAllocatorManager<B extends Building, D extends BuildingData, C
      * @param time     Time left to complete the allocation.
      */
     public void add(final B building, final Staff number, final long time) {
-        BuildingToAllocate<B> toAllocate = new BuildingToAllocate<>(building, number, time);
-        // FIXME clean!!!
-        this.toAllocateList.add(toAllocate);
+        long now = System.currentTimeMillis();
+        C c = this.cityManager.getCityById(building.getCity());
+        WaitingAllocation<B> toAllocate = new WaitingAllocation<>(building, number, time, now);
+        this.schedule(new AllocationGroup<>(Collections.singletonList(toAllocate), c, false), now + time);
         // Staff is allocated now to prevent being reused while countdown is
         // active
         // but listeners will not be notified of it.
-        toAllocate.building.setOldStaff();
-        toAllocate.building.setStaff(toAllocate.workerNumber);
+        building.setOldStaff();
+        building.setStaff(number);
+        c.buildingUpdated(building.getBuildingPosition());
+        this.fire(STARTED, c, toAllocate, null, time);
+    }
+
+    /**
+     * Apply a staff plan to a city, all the allocations share a single countdown and are completed together.
+     * The whole plan is validated before any building is changed, buildings not in the plan keep their current staff.
+     *
+     * @param city       City where the staff is allocated.
+     * @param plan       Staff to allocate by building position.
+     * @param population Population available in the city, the total staff after the plan must not exceed it.
+     * @param time       Time left to complete the allocation.
+     * @throws IllegalArgumentException If a position has no building, if a staff is not valid for its building or if the total exceeds the population.
+     */
+    public void allocate(final C city, final Map<BuildingPosition, Staff> plan, final int population, final long time) {
+        int total = 0;
+        List<B> planned = new ArrayList<>(plan.size());
+        for (B b : city.getBuildings()) {
+            Staff staff = plan.get(b.getBuildingPosition());
+            if (staff == null) {
+                total += b.getStaff().value;
+            } else {
+                if (!b.exists() || staff.value < 0 || staff.value > b.getMaxPopulation(b.getLevel()).value) {
+                    throw new IllegalArgumentException("Invalid staff " + staff + " for " + b);
+                }
+                total += staff.value;
+                planned.add(b);
+            }
+        }
+        if (planned.size() != plan.size()) {
+            throw new IllegalArgumentException("Staff plan contains positions without building in " + city.getId());
+        }
+        if (total > population) {
+            throw new IllegalArgumentException("Staff plan total " + total + " exceeds the city population " + population);
+        }
+        if (planned.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<WaitingAllocation<B>> allocations = new ArrayList<>(planned.size());
+        for (B b : planned) {
+            Staff staff = plan.get(b.getBuildingPosition());
+            b.setOldStaff();
+            b.setStaff(staff);
+            city.buildingUpdated(b.getBuildingPosition());
+            allocations.add(new WaitingAllocation<>(b, staff, time, now));
+        }
+        List<WaitingAllocation<B>> group = Collections.unmodifiableList(allocations);
+        this.schedule(new AllocationGroup<>(group, city, true), now + time);
+        this.fire(PLAN_STARTED, city, null, group, time);
+    }
+
+    private void schedule(final AllocationGroup<B, C> group, final long deadline) {
+        group.timer = this.timers.schedule(group, deadline);
     }
 
     @Override
     public boolean frameEnded(final long frameTime) {
+        long start = System.nanoTime();
+        this.completed = 0;
         long now = System.currentTimeMillis();
-        for (int i = 0; i < this.toAllocateList.size(); i++) {
-            BuildingToAllocate<B> toAllocate = this.toAllocateList.get(i);
-            C c = this.cityManager.getCityById(toAllocate.building.getCity());
-            if (now >= toAllocate.timeAdded + toAllocate.timeToAllocate) {
-                toAllocate.building.setOldStaff();
-                this.listenerList.forEach(l -> l.staffAllocated(c, toAllocate.building, toAllocate.workerNumber));
-                this.toAllocateList.remove(i);
-                i--;
+        this.timers.advance(now);
+        Timer<AllocationGroup<B, C>> timer = this.timers.getFirst();
+        while (timer != null) {
+            Timer<AllocationGroup<B, C>> next = timer.getNext();
+            AllocationGroup<B, C> group = timer.getValue();
+            if (group.isPlan()) {
+                this.fire(PLAN_UPDATED, group.getCity(), null, group.getAllocations(), group.getTime(now));
             } else {
-                long timeLeft = toAllocate.timeToAllocate - (now - toAllocate.timeAdded);
-                this.listenerList.forEach(l -> l.updateTime(c, toAllocate.building, timeLeft));
+                this.fire(UPDATED, group.getCity(), group.getFirst(), null, group.getTime(now));
             }
+            timer = next;
         }
+        this.metrics.frameProcessed(System.nanoTime() - start, this.timers.size(), this.completed);
         return true;
     }
 
     /**
-     * Add a new listener to notify if staff allocation events occur.
+     * Complete the allocation groups expired during a frame.
+     *
+     * @param groups Completed groups, in request order.
+     */
+    private void completed(final List<AllocationGroup<B, C>> groups) {
+        for (int i = 0; i < groups.size(); i++) {
+            AllocationGroup<B, C> group = groups.get(i);
+            List<WaitingAllocation<B>> allocations = group.getAllocations();
+            for (int a = 0; a < allocations.size(); a++) {
+                allocations.get(a).getB().setOldStaff();
+            }
+            if (group.isPlan()) {
+                this.fire(PLAN_COMPLETED, group.getCity(), null, allocations, 0);
+            } else {
+                this.fire(ALLOCATED, group.getCity(), group.getFirst(), null, 0);
+            }
+            this.completed += allocations.size();
+        }
+    }
+
+    /**
+     * Remove all the staff allocations of a city, to move it to another manager.
+     * The buildings keep their new staff and their previous one, allocations of a plan are returned separately and can be resumed with add.
+     * No listener is notified.
+     *
+     * @param city City to freeze.
+     * @return The removed allocations, with the time left at the moment of the call.
+     */
+    public List<WaitingAllocation<B>> freeze(final C city) {
+        List<WaitingAllocation<B>> result = this.export(city);
+        Timer<AllocationGroup<B, C>> timer = this.timers.getFirst();
+        while (timer != null) {
+            Timer<AllocationGroup<B, C>> next = timer.getNext();
+            if (city.getId().equals(timer.getValue().getCity().getId())) {
+                this.timers.cancel(timer);
+            }
+            timer = next;
+        }
+        return result;
+    }
+
+    /**
+     * Copy all the staff allocations of a city without removing them, to save it.
+     *
+     * @param city City to export.
+     * @return Copies of the allocations, with the time left at the moment of the call.
+     */
+    public List<WaitingAllocation<B>> export(final C city) {
+        List<WaitingAllocation<B>> result = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (Timer<AllocationGroup<B, C>> t = this.timers.getFirst(); t != null; t = t.getNext()) {
+            AllocationGroup<B, C> group = t.getValue();
+            if (city.getId().equals(group.getCity().getId())) {
+                long timeLeft = group.getTime(now);
+                for (WaitingAllocation<B> a : group.getAllocations()) {
+                    result.add(new WaitingAllocation<>(a.getB(), a.getStaff(), timeLeft, now));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Set the metrics receiving the frame processing measures.
+     *
+     * @param metrics Metrics to use, ManagerMetrics.NOOP to disable them.
+     */
+    public void setMetrics(final ManagerMetrics metrics) {
+        this.metrics = Objects.requireNonNull(metrics);
+    }
+
+    /**
+     * Notify the listeners of all the events and the ones subscribed to the city, its owner or the building type.
+     * The listeners subscribed to a building type receive the plan events as the single allocation events of the buildings of that type.
+     *
+     * @param event       Event kind.
+     * @param city        City of the allocation.
+     * @param allocation  Allocation for the single allocation events, null for the plan events.
+     * @param allocations Allocations for the plan events, null for the single allocation events.
+     * @param time        Time left, unused for a completion.
+     */
+    private void fire(final int event, final C city, final WaitingAllocation<B> allocation, final List<WaitingAllocation<B>> allocations, final long time) {
+        this.dispatch(this.listeners.getAll(), event, city, allocation, allocations, time);
+        if (!this.listeners.hasScoped()) {
+            return;
+        }
+        this.dispatch(this.listeners.getForCity(city.getId()), event, city, allocation, allocations, time);
+        this.dispatch(this.listeners.getForOwner(city.getOwner()), event, city, allocation, allocations, time);
+        if (allocation != null) {
+            this.dispatch(this.listeners.getForType(allocation.getB().getType()), event, city, allocation, null, time);
+        } else {
+            int single = event == PLAN_STARTED ? STARTED : event == PLAN_UPDATED ? UPDATED : ALLOCATED;
+            for (int i = 0; i < allocations.size(); i++) {
+                WaitingAllocation<B> a = allocations.get(i);
+                this.dispatch(this.listeners.getForType(a.getB().getType()), single, city, a, null, time);
+            }
+        }
+    }
+
+    private void dispatch(final StaffAllocationListener<B, D, C>[] current, final int event, final C city, final WaitingAllocation<B> allocation,
+                          final List<WaitingAllocation<B>> allocations, final long time) {
+        boolean timed = this.metrics.isListenerTimingEnabled();
+        for (StaffAllocationListener<B, D, C> l : current) {
+            long start = timed ? System.nanoTime() : 0;
+            switch (event) {
+                case STARTED:
+                    l.allocationStarted(city, allocation.getB(), allocation.getStaff(), time);
+                    break;
+                case UPDATED:
+                    l.updateTime(city, allocation.getB(), time);
+                    break;
+                case ALLOCATED:
+                    l.staffAllocated(city, allocation.getB(), allocation.getStaff());
+                    break;
+                case PLAN_STARTED:
+                    l.allocationPlanStarted(city, allocations, time);
+                    break;
+                case PLAN_UPDATED:
+                    l.allocationPlanUpdated(city, allocations, time);
+                    break;
+                default:
+                    l.allocationPlanCompleted(city, allocations);
+                    break;
+            }
+            if (timed) {
+                this.metrics.listenerDispatched(l, System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * Add a new listener to notify if staff allocation events occur, a listener already registered is ignored.
      *
      * @param listener Listener to add.
      */
     public void willNotify(final StaffAllocationListener<B, D, C> listener) {
-        this.listenerList.add(listener);
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Add a listener only notified of the staff allocations of a city.
+     *
+     * @param city     City to follow.
+     * @param listener Listener to add.
+     */
+    public void willNotify(final CityId city, final StaffAllocationListener<B, D, C> listener) {
+        this.listeners.addForCity(city, listener);
+    }
+
+    /**
+     * Add a listener only notified of the staff allocations of the cities owned by a player when the event occurs.
+     *
+     * @param owner    Player to follow.
+     * @param listener Listener to add.
+     */
+    public void willNotify(final PlayerId owner, final StaffAllocationListener<B, D, C> listener) {
+        this.listeners.addForOwner(owner, listener);
+    }
+
+    /**
+     * Add a listener only notified of the staff allocations of a building type, a plan is notified building by building.
+     *
+     * @param type     Building type to follow.
+     * @param listener Listener to add.
+     */
+    public void willNotify(final BuildingType type, final StaffAllocationListener<B, D, C> listener) {
+        this.listeners.addForType(type, listener);
     }
 
     /**
-     * Simple container for all data to allocate staff in a building.
+     * Remove a listener from all the events and scopes it was registered for.
      *
-     * @author Van den Borre Grégory
-     */
-    private static final class BuildingToAllocate<B> {
-
-        /**
-         * Building.
-         */
-        private final B building;
-
-        /**
-         * Number of workers to allocate to that building.
-         */
-        private final Staff workerNumber;
-
-        /**
-         * Time to complete the building allocation.
-         */
-        private final long timeToAllocate;
-
-        /**
-         * Time stamp when this object was created.
-         */
-        private final long timeAdded;
-
-        /**
-         * Full constructor.
-         *
-         * @param workerNumber Number of workers to allocate.
-         */
-        private BuildingToAllocate(final B building, final Staff workerNumber, final long timeToAllocate) {
-            super();
-            this.building = building;
-            this.workerNumber = workerNumber;
-            this.timeAdded = System.currentTimeMillis();
-            this.timeToAllocate = timeToAllocate;
+     * @param listener Listener to remove.
+     */
+    public void removeListener(final StaffAllocationListener<B, D, C> listener) {
+        this.listeners.remove(listener);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <B extends Building, D extends BuildingData, C extends City<B, D>> StaffAllocationListener<B, D, C>[] newListeners(final int size) {
+        return new StaffAllocationListener[size];
+    }
+
+    /**
+     * @return The list of staff allocations waiting to be completed.
+     */
+    public List<WaitingAllocation<B>> getAllocationList() {
+        List<WaitingAllocation<B>> result = new ArrayList<>(this.timers.size());
+        for (Timer<AllocationGroup<B, C>> t = this.timers.getFirst(); t != null; t = t.getNext()) {
+            result.addAll(t.getValue().getAllocations());
         }
+        return Collections.unmodifiableList(result);
     }
 
 }
@@ -0,0 +1,86 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.building.staff;
+
+import be.yildizgames.engine.feature.resource.bonus.BonusResources;
+
+import java.util.Arrays;
+
+/**
+ * Weighted score of a staff bonus, used to compare staff allocations.
+ * The score is the sum of every resource ratio and limit multiplied by its weight.
+ *
+ * @author Grégory Van den Borre
+ */
+public final class StaffObjective {
+
+    private final float[] ratioWeights;
+
+    private final float[] limitWeights;
+
+    /**
+     * Create a new objective.
+     *
+     * @param ratioWeights Weight of the ratio bonus of every resource.
+     * @param limitWeights Weight of the limit bonus of every resource, must have the same length as the ratio weights.
+     */
+    public StaffObjective(final float[] ratioWeights, final float[] limitWeights) {
+        super();
+        if (ratioWeights.length != limitWeights.length) {
+            throw new IllegalArgumentException("Ratio and limit weights must have the same length.");
+        }
+        this.ratioWeights = Arrays.copyOf(ratioWeights, ratioWeights.length);
+        this.limitWeights = Arrays.copyOf(limitWeights, limitWeights.length);
+    }
+
+    /**
+     * Objective giving the same weight to the ratio of every resource and ignoring the limits.
+     *
+     * @param resources Number of resources.
+     * @return The created objective.
+     */
+    public static StaffObjective production(final int resources) {
+        float[] ratios = new float[resources];
+        Arrays.fill(ratios, 1f);
+        return new StaffObjective(ratios, new float[resources]);
+    }
+
+    /**
+     * Compute the score of a bonus.
+     *
+     * @param bonus Bonus to evaluate, null is a bonus of 0.
+     * @return The bonus score.
+     */
+    public float score(final BonusResources bonus) {
+        if (bonus == null) {
+            return 0;
+        }
+        float score = 0;
+        for (int i = 0; i < this.ratioWeights.length; i++) {
+            score += this.ratioWeights[i] * bonus.getRatio(i) + this.limitWeights[i] * bonus.getLimit(i);
+        }
+        return score;
+    }
+}
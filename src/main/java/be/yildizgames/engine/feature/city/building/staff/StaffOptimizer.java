@@ -0,0 +1,272 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.building.staff;
+
+import be.yildizgames.engine.feature.city.City;
+import be.yildizgames.engine.feature.city.building.Building;
+import be.yildizgames.engine.feature.city.building.BuildingData;
+import be.yildizgames.engine.feature.city.building.BuildingPosition;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compute the staff allocation maximizing the objective score of a city.
+ * <p>
+ * For every building data and level, the score of every staff value is computed once and cached, with the upper concave envelope of those scores.
+ * The allocation greedily gives the population to the building with the best gain by worker on its envelope, using a heap.
+ * The result is optimal when the gains are decreasing with the staff, which is the usual case, otherwise only the last step may be sub optimal.
+ * An optimization costs O(P log n) for a population P and n buildings, and does not call the bonus factories once the tables are built.
+ * This class is thread safe, a single instance can be shared by all the AI cities.
+ *
+ * @author Grégory Van den Borre
+ */
+public final class StaffOptimizer {
+
+    private final StaffObjective objective;
+
+    /**
+     * Tables by building data, then by level.
+     */
+    private final Map<BuildingData, GainTable[]> tables = new ConcurrentHashMap<>();
+
+    /**
+     * Create a new optimizer.
+     *
+     * @param objective Objective to maximize.
+     */
+    public StaffOptimizer(final StaffObjective objective) {
+        super();
+        this.objective = objective;
+    }
+
+    /**
+     * Compute the best staff allocation of a city, the result can be given to StaffAllocatorManager.allocate.
+     *
+     * @param city       City to optimize.
+     * @param population Population available in the city.
+     * @param <B>        Building implementation.
+     * @param <D>        Building data implementation.
+     * @return The staff for every existing building of the city.
+     */
+    public <B extends Building, D extends BuildingData> Map<BuildingPosition, Staff> optimize(final City<B, D> city, final int population) {
+        List<B> buildings = city.getBuildings();
+        GainTable[] cityTables = new GainTable[buildings.size()];
+        for (int i = 0; i < cityTables.length; i++) {
+            B b = buildings.get(i);
+            cityTables[i] = b.exists() ? this.getTable(city.getByType(b.getType()), b) : null;
+        }
+        int[] staff = new int[cityTables.length];
+        this.optimize(cityTables, population, staff);
+        Map<BuildingPosition, Staff> result = new HashMap<>();
+        for (int i = 0; i < cityTables.length; i++) {
+            if (cityTables[i] != null) {
+                result.put(buildings.get(i).getBuildingPosition(), Staff.valueOf(staff[i]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Compute the score of a staff allocation.
+     *
+     * @param city City to evaluate.
+     * @param plan Staff by building position, buildings not in the plan are evaluated with their current staff.
+     * @param <B>  Building implementation.
+     * @param <D>  Building data implementation.
+     * @return The objective score.
+     */
+    public <B extends Building, D extends BuildingData> float score(final City<B, D> city, final Map<BuildingPosition, Staff> plan) {
+        float score = 0;
+        for (B b : city.getBuildings()) {
+            if (b.exists()) {
+                Staff s = plan.getOrDefault(b.getBuildingPosition(), b.getStaff());
+                score += this.getTable(city.getByType(b.getType()), b).scores[s.value];
+            }
+        }
+        return score;
+    }
+
+    private GainTable getTable(final BuildingData data, final Building building) {
+        int level = building.getLevel().value;
+        GainTable[] byLevel = this.tables.computeIfAbsent(data, d -> new GainTable[d.getMaxLevel().value + 1]);
+        GainTable table = byLevel[level];
+        if (table == null) {
+            // Concurrent computation of the same table is harmless, the results are equal.
+            table = new GainTable(data, building.getMaxPopulation(building.getLevel()).value, this.objective);
+            byLevel[level] = table;
+        }
+        return table;
+    }
+
+    /**
+     * Greedy allocation on the concave envelopes.
+     *
+     * @param tables     Table of every building, null for the buildings to ignore.
+     * @param population Population to allocate.
+     * @param staff      Filled with the staff of every building.
+     */
+    private void optimize(final GainTable[] tables, final int population, final int[] staff) {
+        int[] hull = new int[tables.length];
+        int[] heap = new int[tables.length];
+        int size = 0;
+        for (int i = 0; i < tables.length; i++) {
+            if (tables[i] != null && tables[i].hull.length > 1) {
+                heap[size] = i;
+                size = siftUp(heap, size, tables, hull);
+            }
+        }
+        int remaining = population;
+        while (size > 0 && remaining > 0) {
+            int b = heap[0];
+            GainTable t = tables[b];
+            int from = t.hull[hull[b]];
+            int to = t.hull[hull[b] + 1];
+            if (t.slope(hull[b]) <= 0) {
+                break;
+            }
+            if (to - from <= remaining) {
+                remaining -= to - from;
+                staff[b] = to;
+                hull[b]++;
+                if (hull[b] + 1 >= t.hull.length) {
+                    size = removeTop(heap, size, tables, hull);
+                } else {
+                    siftDown(heap, size, tables, hull);
+                }
+            } else {
+                int best = from;
+                for (int s = from + 1; s <= from + remaining; s++) {
+                    if (t.scores[s] > t.scores[best]) {
+                        best = s;
+                    }
+                }
+                remaining -= best - from;
+                staff[b] = best;
+                size = removeTop(heap, size, tables, hull);
+            }
+        }
+    }
+
+    private static int siftUp(final int[] heap, final int size, final GainTable[] tables, final int[] hull) {
+        int i = size;
+        int value = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (slope(heap[parent], tables, hull) >= slope(value, tables, hull)) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = value;
+        return size + 1;
+    }
+
+    private static int removeTop(final int[] heap, final int size, final GainTable[] tables, final int[] hull) {
+        heap[0] = heap[size - 1];
+        siftDown(heap, size - 1, tables, hull);
+        return size - 1;
+    }
+
+    private static void siftDown(final int[] heap, final int size, final GainTable[] tables, final int[] hull) {
+        int i = 0;
+        int value = heap[0];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && slope(heap[child + 1], tables, hull) > slope(heap[child], tables, hull)) {
+                child++;
+            }
+            if (slope(value, tables, hull) >= slope(heap[child], tables, hull)) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        if (size > 0) {
+            heap[i] = value;
+        }
+    }
+
+    private static float slope(final int building, final GainTable[] tables, final int[] hull) {
+        return tables[building].slope(hull[building]);
+    }
+
+    /**
+     * Scores of every staff value for a building data and level, with their upper concave envelope.
+     */
+    private static final class GainTable {
+
+        /**
+         * Score by staff value.
+         */
+        private final float[] scores;
+
+        /**
+         * Staff values on the upper concave envelope, starting at 0 and ending at the maximum staff.
+         */
+        private final int[] hull;
+
+        private GainTable(final BuildingData data, final int maxStaff, final StaffObjective objective) {
+            super();
+            this.scores = new float[maxStaff + 1];
+            for (int s = 0; s <= maxStaff; s++) {
+                this.scores[s] = objective.score(data.getStaffBonus(Staff.valueOf(s)));
+            }
+            int[] points = new int[maxStaff + 1];
+            int count = 0;
+            for (int s = 0; s <= maxStaff; s++) {
+                while (count >= 2 && !this.isAbove(points[count - 2], points[count - 1], s)) {
+                    count--;
+                }
+                points[count++] = s;
+            }
+            this.hull = Arrays.copyOf(points, count);
+        }
+
+        /**
+         * @return true if the point b is strictly above the segment from a to c.
+         */
+        private boolean isAbove(final int a, final int b, final int c) {
+            return (this.scores[b] - this.scores[a]) * (c - a) > (this.scores[c] - this.scores[a]) * (b - a);
+        }
+
+        /**
+         * @param segment Index of the segment on the envelope.
+         * @return The gain by worker on the segment.
+         */
+        private float slope(final int segment) {
+            int from = this.hull[segment];
+            int to = this.hull[segment + 1];
+            return (this.scores[to] - this.scores[from]) / (to - from);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.building.staff;
+
+import be.yildizgames.engine.feature.city.building.Building;
+
+/**
+ * Class with building data, staff to allocate and allocation time.
+ *
+ * @param <B> Building implementation.
+ * @author Grégory Van den Borre
+ */
+public final class WaitingAllocation<B extends Building> {
+
+    /**
+     * Building where the staff is allocated.
+     */
+    private final B b;
+
+    /**
+     * Number of workers to allocate to that building.
+     */
+    private final Staff staff;
+
+    /**
+     * Time to complete the building allocation.
+     */
+    private final long timeToAllocate;
+
+    /**
+     * Time stamp when this object was created.
+     */
+    private final long timeAdded;
+
+    WaitingAllocation(final B b, final Staff staff, final long timeToAllocate, final long timeAdded) {
+        super();
+        this.b = b;
+        this.staff = staff;
+        this.timeToAllocate = timeToAllocate;
+        this.timeAdded = timeAdded;
+    }
+
+    public B getB() {
+        return b;
+    }
+
+    public Staff getStaff() {
+        return staff;
+    }
+
+    /**
+     * @param now Current time stamp.
+     * @return The time left before the allocation is completed at the given time, never negative.
+     */
+    public long getTime(final long now) {
+        return Math.max(0, this.timeToAllocate - (now - this.timeAdded));
+    }
+
+    /**
+     * @return The time left before the allocation is completed.
+     */
+    public long getTime() {
+        return this.getTime(System.currentTimeMillis());
+    }
+}
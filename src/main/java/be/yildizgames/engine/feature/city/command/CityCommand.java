@@ -0,0 +1,91 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.command;
+
+import be.yildizgames.common.model.Level;
+import be.yildizgames.engine.feature.city.City;
+import be.yildizgames.engine.feature.city.building.Building;
+import be.yildizgames.engine.feature.city.building.BuildingPosition;
+import be.yildizgames.engine.feature.city.building.staff.Staff;
+
+/**
+ * A modification of a city, executed by the worker owning the city at that time, never concurrently with another command of the same city.
+ * A command must only modify its city and its buildings.
+ *
+ * @param <C> City implementation.
+ * @author Grégory Van den Borre
+ */
+@FunctionalInterface
+public interface CityCommand<C extends City<?, ?>> {
+
+    /**
+     * Execute the command.
+     *
+     * @param city City to modify.
+     */
+    void execute(C city);
+
+    /**
+     * Command setting a building in its city.
+     *
+     * @param building Building to set.
+     * @param <T>      Building implementation.
+     * @param <C>      City implementation.
+     * @return The command.
+     */
+    static <T extends Building, C extends City<T, ?>> CityCommand<C> createConstruction(final T building) {
+        return c -> c.createConstruction(building);
+    }
+
+    /**
+     * Command changing the level of a building in place.
+     *
+     * @param position Position of the building.
+     * @param level    New level.
+     * @param <C>      City implementation.
+     * @return The command.
+     */
+    static <C extends City<?, ?>> CityCommand<C> setLevel(final BuildingPosition position, final Level level) {
+        return c -> {
+            c.getBuilding(position).setLevel(level);
+            c.buildingUpdated(position);
+        };
+    }
+
+    /**
+     * Command changing the staff of a building in place.
+     *
+     * @param position Position of the building.
+     * @param staff    New staff.
+     * @param <C>      City implementation.
+     * @return The command.
+     */
+    static <C extends City<?, ?>> CityCommand<C> setStaff(final BuildingPosition position, final Staff staff) {
+        return c -> {
+            c.getBuilding(position).setStaff(staff);
+            c.buildingUpdated(position);
+        };
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.command;
+
+import be.yildizgames.common.frame.EndFrameListener;
+import be.yildizgames.engine.feature.city.City;
+import be.yildizgames.engine.feature.city.CityId;
+import be.yildizgames.engine.feature.city.CityManager;
+import be.yildizgames.engine.feature.city.building.Building;
+import be.yildizgames.engine.feature.city.building.BuildingData;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Route the commands modifying the cities to one mailbox per city, and execute them at the end of every frame.
+ * <p>
+ * Commands can be submitted from any thread without lock. When the frame ends, the cities having commands are drained in parallel by a
+ * worker pool: the commands of a city are executed in submission order by a single worker, different cities are processed at the same time.
+ * The frame thread waits until all the cities are drained, so the managers running after this listener see all the modifications.
+ * A failing command does not stop the others, its exception is given to the error handler.
+ * Commands submitted while a city is being drained are executed in the same frame if they are seen in time, at the next one otherwise.
+ * Once all the cities are drained, the modified cities are given to the listeners on the frame thread, to mark them dirty in a
+ * CityViewPublisher for example. If the frame thread is interrupted while waiting, the cities not started yet are kept for the next frame,
+ * the running ones are still awaited and the interrupt status is restored.
+ *
+ * @param <B> Building implementation.
+ * @param <D> Building data implementation.
+ * @param <C> City implementation.
+ * @author Grégory Van den Borre
+ */
+public final class CityCommandDispatcher<B extends Building, D extends BuildingData, C extends City<B, D>> extends EndFrameListener implements AutoCloseable {
+
+    private final CityManager<B, D, C> cityManager;
+
+    private final ExecutorService workers;
+
+    private final BiConsumer<CityId, RuntimeException> errorHandler;
+
+    /**
+     * Mailbox of every city having received a command.
+     */
+    private final Map<CityId, CityMailbox<C>> mailboxes = new ConcurrentHashMap<>();
+
+    /**
+     * Mailboxes with commands to drain at the end of the frame.
+     */
+    private final ConcurrentLinkedQueue<CityMailbox<C>> pending = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Mailboxes drained in the current frame, only used by the frame thread.
+     */
+    private final List<CityMailbox<C>> draining = new ArrayList<>();
+
+    /**
+     * Listeners receiving the modified cities after every frame, on the frame thread.
+     */
+    private final List<Consumer<C>> listeners = new ArrayList<>();
+
+    private final AtomicLong failures = new AtomicLong();
+
+    /**
+     * Create a new dispatcher with a worker per available processor.
+     *
+     * @param cityManager  Manager holding the cities.
+     * @param errorHandler Handler receiving the exceptions thrown by the commands, with the id of their city, called from the workers.
+     */
+    public CityCommandDispatcher(final CityManager<B, D, C> cityManager, final BiConsumer<CityId, RuntimeException> errorHandler) {
+        this(cityManager, errorHandler, Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Create a new dispatcher.
+     *
+     * @param cityManager  Manager holding the cities.
+     * @param errorHandler Handler receiving the exceptions thrown by the commands, with the id of their city, called from the workers.
+     * @param workers      Pool draining the mailboxes, closed with this dispatcher.
+     */
+    public CityCommandDispatcher(final CityManager<B, D, C> cityManager, final BiConsumer<CityId, RuntimeException> errorHandler, final ExecutorService workers) {
+        super();
+        this.cityManager = Objects.requireNonNull(cityManager);
+        this.errorHandler = Objects.requireNonNull(errorHandler);
+        this.workers = Objects.requireNonNull(workers);
+    }
+
+    /**
+     * Queue a command for a city, can be called from any thread.
+     *
+     * @param city    Id of the city to modify.
+     * @param command Command to execute at the end of the frame.
+     */
+    public void submit(final CityId city, final CityCommand<C> command) {
+        Objects.requireNonNull(command);
+        CityMailbox<C> mailbox = this.mailboxes.computeIfAbsent(city, CityMailbox::new);
+        mailbox.offer(command);
+        this.schedule(mailbox);
+    }
+
+    /**
+     * Drain all the mailboxes having commands, in parallel, and wait for them.
+     *
+     * @param time Time since the last call.
+     */
+    @Override
+    public boolean frameEnded(final long time) {
+        CityMailbox<C> mailbox = this.pending.poll();
+        while (mailbox != null) {
+            this.draining.add(mailbox);
+            mailbox = this.pending.poll();
+        }
+        if (this.draining.size() == 1) {
+            this.drain(this.draining.get(0));
+        } else if (!this.draining.isEmpty()) {
+            this.drainAll();
+        }
+        if (!this.listeners.isEmpty()) {
+            for (int i = 0; i < this.draining.size(); i++) {
+                C city = this.cityManager.getCityById(this.draining.get(i).city);
+                if (city != null) {
+                    for (int l = 0; l < this.listeners.size(); l++) {
+                        this.listeners.get(l).accept(city);
+                    }
+                }
+            }
+        }
+        this.draining.clear();
+        return true;
+    }
+
+    /**
+     * Add a listener receiving, on the frame thread, every city modified by commands during a frame, publisher::markDirty for example.
+     *
+     * @param listener Listener to notify.
+     */
+    public void willNotify(final Consumer<C> listener) {
+        this.listeners.add(Objects.requireNonNull(listener));
+    }
+
+    /**
+     * @return The number of commands that threw an exception since the creation of this dispatcher.
+     */
+    public long getFailureCount() {
+        return this.failures.get();
+    }
+
+    /**
+     * Stop the workers, the commands still queued are not executed.
+     */
+    @Override
+    public void close() {
+        this.workers.shutdown();
+    }
+
+    /**
+     * Drain the mailboxes in parallel and wait for all of them. On interruption, the mailboxes not started are put back in the pending
+     * ones and removed from the drained ones, the running ones are awaited.
+     */
+    private void drainAll() {
+        CountDownLatch done = new CountDownLatch(this.draining.size());
+        List<Future<?>> tasks = new ArrayList<>(this.draining.size());
+        for (CityMailbox<C> m : this.draining) {
+            tasks.add(this.workers.submit(() -> {
+                try {
+                    this.drain(m);
+                } finally {
+                    done.countDown();
+                }
+            }));
+        }
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            for (int i = tasks.size() - 1; i >= 0; i--) {
+                if (tasks.get(i).cancel(false)) {
+                    done.countDown();
+                    this.pending.add(this.draining.remove(i));
+                }
+            }
+            awaitUninterruptibly(done);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitUninterruptibly(final CountDownLatch latch) {
+        while (true) {
+            try {
+                latch.await();
+                return;
+            } catch (InterruptedException e) {
+                // The interrupt status is restored by the caller once all the workers are done.
+            }
+        }
+    }
+
+    private void drain(final CityMailbox<C> mailbox) {
+        C city = this.cityManager.getCityById(mailbox.city);
+        CityCommand<C> command = mailbox.poll();
+        while (command != null) {
+            try {
+                if (city == null) {
+                    throw new IllegalArgumentException("Unknown city " + mailbox.city);
+                }
+                command.execute(city);
+            } catch (RuntimeException e) {
+                this.failures.incrementAndGet();
+                this.errorHandler.accept(mailbox.city, e);
+            }
+            command = mailbox.poll();
+        }
+        mailbox.scheduled.set(false);
+        if (!mailbox.isEmpty()) {
+            this.schedule(mailbox);
+        }
+    }
+
+    private void schedule(final CityMailbox<C> mailbox) {
+        if (mailbox.scheduled.compareAndSet(false, true)) {
+            this.pending.add(mailbox);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.command;
+
+import be.yildizgames.engine.feature.city.City;
+import be.yildizgames.engine.feature.city.CityId;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Unbounded lock free queue of the commands of a city, with many producers and a single consumer at a time.
+ * Producers only swap the tail and link the previous node, they never wait on each other or on the consumer.
+ * A node offered but not yet linked is not visible to the consumer, it will be seen by the next drain.
+ *
+ * @param <C> City implementation.
+ * @author Grégory Van den Borre
+ */
+final class CityMailbox<C extends City<?, ?>> {
+
+    /**
+     * Id of the city receiving the commands.
+     */
+    final CityId city;
+
+    /**
+     * Set while the mailbox is waiting in the pending queue or being drained, so it is scheduled only once.
+     */
+    final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /**
+     * Last offered node, modified by the producers.
+     */
+    private final AtomicReference<Node<C>> tail;
+
+    /**
+     * Last consumed node, only accessed by the consumer.
+     */
+    private Node<C> head;
+
+    CityMailbox(final CityId city) {
+        super();
+        this.city = city;
+        this.head = new Node<>(null);
+        this.tail = new AtomicReference<>(this.head);
+    }
+
+    /**
+     * Add a command, can be called from any thread.
+     *
+     * @param command Command to add.
+     */
+    void offer(final CityCommand<C> command) {
+        Node<C> node = new Node<>(command);
+        this.tail.getAndSet(node).next = node;
+    }
+
+    /**
+     * Take the oldest command, must only be called by the current consumer.
+     *
+     * @return The oldest command, null if the mailbox is empty.
+     */
+    CityCommand<C> poll() {
+        Node<C> next = this.head.next;
+        if (next == null) {
+            return null;
+        }
+        this.head = next;
+        CityCommand<C> command = next.command;
+        next.command = null;
+        return command;
+    }
+
+    /**
+     * @return <code>true</code> if no linked command is waiting, must only be called by the current consumer.
+     */
+    boolean isEmpty() {
+        return this.head.next == null;
+    }
+
+    private static final class Node<C extends City<?, ?>> {
+
+        private CityCommand<C> command;
+
+        private volatile Node<C> next;
+
+        private Node(final CityCommand<C> command) {
+            super();
+            this.command = command;
+        }
+    }
+}
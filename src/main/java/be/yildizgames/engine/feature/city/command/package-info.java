@@ -0,0 +1,6 @@
+/**
+ * Per city mailboxes serializing the commands modifying a city, with the cities processed in parallel.
+ *
+ * @author Grégory Van den Borre
+ */
+package be.yildizgames.engine.feature.city.command;
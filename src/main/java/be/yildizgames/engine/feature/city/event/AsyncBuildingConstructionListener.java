@@ -0,0 +1,116 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.event;
+
+import be.yildizgames.engine.feature.city.City;
+import be.yildizgames.engine.feature.city.building.Building;
+import be.yildizgames.engine.feature.city.building.BuildingData;
+import be.yildizgames.engine.feature.city.building.construction.BuildingConstructionListener;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Construction listener forwarding the events to another listener on a dedicated thread.
+ * Register it in the construction manager instead of the wrapped listener, the frame is then no longer slowed down by the wrapped listener.
+ * Events are delivered in the order they were produced.
+ * <p>
+ * Only the time left is copied when the event is produced, the city and the building are the live instances, still modified by the frame thread.
+ * The wrapped listener must only read their identity (city id, building position and type), their other state such as level or staff may
+ * already have changed and is read without any synchronization.
+ *
+ * @param <B> Building implementation.
+ * @param <D> Building data implementation.
+ * @param <C> City implementation.
+ * @author Grégory Van den Borre
+ */
+public final class AsyncBuildingConstructionListener<B extends Building, D extends BuildingData, C extends City<B, D>>
+        extends AsyncDispatcher implements BuildingConstructionListener<B, D, C> {
+
+    private static final int STARTED = 0;
+
+    private static final int COMPLETE = 1;
+
+    private static final int IN_CONSTRUCTION = 2;
+
+    private static final int QUEUED = 3;
+
+    /**
+     * Listener receiving the events.
+     */
+    private final BuildingConstructionListener<B, D, C> listener;
+
+    /**
+     * Create a new asynchronous listener.
+     *
+     * @param listener      Listener receiving the events.
+     * @param capacity      Maximum number of events waiting to be delivered.
+     * @param policy        Behavior when the capacity is reached.
+     * @param threadFactory Factory creating the delivering thread.
+     */
+    public AsyncBuildingConstructionListener(final BuildingConstructionListener<B, D, C> listener, final int capacity, final OverflowPolicy policy, final ThreadFactory threadFactory) {
+        super(capacity, policy, threadFactory);
+        this.listener = listener;
+    }
+
+    @Override
+    public void buildingConstructionStarted(final C city, final B building, final long timeLeft) {
+        this.dispatch(STARTED, city, building, null, timeLeft);
+    }
+
+    @Override
+    public void buildingConstructionQueued(final C city, final B building, final long timeLeft) {
+        this.dispatch(QUEUED, city, building, null, timeLeft);
+    }
+
+    @Override
+    public void buildingComplete(final C city, final B b) {
+        this.dispatch(COMPLETE, city, b, null, 0);
+    }
+
+    @Override
+    public void buildingInConstruction(final C city, final B building, final long timeLeft) {
+        this.dispatch(IN_CONSTRUCTION, city, building, null, timeLeft);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    void deliver(final AsyncEvent event) {
+        C city = (C) event.city;
+        B building = (B) event.building;
+        switch (event.kind) {
+            case STARTED:
+                this.listener.buildingConstructionStarted(city, building, event.time);
+                break;
+            case COMPLETE:
+                this.listener.buildingComplete(city, building);
+                break;
+            case QUEUED:
+                this.listener.buildingConstructionQueued(city, building, event.time);
+                break;
+            default:
+                this.listener.buildingInConstruction(city, building, event.time);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.event;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Deliver the events of one listener on its own thread.
+ * Events are queued by the frame thread in a bounded ring and consumed in the same order by the listener thread.
+ * Only one thread must produce events for a given dispatcher, which is the case of the managers, running in the frame thread.
+ *
+ * @author Grégory Van den Borre
+ */
+abstract class AsyncDispatcher implements AutoCloseable {
+
+    /**
+     * Maximum time the consumer sleeps without being notified, to recover if an unpark is missed.
+     */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * Time the producer waits for free space with the BLOCK policy.
+     */
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final EventRing ring;
+
+    private final OverflowPolicy policy;
+
+    private final Thread consumer;
+
+    /**
+     * Number of events discarded because the ring was full or the dispatcher was closed.
+     */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Set by the consumer before parking, so the producer only unparks an idle consumer.
+     */
+    private volatile boolean idle;
+
+    private volatile boolean running = true;
+
+    /**
+     * @param capacity      Number of events that can be waiting for the listener.
+     * @param policy        Behavior when the ring is full.
+     * @param threadFactory Factory creating the consumer thread, can provide platform or virtual threads.
+     */
+    AsyncDispatcher(final int capacity, final OverflowPolicy policy, final ThreadFactory threadFactory) {
+        super();
+        if (policy == null || threadFactory == null) {
+            throw new IllegalArgumentException("Policy and thread factory cannot be null.");
+        }
+        this.ring = new EventRing(capacity);
+        this.policy = policy;
+        this.consumer = threadFactory.newThread(this::consume);
+        this.consumer.start();
+    }
+
+    /**
+     * Queue an event, or drop it if the dispatcher is closed, an event produced by the frame loop during shutdown must not stop it.
+     */
+    final void dispatch(final int kind, final Object city, final Object building, final Object staff, final long time) {
+        if (!this.running) {
+            this.dropped.incrementAndGet();
+            return;
+        }
+        AsyncEvent event = this.ring.claim();
+        while (event == null) {
+            if (this.policy == OverflowPolicy.DROP) {
+                this.dropped.incrementAndGet();
+                return;
+            }
+            LockSupport.unpark(this.consumer);
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+            event = this.ring.claim();
+        }
+        event.set(kind, city, building, staff, time);
+        this.ring.publish();
+        if (this.idle) {
+            LockSupport.unpark(this.consumer);
+        }
+    }
+
+    /**
+     * Deliver an event to the listener, called from the consumer thread.
+     *
+     * @param event Event to deliver, only valid during the call.
+     */
+    abstract void deliver(AsyncEvent event);
+
+    /**
+     * @return The number of events discarded because the listener was too slow or because they were produced after close.
+     */
+    public final long getDropped() {
+        return this.dropped.get();
+    }
+
+    /**
+     * Stop accepting events, the next ones are dropped, wait for the queued ones to be delivered and stop the listener thread.
+     */
+    @Override
+    public final void close() {
+        this.running = false;
+        LockSupport.unpark(this.consumer);
+        try {
+            this.consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void consume() {
+        while (this.running || !this.ring.isEmpty()) {
+            AsyncEvent event = this.ring.peek();
+            if (event == null) {
+                this.idle = true;
+                if (this.ring.isEmpty() && this.running) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+                this.idle = false;
+            } else {
+                try {
+                    this.deliver(event);
+                } catch (RuntimeException e) {
+                    Thread.UncaughtExceptionHandler handler = Thread.currentThread().getUncaughtExceptionHandler();
+                    handler.uncaughtException(Thread.currentThread(), e);
+                }
+                this.ring.release();
+            }
+        }
+    }
+}
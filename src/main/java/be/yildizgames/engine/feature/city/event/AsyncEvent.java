@@ -0,0 +1,67 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.event;
+
+/**
+ * Preallocated, reusable slot of an event ring.
+ *
+ * @author Grégory Van den Borre
+ */
+final class AsyncEvent {
+
+    /**
+     * Type of event, defined by the listener using the ring.
+     */
+    int kind;
+
+    Object city;
+
+    Object building;
+
+    Object staff;
+
+    long time;
+
+    AsyncEvent() {
+        super();
+    }
+
+    void set(final int kind, final Object city, final Object building, final Object staff, final long time) {
+        this.kind = kind;
+        this.city = city;
+        this.building = building;
+        this.staff = staff;
+        this.time = time;
+    }
+
+    /**
+     * Release the references so a consumed event does not keep objects alive.
+     */
+    void clear() {
+        this.city = null;
+        this.building = null;
+        this.staff = null;
+    }
+}
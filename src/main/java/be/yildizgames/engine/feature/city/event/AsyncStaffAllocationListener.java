@@ -0,0 +1,105 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.event;
+
+import be.yildizgames.engine.feature.city.City;
+import be.yildizgames.engine.feature.city.building.Building;
+import be.yildizgames.engine.feature.city.building.BuildingData;
+import be.yildizgames.engine.feature.city.building.staff.Staff;
+import be.yildizgames.engine.feature.city.building.staff.StaffAllocationListener;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Staff allocation listener forwarding the events to another listener on a dedicated thread.
+ * Events are delivered in the order they were produced.
+ * <p>
+ * The staff and time left received by the wrapped listener are the values of the event, but the city and the building are shared with the frame thread:
+ * read only their identity, not their current staff or level.
+ *
+ * @param <B> Building implementation.
+ * @param <D> Building data implementation.
+ * @param <C> City implementation.
+ * @author Grégory Van den Borre
+ */
+public final class AsyncStaffAllocationListener<B extends Building, D extends BuildingData, C extends City<B, D>>
+        extends AsyncDispatcher implements StaffAllocationListener<B, D, C> {
+
+    private static final int STARTED = 0;
+
+    private static final int UPDATE = 1;
+
+    private static final int ALLOCATED = 2;
+
+    /**
+     * Listener receiving the events.
+     */
+    private final StaffAllocationListener<B, D, C> listener;
+
+    /**
+     * Create a new asynchronous listener.
+     *
+     * @param listener      Listener receiving the events.
+     * @param capacity      Maximum number of events waiting to be delivered.
+     * @param policy        Behavior when the capacity is reached.
+     * @param threadFactory Factory creating the delivering thread.
+     */
+    public AsyncStaffAllocationListener(final StaffAllocationListener<B, D, C> listener, final int capacity, final OverflowPolicy policy, final ThreadFactory threadFactory) {
+        super(capacity, policy, threadFactory);
+        this.listener = listener;
+    }
+
+    @Override
+    public void allocationStarted(final C city, final B building, final Staff number, final long timeLeft) {
+        this.dispatch(STARTED, city, building, number, timeLeft);
+    }
+
+    @Override
+    public void updateTime(final C city, final B building, final long timeLeft) {
+        this.dispatch(UPDATE, city, building, null, timeLeft);
+    }
+
+    @Override
+    public void staffAllocated(final C city, final B building, final Staff number) {
+        this.dispatch(ALLOCATED, city, building, number, 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    void deliver(final AsyncEvent event) {
+        C city = (C) event.city;
+        B building = (B) event.building;
+        switch (event.kind) {
+            case STARTED:
+                this.listener.allocationStarted(city, building, (Staff) event.staff, event.time);
+                break;
+            case UPDATE:
+                this.listener.updateTime(city, building, event.time);
+                break;
+            default:
+                this.listener.staffAllocated(city, building, (Staff) event.staff);
+        }
+    }
+}
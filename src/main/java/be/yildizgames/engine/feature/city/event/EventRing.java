@@ -0,0 +1,111 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.event;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded lock free ring of preallocated events, for a single producer thread and a single consumer thread.
+ * Nothing is allocated once the ring is created.
+ *
+ * @author Grégory Van den Borre
+ */
+final class EventRing {
+
+    private final AsyncEvent[] slots;
+
+    private final int mask;
+
+    /**
+     * Sequence of the next event to consume, only written by the consumer.
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * Sequence of the next event to produce, only written by the producer.
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * @param capacity Number of slots, rounded up to a power of 2.
+     */
+    EventRing(final int capacity) {
+        super();
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        size = Math.max(size, 2);
+        this.slots = new AsyncEvent[size];
+        for (int i = 0; i < size; i++) {
+            this.slots[i] = new AsyncEvent();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Get the next free slot, to fill before calling publish.
+     *
+     * @return The slot, or null if the ring is full.
+     */
+    AsyncEvent claim() {
+        long t = this.tail.get();
+        if (t - this.head.get() >= this.slots.length) {
+            return null;
+        }
+        return this.slots[(int) (t & this.mask)];
+    }
+
+    /**
+     * Make the claimed slot visible to the consumer.
+     */
+    void publish() {
+        this.tail.lazySet(this.tail.get() + 1);
+    }
+
+    /**
+     * @return The next event to consume, or null if the ring is empty.
+     */
+    AsyncEvent peek() {
+        long h = this.head.get();
+        if (h >= this.tail.get()) {
+            return null;
+        }
+        return this.slots[(int) (h & this.mask)];
+    }
+
+    /**
+     * Free the slot returned by peek.
+     */
+    void release() {
+        long h = this.head.get();
+        this.slots[(int) (h & this.mask)].clear();
+        this.head.lazySet(h + 1);
+    }
+
+    boolean isEmpty() {
+        return this.head.get() >= this.tail.get();
+    }
+}
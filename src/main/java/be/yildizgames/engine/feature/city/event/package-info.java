@@ -0,0 +1,6 @@
+/**
+ * Asynchronous delivery of the construction and staff allocation events, to keep slow listeners out of the frame loop.
+ *
+ * @author Grégory Van den Borre
+ */
+package be.yildizgames.engine.feature.city.event;
@@ -0,0 +1,542 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.journal;
+
+import be.yildizgames.common.frame.EndFrameListener;
+import be.yildizgames.common.model.Level;
+import be.yildizgames.engine.feature.city.City;
+import be.yildizgames.engine.feature.city.CityId;
+import be.yildizgames.engine.feature.city.CityManager;
+import be.yildizgames.engine.feature.city.building.Building;
+import be.yildizgames.engine.feature.city.building.BuildingData;
+import be.yildizgames.engine.feature.city.building.BuildingPosition;
+import be.yildizgames.engine.feature.city.building.BuildingType;
+import be.yildizgames.engine.feature.city.building.construction.BuildingConstructionListener;
+import be.yildizgames.engine.feature.city.building.construction.BuildingConstructionManager;
+import be.yildizgames.engine.feature.city.building.construction.WaitingBuilding;
+import be.yildizgames.engine.feature.city.building.staff.Staff;
+import be.yildizgames.engine.feature.city.building.staff.StaffAllocationListener;
+import be.yildizgames.engine.feature.city.building.staff.StaffAllocatorManager;
+import be.yildizgames.engine.feature.city.snapshot.BuildingLoader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Append only journal of the construction and staff allocation events.
+ * <p>
+ * Register it as listener in the BuildingConstructionManager and in the StaffAllocatorManager, and in the frame manager:
+ * events are buffered in memory and written with a single write and a single sync at the end of every frame (group commit).
+ * The journal is split in segments, when a segment is full, a new one is started with the still pending events and the older segments are deleted,
+ * so the journal size only depends on the pending work.
+ * <p>
+ * After a crash, call replay() before any other use to recreate the pending constructions and staff allocations.
+ * The constructions are journaled with their work, so the speed multipliers are not applied twice: the time elapsed since a construction started
+ * is converted to work with the rate of its city when replaying, and a paused city restarts with all the work left.
+ * The staff allocations remaining times are computed from the wall clock deadlines stored in the journal.
+ * The constructions waiting for a slot are requested again after the running ones, in request order.
+ * Freezing a city does not notify the listeners, register cityRemoved in the CityTransfer to forget the pending events of the exported cities.
+ * This class must be used from the thread owning the managers.
+ *
+ * @param <B> Building implementation.
+ * @param <D> Building data implementation.
+ * @param <C> City implementation.
+ * @author Grégory Van den Borre
+ */
+public class CityJournal<B extends Building, D extends BuildingData, C extends City<B, D>> extends EndFrameListener
+        implements BuildingConstructionListener<B, D, C>, StaffAllocationListener<B, D, C>, AutoCloseable {
+
+    /**
+     * Default maximum size of a segment, 16 MB.
+     */
+    public static final long DEFAULT_SEGMENT_SIZE = 16L * 1024 * 1024;
+
+    private static final String PREFIX = "city-journal-";
+
+    private static final String SUFFIX = ".log";
+
+    private static final int BUFFER_SIZE = JournalEntry.BYTES * 2048;
+
+    /**
+     * Folder containing the segments.
+     */
+    private final Path directory;
+
+    /**
+     * Associated city manager to retrieve cities and building data while replaying.
+     */
+    private final CityManager<B, D, C> cityManager;
+
+    /**
+     * Construction manager notifying this journal, to retrieve the work of the started constructions.
+     */
+    private final BuildingConstructionManager<B, D, C> constructionManager;
+
+    /**
+     * Maximum size of a segment before rolling to a new one.
+     */
+    private final long segmentSize;
+
+    /**
+     * Pending constructions, by id, in request order.
+     * Several constructions can be pending at the same position, so they are identified by an id journaled with all their events.
+     */
+    private final Map<Long, JournalEntry> constructions = new LinkedHashMap<>();
+
+    /**
+     * Id of the pending constructions, by building instance.
+     */
+    private final Map<B, Long> ids = new IdentityHashMap<>();
+
+    /**
+     * Pending staff allocations, by city and position.
+     */
+    private final Map<Long, JournalEntry> allocations = new HashMap<>();
+
+    /**
+     * Events not yet written.
+     */
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * Reusable entry to encode the events.
+     */
+    private final JournalEntry entry = new JournalEntry();
+
+    /**
+     * Segment currently written, null until the first write.
+     */
+    private FileChannel segment;
+
+    /**
+     * Sequence number of the current segment.
+     */
+    private long sequence;
+
+    /**
+     * Number of bytes written in the current segment.
+     */
+    private long segmentBytes;
+
+    /**
+     * Id of the next construction.
+     */
+    private long nextId = 1;
+
+    /**
+     * <code>true</code> while events are replayed, to ignore the notifications they trigger.
+     */
+    private boolean replaying;
+
+    /**
+     * Create a new journal.
+     *
+     * @param directory   Folder containing the journal segments, created if it does not exist.
+     * @param cityManager         Associated city manager.
+     * @param constructionManager Construction manager this journal listens to.
+     * @param segmentSize         Maximum size of a segment in bytes.
+     */
+    public CityJournal(final Path directory, final CityManager<B, D, C> cityManager, final BuildingConstructionManager<B, D, C> constructionManager,
+                       final long segmentSize) {
+        super();
+        if (segmentSize < BUFFER_SIZE) {
+            throw new IllegalArgumentException("Segment size must be at least " + BUFFER_SIZE);
+        }
+        this.directory = directory;
+        this.cityManager = cityManager;
+        this.constructionManager = constructionManager;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Create a new journal with the default segment size.
+     *
+     * @param directory           Folder containing the journal segments, created if it does not exist.
+     * @param cityManager         Associated city manager.
+     * @param constructionManager Construction manager this journal listens to.
+     */
+    public CityJournal(final Path directory, final CityManager<B, D, C> cityManager, final BuildingConstructionManager<B, D, C> constructionManager) {
+        this(directory, cityManager, constructionManager, DEFAULT_SEGMENT_SIZE);
+    }
+
+    @Override
+    public final void buildingConstructionStarted(final C city, final B building, final long timeLeft) {
+        this.entry.set(JournalEntry.CONSTRUCTION_STARTED, this.getId(building), building.getCity().value, building.getBuildingPosition().value, building.getType().type,
+                building.getLevel().value, building.getStaff().value, System.currentTimeMillis(), this.getWork(city, building));
+        this.constructions.put(this.entry.id, new JournalEntry(this.entry));
+        if (!this.replaying) {
+            this.append();
+        }
+    }
+
+    @Override
+    public final void buildingConstructionQueued(final C city, final B building, final long timeLeft) {
+        if (!this.replaying) {
+            this.entry.set(JournalEntry.CONSTRUCTION_QUEUED, this.getId(building), building.getCity().value, building.getBuildingPosition().value, building.getType().type,
+                    building.getLevel().value, building.getStaff().value, 0, timeLeft);
+            this.constructions.put(this.entry.id, new JournalEntry(this.entry));
+            this.append();
+        }
+    }
+
+    @Override
+    public final void buildingComplete(final C city, final B building) {
+        if (this.replaying) {
+            return;
+        }
+        Long id = this.ids.remove(building);
+        if (id != null && this.constructions.remove(id) != null) {
+            this.entry.set(JournalEntry.CONSTRUCTION_COMPLETED, id, building.getCity().value, building.getBuildingPosition().value, 0, 0, 0, 0, 0);
+            this.append();
+        }
+    }
+
+    @Override
+    public final void allocationStarted(final C city, final B building, final Staff number, final long timeLeft) {
+        if (!this.replaying) {
+            this.entry.set(JournalEntry.ALLOCATION_STARTED, 0, building.getCity().value, building.getBuildingPosition().value, 0, 0,
+                    number.value, System.currentTimeMillis() + timeLeft, 0);
+            this.allocations.put(this.entry.key(), new JournalEntry(this.entry));
+            this.append();
+        }
+    }
+
+    @Override
+    public final void staffAllocated(final C city, final B building, final Staff number) {
+        long key = ((long) building.getCity().value << 32) | building.getBuildingPosition().value;
+        if (!this.replaying && this.allocations.remove(key) != null) {
+            this.entry.set(JournalEntry.ALLOCATION_COMPLETED, 0, building.getCity().value, building.getBuildingPosition().value, 0, 0, 0, 0, 0);
+            this.append();
+        }
+    }
+
+    /**
+     * @param building Building to build.
+     * @return The id of the construction, a new one if the building is not pending yet.
+     */
+    private long getId(final B building) {
+        Long id = this.ids.get(building);
+        if (id == null) {
+            id = this.nextId++;
+            this.ids.put(building, id);
+        }
+        return id;
+    }
+
+    /**
+     * @param city     City where the construction started.
+     * @param building Building just started.
+     * @return The work of the construction, in milliseconds at normal speed, the real time left is infinite when the city is paused.
+     */
+    private long getWork(final C city, final B building) {
+        for (WaitingBuilding<B> w : this.constructionManager.getBuildingList(city)) {
+            if (w.getB() == building) {
+                return w.getWork();
+            }
+        }
+        throw new IllegalStateException("No running construction at " + building.getBuildingPosition().value + " in city " + building.getCity().value);
+    }
+
+    /**
+     * Forget the pending constructions and staff allocations of a city removed from the managers, so they are not replayed.
+     *
+     * @param city Id of the removed city.
+     */
+    public final void cityRemoved(final CityId city) {
+        this.ids.keySet().removeIf(b -> b.getCity().equals(city));
+        this.forget(this.constructions, city.value, JournalEntry.CONSTRUCTION_COMPLETED);
+        this.forget(this.allocations, city.value, JournalEntry.ALLOCATION_COMPLETED);
+    }
+
+    private void forget(final Map<Long, JournalEntry> entries, final int city, final byte kind) {
+        Iterator<JournalEntry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            JournalEntry e = it.next();
+            if (e.city == city) {
+                it.remove();
+                this.entry.set(kind, e.id, e.city, e.position, 0, 0, 0, 0, 0);
+                this.append();
+            }
+        }
+    }
+
+    /**
+     * Commit the events of the frame.
+     *
+     * @param time Time since the last call.
+     * @return Always <code>true</code>.
+     */
+    @Override
+    public final boolean frameEnded(final long time) {
+        this.commit();
+        return true;
+    }
+
+    /**
+     * Write all buffered events and sync them to the disk.
+     *
+     * @throws UncheckedIOException If the journal cannot be written.
+     */
+    public final void commit() {
+        if (this.buffer.position() == 0) {
+            return;
+        }
+        try {
+            this.flush();
+            this.segment.force(false);
+            if (this.segmentBytes >= this.segmentSize) {
+                this.roll();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Read the existing segments and recreate the pending constructions and staff allocations.
+     * Cities must already be loaded in the city manager, the events of the cities not loaded and the staff allocations of empty positions are dropped.
+     * Once replayed, the pending events are written in a new segment and the replayed segments are deleted.
+     *
+     * The speed multipliers must be set in the construction manager before replaying.
+     *
+     * @param loader       Factory creating the building instances.
+     * @param staffManager Manager to fill with the pending staff allocations.
+     * @throws UncheckedIOException If the journal cannot be read.
+     */
+    public final void replay(final BuildingLoader<B> loader, final StaffAllocatorManager<B, D, C> staffManager) {
+        List<Path> segments = this.listSegments();
+        for (Path p : segments) {
+            this.readSegment(p);
+        }
+        this.constructions.values().removeIf(this::isCityMissing);
+        this.allocations.values().removeIf(this::isCityMissing);
+        this.allocations.values().removeIf(this::isBuildingMissing);
+        long now = System.currentTimeMillis();
+        this.replaying = true;
+        try {
+            List<JournalEntry> pending = new ArrayList<>(this.constructions.values());
+            for (JournalEntry e : pending) {
+                if (e.kind == JournalEntry.CONSTRUCTION_STARTED) {
+                    this.constructionManager.createBuilding(this.load(loader, e), this.getWorkLeft(e, now));
+                }
+            }
+            for (JournalEntry e : pending) {
+                if (e.kind == JournalEntry.CONSTRUCTION_QUEUED) {
+                    this.constructionManager.createBuilding(this.load(loader, e), Math.max(1, e.work));
+                }
+            }
+            for (JournalEntry e : this.allocations.values()) {
+                C city = this.cityManager.getCityById(CityId.valueOf(e.city));
+                staffManager.add(city.getBuilding(BuildingPosition.valueOf(e.position)), Staff.valueOf(e.staff), Math.max(0, e.deadline - now));
+            }
+        } finally {
+            this.replaying = false;
+        }
+        try {
+            this.roll();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Compute the work left of a started construction, the elapsed wall clock time is converted to work with the current rate of the city.
+     *
+     * @param e   Started construction.
+     * @param now Current wall clock time.
+     * @return The work left, at least 1 so the construction is not completed without notification.
+     */
+    private long getWorkLeft(final JournalEntry e, final long now) {
+        float rate = this.constructionManager.getSpeed().getRate(this.cityManager.getCityById(CityId.valueOf(e.city)));
+        double done = Math.max(0, now - e.deadline) * (double) rate;
+        return Math.max(1, (long) Math.ceil(e.work - done));
+    }
+
+    private boolean isCityMissing(final JournalEntry e) {
+        return this.cityManager.getCityById(CityId.valueOf(e.city)) == null;
+    }
+
+    private boolean isBuildingMissing(final JournalEntry e) {
+        return this.cityManager.getCityById(CityId.valueOf(e.city)).getBuilding(BuildingPosition.valueOf(e.position)) == null;
+    }
+
+    private B load(final BuildingLoader<B> loader, final JournalEntry e) {
+        D data = this.cityManager.getData(BuildingType.valueOf(e.type));
+        B building = loader.load(CityId.valueOf(e.city), data, BuildingPosition.valueOf(e.position), Level.valueOf(e.level), Staff.valueOf(e.staff));
+        this.ids.put(building, e.id);
+        return building;
+    }
+
+    /**
+     * Commit the pending events and close the current segment.
+     */
+    @Override
+    public final void close() {
+        this.commit();
+        if (this.segment != null) {
+            try {
+                this.segment.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.segment = null;
+        }
+    }
+
+    private void append() {
+        try {
+            if (this.buffer.remaining() < JournalEntry.BYTES) {
+                this.flush();
+            }
+            this.entry.write(this.buffer, this.crc);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void flush() throws IOException {
+        if (this.segment == null) {
+            this.open(this.nextSequence());
+        }
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) {
+            this.segmentBytes += this.segment.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+
+    /**
+     * Start a new segment containing all the pending events, and delete the previous segments once it is synced.
+     */
+    private void roll() throws IOException {
+        List<Path> previous = this.listSegments();
+        if (this.segment != null) {
+            this.segment.close();
+        }
+        this.open(this.nextSequence());
+        this.rewrite(this.constructions);
+        this.rewrite(this.allocations);
+        this.flush();
+        this.segment.force(false);
+        for (Path p : previous) {
+            Files.deleteIfExists(p);
+        }
+    }
+
+    private void rewrite(final Map<Long, JournalEntry> entries) throws IOException {
+        for (JournalEntry e : entries.values()) {
+            if (this.buffer.remaining() < JournalEntry.BYTES) {
+                this.flush();
+            }
+            e.write(this.buffer, this.crc);
+        }
+    }
+
+    private void open(final long sequence) throws IOException {
+        Files.createDirectories(this.directory);
+        this.sequence = sequence;
+        this.segment = FileChannel.open(this.segmentPath(sequence), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        this.segmentBytes = 0;
+    }
+
+    private long nextSequence() {
+        List<Path> segments = this.listSegments();
+        long max = this.sequence;
+        for (Path p : segments) {
+            max = Math.max(max, sequenceOf(p));
+        }
+        return max + 1;
+    }
+
+    private void readSegment(final Path path) {
+        JournalEntry e = new JournalEntry();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            while (e.read(in, this.crc)) {
+                switch (e.kind) {
+                    case JournalEntry.CONSTRUCTION_STARTED:
+                    case JournalEntry.CONSTRUCTION_QUEUED:
+                        this.constructions.put(e.id, new JournalEntry(e));
+                        this.nextId = Math.max(this.nextId, e.id + 1);
+                        break;
+                    case JournalEntry.CONSTRUCTION_COMPLETED:
+                        this.constructions.remove(e.id);
+                        break;
+                    case JournalEntry.ALLOCATION_STARTED:
+                        this.allocations.put(e.key(), new JournalEntry(e));
+                        break;
+                    default:
+                        this.allocations.remove(e.key());
+                        break;
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * @return The existing segments, sorted by sequence.
+     */
+    private List<Path> listSegments() {
+        if (!Files.isDirectory(this.directory)) {
+            return Collections.emptyList();
+        }
+        List<Path> result = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory, PREFIX + "*" + SUFFIX)) {
+            stream.forEach(result::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        result.sort((p1, p2) -> Long.compare(sequenceOf(p1), sequenceOf(p2)));
+        return result;
+    }
+
+    private Path segmentPath(final long sequence) {
+        return this.directory.resolve(PREFIX + String.format("%020d", sequence) + SUFFIX);
+    }
+
+    private static long sequenceOf(final Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.journal;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * A single event in the journal, fixed size record.
+ * <p>
+ * Record layout, big endian: byte kind, long id, int city, short position, int type, short level, int staff, long deadline, long work, int crc32.
+ *
+ * @author Grégory Van den Borre
+ */
+final class JournalEntry {
+
+    static final byte CONSTRUCTION_STARTED = 1;
+
+    static final byte CONSTRUCTION_COMPLETED = 2;
+
+    static final byte ALLOCATION_STARTED = 3;
+
+    static final byte ALLOCATION_COMPLETED = 4;
+
+    static final byte CONSTRUCTION_QUEUED = 5;
+
+    /**
+     * Size of a record, without the checksum.
+     */
+    private static final int DATA_BYTES = Byte.BYTES + Long.BYTES + Integer.BYTES + Short.BYTES + Integer.BYTES + Short.BYTES + Integer.BYTES + Long.BYTES + Long.BYTES;
+
+    /**
+     * Size of a record.
+     */
+    static final int BYTES = DATA_BYTES + Integer.BYTES;
+
+    byte kind;
+
+    /**
+     * Identifier of a construction, shared by all its events, 0 for the staff allocations.
+     */
+    long id;
+
+    int city;
+
+    int position;
+
+    int type;
+
+    int level;
+
+    int staff;
+
+    /**
+     * Wall clock time stamp when a staff allocation will be completed, or when a construction was started.
+     */
+    long deadline;
+
+    /**
+     * Construction work, in milliseconds at normal speed, when the construction was started or requested.
+     */
+    long work;
+
+    JournalEntry() {
+        super();
+    }
+
+    JournalEntry(final JournalEntry other) {
+        super();
+        this.set(other.kind, other.id, other.city, other.position, other.type, other.level, other.staff, other.deadline, other.work);
+    }
+
+    void set(final byte kind, final long id, final int city, final int position, final int type, final int level, final int staff, final long deadline, final long work) {
+        this.kind = kind;
+        this.id = id;
+        this.city = city;
+        this.position = position;
+        this.type = type;
+        this.level = level;
+        this.staff = staff;
+        this.deadline = deadline;
+        this.work = work;
+    }
+
+    /**
+     * @return The key identifying the building targeted by a staff allocation event.
+     */
+    long key() {
+        return ((long) this.city << 32) | this.position;
+    }
+
+    void write(final ByteBuffer out, final CRC32 crc) {
+        int start = out.position();
+        out.put(this.kind)
+                .putLong(this.id)
+                .putInt(this.city)
+                .putShort((short) this.position)
+                .putInt(this.type)
+                .putShort((short) this.level)
+                .putInt(this.staff)
+                .putLong(this.deadline)
+                .putLong(this.work);
+        crc.reset();
+        ByteBuffer data = out.duplicate();
+        data.position(start).limit(start + DATA_BYTES);
+        crc.update(data);
+        out.putInt((int) crc.getValue());
+    }
+
+    /**
+     * Read the next record.
+     *
+     * @param in  Buffer to read.
+     * @param crc Checksum computer.
+     * @return <code>false</code> if the record is incomplete or corrupted, which happens at the tail of a journal after a crash.
+     */
+    boolean read(final ByteBuffer in, final CRC32 crc) {
+        if (in.remaining() < BYTES) {
+            return false;
+        }
+        int start = in.position();
+        crc.reset();
+        ByteBuffer data = in.duplicate();
+        data.limit(start + DATA_BYTES);
+        crc.update(data);
+        this.kind = in.get();
+        this.id = in.getLong();
+        this.city = in.getInt();
+        this.position = in.getShort();
+        this.type = in.getInt();
+        this.level = in.getShort();
+        this.staff = in.getInt();
+        this.deadline = in.getLong();
+        this.work = in.getLong();
+        return in.getInt() == (int) crc.getValue() && this.kind >= CONSTRUCTION_STARTED && this.kind <= CONSTRUCTION_QUEUED;
+    }
+}
@@ -0,0 +1,6 @@
+/**
+ * Append only journal of the construction and staff allocation events, to restore the pending work after a crash.
+ *
+ * @author Grégory Van den Borre
+ */
+package be.yildizgames.engine.feature.city.journal;
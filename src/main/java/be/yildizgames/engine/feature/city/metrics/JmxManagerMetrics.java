@@ -0,0 +1,235 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Metrics exposed as a MXBean in the platform MBean server, under be.yildizgames.city:type=ManagerMetrics,name=the given name.
+ *
+ * @author Grégory Van den Borre
+ */
+public final class JmxManagerMetrics implements ManagerMetrics, ManagerMetricsMXBean {
+
+    private final ObjectName name;
+
+    private final long frameBudgetNanos;
+
+    private final LatencyHistogram frameTime = new LatencyHistogram();
+
+    /**
+     * Dispatch time by listener instance, so two listeners of the same class are measured separately.
+     * Copied when a listener is first measured, the frame thread then reads it without lock.
+     */
+    private volatile Map<Object, ListenerLatency> listenerTime = new IdentityHashMap<>();
+
+    private final AtomicLong completedTotal = new AtomicLong();
+
+    private final AtomicLong overruns = new AtomicLong();
+
+    private volatile int pending;
+
+    private volatile int completedLastFrame;
+
+    private JmxManagerMetrics(final ObjectName name, final long frameBudgetNanos) {
+        super();
+        this.name = name;
+        this.frameBudgetNanos = frameBudgetNanos;
+    }
+
+    /**
+     * Create the metrics and register them in the platform MBean server.
+     *
+     * @param name             Name of the instrumented manager, must be unique.
+     * @param frameBudgetNanos Time a frame may take before being counted as an overrun.
+     * @return The registered metrics.
+     * @throws IllegalArgumentException If the name is not valid or already registered.
+     */
+    public static JmxManagerMetrics register(final String name, final long frameBudgetNanos) {
+        try {
+            JmxManagerMetrics metrics = new JmxManagerMetrics(new ObjectName("be.yildizgames.city:type=ManagerMetrics,name=" + ObjectName.quote(name)), frameBudgetNanos);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, metrics.name);
+            return metrics;
+        } catch (MalformedObjectNameException | InstanceAlreadyExistsException | MBeanRegistrationException | NotCompliantMBeanException e) {
+            throw new IllegalArgumentException("Cannot register metrics " + name, e);
+        }
+    }
+
+    /**
+     * Remove the metrics from the platform MBean server.
+     */
+    public void unregister() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.name);
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot unregister metrics " + this.name, e);
+        }
+    }
+
+    /**
+     * @return The name used to register the metrics.
+     */
+    public ObjectName getName() {
+        return this.name;
+    }
+
+    @Override
+    public void frameProcessed(final long durationNanos, final int pending, final int completed) {
+        this.frameTime.record(durationNanos);
+        this.pending = pending;
+        this.completedLastFrame = completed;
+        this.completedTotal.addAndGet(completed);
+        if (durationNanos > this.frameBudgetNanos) {
+            this.overruns.incrementAndGet();
+        }
+    }
+
+    @Override
+    public boolean isListenerTimingEnabled() {
+        return true;
+    }
+
+    @Override
+    public void listenerDispatched(final Object listener, final long durationNanos) {
+        ListenerLatency latency = this.listenerTime.get(listener);
+        if (latency == null) {
+            latency = this.addListener(listener);
+        }
+        latency.histogram.record(durationNanos);
+    }
+
+    private synchronized ListenerLatency addListener(final Object listener) {
+        ListenerLatency latency = this.listenerTime.get(listener);
+        if (latency == null) {
+            Map<Object, ListenerLatency> copy = new IdentityHashMap<>(this.listenerTime);
+            latency = new ListenerLatency(listener.getClass().getName() + "#" + (copy.size() + 1));
+            copy.put(listener, latency);
+            this.listenerTime = copy;
+        }
+        return latency;
+    }
+
+    @Override
+    public int getPendingCount() {
+        return this.pending;
+    }
+
+    @Override
+    public int getCompletedLastFrame() {
+        return this.completedLastFrame;
+    }
+
+    @Override
+    public long getCompletedTotal() {
+        return this.completedTotal.get();
+    }
+
+    @Override
+    public long getFrameCount() {
+        return this.frameTime.getCount();
+    }
+
+    @Override
+    public double getFrameTimeMeanNanos() {
+        return this.frameTime.getMean();
+    }
+
+    @Override
+    public long getFrameTimeP50Nanos() {
+        return this.frameTime.getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getFrameTimeP99Nanos() {
+        return this.frameTime.getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getFrameTimeP999Nanos() {
+        return this.frameTime.getValueAtPercentile(99.9);
+    }
+
+    @Override
+    public long getFrameTimeMaxNanos() {
+        return this.frameTime.getMax();
+    }
+
+    @Override
+    public long getFrameBudgetNanos() {
+        return this.frameBudgetNanos;
+    }
+
+    @Override
+    public long getFrameBudgetOverruns() {
+        return this.overruns.get();
+    }
+
+    @Override
+    public Map<String, Long> getListenerP99Nanos() {
+        Map<String, Long> result = new TreeMap<>();
+        this.listenerTime.values().forEach(v -> result.put(v.name, v.histogram.getValueAtPercentile(99)));
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getListenerTotalNanos() {
+        Map<String, Long> result = new TreeMap<>();
+        this.listenerTime.values().forEach(v -> result.put(v.name, Math.round(v.histogram.getMean() * v.histogram.getCount())));
+        return result;
+    }
+
+    @Override
+    public void reset() {
+        this.frameTime.reset();
+        this.listenerTime.values().forEach(v -> v.histogram.reset());
+        this.completedTotal.set(0);
+        this.overruns.set(0);
+    }
+
+    /**
+     * Dispatch time of a listener, named after its class and its measure order.
+     */
+    private static final class ListenerLatency {
+
+        private final String name;
+
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        private ListenerLatency(final String name) {
+            super();
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of durations with log-linear buckets, in the manner of HdrHistogram.
+ * Values below 2^precision are counted exactly, above that every power of two is split in 2^(precision - 1) buckets,
+ * so the relative error of a percentile is below 2^(1 - precision).
+ * Recording does not allocate and is safe to do from one thread while others read.
+ *
+ * @author Grégory Van den Borre
+ */
+public final class LatencyHistogram {
+
+    /**
+     * Default precision, giving a relative error below 1.6%.
+     */
+    public static final int DEFAULT_PRECISION = 7;
+
+    /**
+     * Highest trackable value by default, about one hour in nanoseconds.
+     */
+    public static final long DEFAULT_MAX_VALUE = 1L << 42;
+
+    private final int precision;
+
+    private final long half;
+
+    private final long maxValue;
+
+    private final AtomicLongArray counts;
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong sum = new AtomicLong();
+
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Create a histogram with the default precision and range.
+     */
+    public LatencyHistogram() {
+        this(DEFAULT_PRECISION, DEFAULT_MAX_VALUE);
+    }
+
+    /**
+     * Create a new histogram.
+     *
+     * @param precision Number of bits of precision, between 2 and 16.
+     * @param maxValue  Highest trackable value, higher values are recorded as this value.
+     */
+    public LatencyHistogram(final int precision, final long maxValue) {
+        super();
+        if (precision < 2 || precision > 16) {
+            throw new IllegalArgumentException("Precision must be between 2 and 16.");
+        }
+        if (maxValue < (1L << precision)) {
+            throw new IllegalArgumentException("Max value must be at least 2^precision.");
+        }
+        this.precision = precision;
+        this.half = 1L << (precision - 1);
+        this.maxValue = maxValue;
+        this.counts = new AtomicLongArray(this.indexOf(maxValue) + 1);
+    }
+
+    /**
+     * Record a value.
+     *
+     * @param value Value to record, negative values are recorded as 0.
+     */
+    public void record(final long value) {
+        long v = Math.max(0, Math.min(value, this.maxValue));
+        this.counts.incrementAndGet(this.indexOf(v));
+        this.count.incrementAndGet();
+        this.sum.addAndGet(v);
+        long currentMax = this.max.get();
+        while (v > currentMax && !this.max.compareAndSet(currentMax, v)) {
+            currentMax = this.max.get();
+        }
+    }
+
+    /**
+     * @return The number of recorded values.
+     */
+    public long getCount() {
+        return this.count.get();
+    }
+
+    /**
+     * @return The highest recorded value.
+     */
+    public long getMax() {
+        return this.max.get();
+    }
+
+    /**
+     * @return The mean of the recorded values, 0 if there is none.
+     */
+    public double getMean() {
+        long c = this.count.get();
+        return c == 0 ? 0 : (double) this.sum.get() / c;
+    }
+
+    /**
+     * Compute a percentile.
+     *
+     * @param percentile Percentile to compute, between 0 and 100.
+     * @return The highest value equivalent to the one at the given percentile, 0 if nothing was recorded.
+     */
+    public long getValueAtPercentile(final double percentile) {
+        long total = this.count.get();
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(Math.min(100, percentile) / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < this.counts.length(); i++) {
+            seen += this.counts.get(i);
+            if (seen >= target) {
+                return Math.min(this.highestEquivalentValue(i), this.max.get());
+            }
+        }
+        return this.max.get();
+    }
+
+    /**
+     * Clear all the recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < this.counts.length(); i++) {
+            this.counts.set(i, 0);
+        }
+        this.count.set(0);
+        this.sum.set(0);
+        this.max.set(0);
+    }
+
+    private int indexOf(final long value) {
+        if (value < (this.half << 1)) {
+            return (int) value;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - (this.precision - 1);
+        long sub = value >>> shift;
+        return (int) ((this.half << 1) + (shift - 1) * this.half + (sub - this.half));
+    }
+
+    private long highestEquivalentValue(final int index) {
+        if (index < (this.half << 1)) {
+            return index;
+        }
+        long offset = index - (this.half << 1);
+        int shift = (int) (offset / this.half) + 1;
+        long sub = offset % this.half + this.half;
+        return ((sub + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.metrics;
+
+/**
+ * Receive the measures of a manager, called from the frame thread.
+ * Implementations must not allocate nor block, they are called on the hot path.
+ *
+ * @author Grégory Van den Borre
+ */
+public interface ManagerMetrics {
+
+    /**
+     * Implementation ignoring all measures, used by default by the managers.
+     */
+    ManagerMetrics NOOP = new ManagerMetrics() {
+    };
+
+    /**
+     * Called once every frame, when the manager has processed all its pending entries.
+     *
+     * @param durationNanos Time spent to process the frame, listeners included, in nanoseconds.
+     * @param pending       Number of entries still pending after the frame.
+     * @param completed     Number of entries completed during the frame.
+     */
+    default void frameProcessed(long durationNanos, int pending, int completed) {
+    }
+
+    /**
+     * @return <code>true</code> if the listener dispatch time must be measured, measuring costs two clock reads for every notification.
+     */
+    default boolean isListenerTimingEnabled() {
+        return false;
+    }
+
+    /**
+     * Called after every listener notification, only if the listener timing is enabled.
+     *
+     * @param listener      Notified listener.
+     * @param durationNanos Time spent in the listener, in nanoseconds.
+     */
+    default void listenerDispatched(Object listener, long durationNanos) {
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.metrics;
+
+import java.util.Map;
+
+/**
+ * Management interface of the manager metrics.
+ *
+ * @author Grégory Van den Borre
+ */
+public interface ManagerMetricsMXBean {
+
+    /**
+     * @return The number of entries pending at the end of the last frame.
+     */
+    int getPendingCount();
+
+    /**
+     * @return The number of entries completed during the last frame.
+     */
+    int getCompletedLastFrame();
+
+    /**
+     * @return The number of entries completed since the last reset.
+     */
+    long getCompletedTotal();
+
+    /**
+     * @return The number of frames processed since the last reset.
+     */
+    long getFrameCount();
+
+    double getFrameTimeMeanNanos();
+
+    long getFrameTimeP50Nanos();
+
+    long getFrameTimeP99Nanos();
+
+    long getFrameTimeP999Nanos();
+
+    long getFrameTimeMaxNanos();
+
+    /**
+     * @return The time a manager may spend in a frame before being counted as an overrun.
+     */
+    long getFrameBudgetNanos();
+
+    /**
+     * @return The number of frames above the budget since the last reset.
+     */
+    long getFrameBudgetOverruns();
+
+    /**
+     * @return The 99th percentile of the dispatch time by listener, named after its class and a number to tell apart listeners of the same class.
+     */
+    Map<String, Long> getListenerP99Nanos();
+
+    /**
+     * @return The total dispatch time by listener, with the same names as getListenerP99Nanos.
+     */
+    Map<String, Long> getListenerTotalNanos();
+
+    /**
+     * Clear all the measures.
+     */
+    void reset();
+}
@@ -0,0 +1,6 @@
+/**
+ * Instrumentation of the construction and staff allocation managers.
+ *
+ * @author Grégory Van den Borre
+ */
+package be.yildizgames.engine.feature.city.metrics;
@@ -0,0 +1,85 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.planner;
+
+import be.yildizgames.engine.feature.city.building.BuildingPosition;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Sequence of building upgrades found by the planner.
+ *
+ * @author Grégory Van den Borre
+ */
+public final class BuildOrder {
+
+    /**
+     * Result of a search where the goal cannot be reached.
+     */
+    static final BuildOrder UNREACHABLE = new BuildOrder(Collections.emptyList(), -1);
+
+    /**
+     * Positions of the buildings to upgrade, one level each, in order.
+     */
+    private final List<BuildingPosition> steps;
+
+    /**
+     * Time to complete the whole order, in milliseconds.
+     */
+    private final long time;
+
+    BuildOrder(final List<BuildingPosition> steps, final long time) {
+        super();
+        this.steps = Collections.unmodifiableList(steps);
+        this.time = time;
+    }
+
+    /**
+     * @return The positions of the buildings to upgrade, one level each, in order.
+     */
+    public List<BuildingPosition> getSteps() {
+        return this.steps;
+    }
+
+    /**
+     * @return The simulated time to complete the whole order, in milliseconds, -1 if the goal cannot be reached.
+     */
+    public long getTime() {
+        return this.time;
+    }
+
+    /**
+     * @return <code>true</code> if an order reaching the goal was found.
+     */
+    public boolean isReached() {
+        return this.time >= 0;
+    }
+
+    @Override
+    public String toString() {
+        return this.steps + " in " + this.time + "ms";
+    }
+}
@@ -0,0 +1,307 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.planner;
+
+import be.yildizgames.engine.feature.city.City;
+import be.yildizgames.engine.feature.city.building.Building;
+import be.yildizgames.engine.feature.city.building.BuildingData;
+import be.yildizgames.engine.feature.city.building.BuildingPosition;
+import be.yildizgames.engine.feature.resource.ResourcesProducer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Search the building upgrade order reaching a goal in the shortest time.
+ * <p>
+ * The city is simulated from its current resources, production ratios and limits. Prices, build times and level bonuses are read once from the
+ * building data and cached, the level bonus ratio and limit of a building are added to the city ones when the building is completed.
+ * The search is a beam search: at every step, all the states of the beam are expanded with every possible upgrade, in parallel, and only the
+ * best states are kept, ranked by their time plus the build time still required by the goal. Besides the upgrades required by the goal, a limited
+ * number of upgrades improving the production can be tried, as investing in the economy first is often faster.
+ * States are preallocated once per search, simulating an upgrade does not allocate.
+ * A planner can be shared between threads. The city itself is only read from the calling thread, once per call, as reading its resources
+ * updates its producer: a city must be planned or simulated from the thread owning it, the parallel work is done on copies of the simulated state.
+ *
+ * @author Grégory Van den Borre
+ */
+public final class BuildOrderPlanner {
+
+    /**
+     * Minimum number of simulated upgrades in a step to expand the beam in parallel.
+     */
+    private static final int PARALLEL_THRESHOLD = 256;
+
+    private final int beamWidth;
+
+    private final int maxExtraUpgrades;
+
+    /**
+     * Level tables by building data.
+     */
+    private final Map<BuildingData, LevelTable> tables = new ConcurrentHashMap<>();
+
+    /**
+     * Create a new planner.
+     *
+     * @param beamWidth        Number of states kept at every step, a higher value gives better orders but costs more.
+     * @param maxExtraUpgrades Maximum number of upgrades not required by the goal in an order.
+     */
+    public BuildOrderPlanner(final int beamWidth, final int maxExtraUpgrades) {
+        super();
+        if (beamWidth <= 0 || maxExtraUpgrades < 0) {
+            throw new IllegalArgumentException("Beam width must be positive and extra upgrades cannot be negative.");
+        }
+        this.beamWidth = beamWidth;
+        this.maxExtraUpgrades = maxExtraUpgrades;
+    }
+
+    /**
+     * Search the fastest order to reach a goal.
+     *
+     * @param city City to plan.
+     * @param goal Levels to reach.
+     * @param <B>  Building implementation.
+     * @param <D>  Building data implementation.
+     * @return The best order found, not reached if the goal cannot be reached from the current city state.
+     */
+    public <B extends Building, D extends BuildingData> BuildOrder plan(final City<B, D> city, final PlanGoal goal) {
+        LevelTable[] slotTables = this.getTables(city);
+        int[] levels = new int[slotTables.length];
+        for (B b : city.getBuildings()) {
+            levels[b.getBuildingPosition().value] = b.getLevel().value;
+        }
+        int required = 0;
+        for (int s = 0; s < slotTables.length; s++) {
+            int target = goal.getLevel(s);
+            if (target > 0 && (slotTables[s] == null || target > slotTables[s].maxLevel)) {
+                return BuildOrder.UNREACHABLE;
+            }
+            required += Math.max(0, target - levels[s]);
+        }
+        int maxDepth = required + this.maxExtraUpgrades;
+        SimState start = this.createState(city, slotTables.length, maxDepth);
+        if (goal.isReached(start.levels)) {
+            return new BuildOrder(new ArrayList<>(), 0);
+        }
+        int slots = slotTables.length;
+        SimState[] beam = new SimState[this.beamWidth];
+        SimState[] children = new SimState[this.beamWidth * slots];
+        boolean[] valid = new boolean[children.length];
+        for (int i = 0; i < beam.length; i++) {
+            beam[i] = new SimState(start.resources.length, slots, maxDepth);
+        }
+        for (int i = 0; i < children.length; i++) {
+            children[i] = new SimState(start.resources.length, slots, maxDepth);
+        }
+        SimState best = new SimState(start.resources.length, slots, maxDepth);
+        best.time = Long.MAX_VALUE;
+        int[] selected = new int[this.beamWidth];
+        beam[0].copyFrom(start);
+        int beamSize = 1;
+        for (int depth = 0; depth < maxDepth && beamSize > 0; depth++) {
+            SimState[] currentBeam = beam;
+            IntStream parents = IntStream.range(0, beamSize);
+            if (beamSize * slots >= PARALLEL_THRESHOLD) {
+                parents = parents.parallel();
+            }
+            parents.forEach(p -> {
+                for (int s = 0; s < slots; s++) {
+                    int c = p * slots + s;
+                    valid[c] = expand(currentBeam[p], children[c], s, slotTables, goal);
+                }
+            });
+            int count = 0;
+            for (int c = 0; c < beamSize * slots; c++) {
+                if (!valid[c]) {
+                    continue;
+                }
+                SimState child = children[c];
+                if (goal.isReached(child.levels)) {
+                    if (child.time < best.time) {
+                        best.copyFrom(child);
+                    }
+                } else if (child.score < best.time) {
+                    count = select(selected, count, c, children);
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                beam[i].copyFrom(children[selected[i]]);
+            }
+            beamSize = count;
+        }
+        if (best.time == Long.MAX_VALUE) {
+            return BuildOrder.UNREACHABLE;
+        }
+        List<BuildingPosition> steps = new ArrayList<>(best.depth);
+        for (int i = 0; i < best.depth; i++) {
+            steps.add(BuildingPosition.valueOf(best.steps[i]));
+        }
+        return new BuildOrder(steps, best.time);
+    }
+
+    /**
+     * Simulate an upgrade order.
+     *
+     * @param city  City to simulate.
+     * @param order Positions of the buildings to upgrade, one level each.
+     * @param <B>   Building implementation.
+     * @param <D>   Building data implementation.
+     * @return The time to complete the order in milliseconds, -1 if the order is not possible.
+     */
+    public <B extends Building, D extends BuildingData> long simulate(final City<B, D> city, final List<BuildingPosition> order) {
+        LevelTable[] slotTables = this.getTables(city);
+        return run(this.createState(city, slotTables.length, order.size()), slotTables, order);
+    }
+
+    /**
+     * Simulate several upgrade orders in parallel, the city is read once from the calling thread and every order is simulated on its own copy.
+     *
+     * @param city   City to simulate.
+     * @param orders Orders to simulate.
+     * @param <B>    Building implementation.
+     * @param <D>    Building data implementation.
+     * @return The time to complete every order in milliseconds, -1 for the orders not possible.
+     */
+    public <B extends Building, D extends BuildingData> long[] simulateAll(final City<B, D> city, final List<List<BuildingPosition>> orders) {
+        LevelTable[] slotTables = this.getTables(city);
+        SimState start = this.createState(city, slotTables.length, 0);
+        return orders.parallelStream().mapToLong(o -> {
+            SimState state = new SimState(start.resources.length, slotTables.length, o.size());
+            state.copyFrom(start);
+            return run(state, slotTables, o);
+        }).toArray();
+    }
+
+    /**
+     * Apply an upgrade order to a state.
+     *
+     * @return The time to complete the order in milliseconds, -1 if the order is not possible.
+     */
+    private static long run(final SimState state, final LevelTable[] tables, final List<BuildingPosition> order) {
+        for (BuildingPosition p : order) {
+            if (p.value >= tables.length || tables[p.value] == null || !state.upgrade(p.value, tables[p.value])) {
+                return -1;
+            }
+        }
+        return state.time;
+    }
+
+    /**
+     * Create a child state by upgrading a building of its parent.
+     *
+     * @return <code>true</code> if the upgrade is possible and useful.
+     */
+    private static boolean expand(final SimState parent, final SimState child, final int slot, final LevelTable[] tables, final PlanGoal goal) {
+        LevelTable table = tables[slot];
+        if (table == null) {
+            return false;
+        }
+        int next = parent.levels[slot] + 1;
+        if (next > table.maxLevel) {
+            return false;
+        }
+        boolean required = next <= goal.getLevel(slot);
+        if (!required && (!table.economic[next] || parent.steps.length - parent.depth <= remaining(parent, tables, goal))) {
+            return false;
+        }
+        child.copyFrom(parent);
+        if (!child.upgrade(slot, table)) {
+            return false;
+        }
+        if (!required) {
+            child.extra++;
+        }
+        long left = 0;
+        for (int s = 0; s < tables.length; s++) {
+            int target = goal.getLevel(s);
+            if (target > child.levels[s]) {
+                left += tables[s].cumulatedTime[target] - tables[s].cumulatedTime[child.levels[s]];
+            }
+        }
+        child.score = child.time + left;
+        return true;
+    }
+
+    /**
+     * @return The number of upgrades still required by the goal.
+     */
+    private static int remaining(final SimState state, final LevelTable[] tables, final PlanGoal goal) {
+        int remaining = 0;
+        for (int s = 0; s < tables.length; s++) {
+            remaining += Math.max(0, goal.getLevel(s) - state.levels[s]);
+        }
+        return remaining;
+    }
+
+    /**
+     * Keep the child if it is among the best ones, selected is kept sorted by score.
+     *
+     * @return The new number of selected children.
+     */
+    private static int select(final int[] selected, final int count, final int child, final SimState[] children) {
+        long score = children[child].score;
+        if (count == selected.length && children[selected[count - 1]].score <= score) {
+            return count;
+        }
+        int i = Math.min(count, selected.length - 1);
+        while (i > 0 && children[selected[i - 1]].score > score) {
+            selected[i] = selected[i - 1];
+            i--;
+        }
+        selected[i] = child;
+        return Math.min(count + 1, selected.length);
+    }
+
+    /**
+     * @return The level table of every building by position, null for the positions without building.
+     */
+    private <B extends Building, D extends BuildingData> LevelTable[] getTables(final City<B, D> city) {
+        int resources = city.getProducer().getResources().getArray().length;
+        LevelTable[] result = new LevelTable[city.getSlotCount()];
+        for (B b : city.getBuildings()) {
+            result[b.getBuildingPosition().value] = this.tables.computeIfAbsent(city.getByType(b.getType()), d -> new LevelTable(d, resources));
+        }
+        return result;
+    }
+
+    private <B extends Building, D extends BuildingData> SimState createState(final City<B, D> city, final int slots, final int maxDepth) {
+        ResourcesProducer producer = city.getProducer();
+        int resources = producer.getResources().getArray().length;
+        SimState state = new SimState(resources, slots, maxDepth);
+        for (int r = 0; r < resources; r++) {
+            state.resources[r] = producer.getResource(r);
+            state.ratios[r] = producer.getRatios(r);
+            state.limits[r] = producer.getMax(r);
+        }
+        for (B b : city.getBuildings()) {
+            state.levels[b.getBuildingPosition().value] = b.getLevel().value;
+        }
+        return state;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.planner;
+
+import be.yildizgames.common.model.Level;
+import be.yildizgames.engine.feature.city.building.BuildingData;
+import be.yildizgames.engine.feature.resource.ResourceValue;
+import be.yildizgames.engine.feature.resource.bonus.BonusResources;
+
+/**
+ * Price, build time and level bonus of every level of a building data, read once from the data.
+ *
+ * @author Grégory Van den Borre
+ */
+final class LevelTable {
+
+    final int maxLevel;
+
+    /**
+     * Price by level, then by resource.
+     */
+    final float[][] price;
+
+    /**
+     * Time to build by level, in milliseconds.
+     */
+    final long[] time;
+
+    /**
+     * Production ratio bonus by level, then by resource.
+     */
+    final float[][] ratio;
+
+    /**
+     * Limit bonus by level, then by resource.
+     */
+    final float[][] limit;
+
+    /**
+     * Sum of the build times from level 1 up to every level.
+     */
+    final long[] cumulatedTime;
+
+    /**
+     * For every level, true if reaching it increases a production ratio or a limit.
+     */
+    final boolean[] economic;
+
+    LevelTable(final BuildingData data, final int resources) {
+        super();
+        this.maxLevel = data.getMaxLevel().value;
+        this.price = new float[this.maxLevel + 1][resources];
+        this.time = new long[this.maxLevel + 1];
+        this.ratio = new float[this.maxLevel + 1][resources];
+        this.limit = new float[this.maxLevel + 1][resources];
+        this.cumulatedTime = new long[this.maxLevel + 1];
+        this.economic = new boolean[this.maxLevel + 1];
+        for (int l = 1; l <= this.maxLevel; l++) {
+            Level level = Level.valueOf(l);
+            ResourceValue p = data.getPrice(level);
+            BonusResources bonus = data.getLevelBonus(level);
+            for (int r = 0; r < resources; r++) {
+                this.price[l][r] = p == null ? 0 : p.getValue(r);
+                this.ratio[l][r] = bonus == null ? 0 : bonus.getRatio(r);
+                this.limit[l][r] = bonus == null ? 0 : bonus.getLimit(r);
+                this.economic[l] |= this.ratio[l][r] > this.ratio[l - 1][r] || this.limit[l][r] > this.limit[l - 1][r];
+            }
+            this.time[l] = data.getTimeToBuild(level).toMillis();
+            this.cumulatedTime[l] = this.cumulatedTime[l - 1] + this.time[l];
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.planner;
+
+import be.yildizgames.common.model.Level;
+import be.yildizgames.engine.feature.city.building.BuildingPosition;
+
+import java.util.Map;
+
+/**
+ * Minimum building levels to reach.
+ *
+ * @author Grégory Van den Borre
+ */
+public final class PlanGoal {
+
+    /**
+     * Minimum level by building position, 0 if there is no constraint.
+     */
+    private final int[] levels;
+
+    /**
+     * Create a new goal.
+     *
+     * @param levels Minimum level to reach by building position.
+     */
+    public PlanGoal(final Map<BuildingPosition, Level> levels) {
+        super();
+        int size = levels.keySet().stream().mapToInt(p -> p.value + 1).max().orElse(0);
+        this.levels = new int[size];
+        levels.forEach((p, l) -> this.levels[p.value] = l.value);
+    }
+
+    /**
+     * @param position Building position value.
+     * @return The minimum level to reach for that position.
+     */
+    int getLevel(final int position) {
+        return position < this.levels.length ? this.levels[position] : 0;
+    }
+
+    /**
+     * @param levels Current level by position.
+     * @return <code>true</code> if all the minimum levels are reached.
+     */
+    boolean isReached(final int[] levels) {
+        for (int i = 0; i < this.levels.length; i++) {
+            if (i >= levels.length ? this.levels[i] > 0 : levels[i] < this.levels[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
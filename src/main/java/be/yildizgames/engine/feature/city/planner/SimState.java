@@ -0,0 +1,135 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.planner;
+
+/**
+ * Mutable state of a simulated city, reused during a search so simulating an upgrade does not allocate.
+ * Resources are produced continuously at the current ratios, in units by second, and capped by the limits.
+ * Upgrades are done one after the other: wait until the price is affordable, pay, build, then apply the level bonus.
+ *
+ * @author Grégory Van den Borre
+ */
+final class SimState {
+
+    private static final float MS_TO_S = 0.001f;
+
+    final float[] resources;
+
+    final float[] ratios;
+
+    final float[] limits;
+
+    final int[] levels;
+
+    /**
+     * Position of every upgrade done, in order.
+     */
+    final int[] steps;
+
+    int depth;
+
+    /**
+     * Number of upgrades not required by the goal.
+     */
+    int extra;
+
+    /**
+     * Simulated time, in milliseconds.
+     */
+    long time;
+
+    /**
+     * Time plus a lower bound of the time left to reach the goal.
+     */
+    long score;
+
+    SimState(final int resources, final int slots, final int maxDepth) {
+        super();
+        this.resources = new float[resources];
+        this.ratios = new float[resources];
+        this.limits = new float[resources];
+        this.levels = new int[slots];
+        this.steps = new int[maxDepth];
+    }
+
+    void copyFrom(final SimState other) {
+        System.arraycopy(other.resources, 0, this.resources, 0, this.resources.length);
+        System.arraycopy(other.ratios, 0, this.ratios, 0, this.ratios.length);
+        System.arraycopy(other.limits, 0, this.limits, 0, this.limits.length);
+        System.arraycopy(other.levels, 0, this.levels, 0, this.levels.length);
+        System.arraycopy(other.steps, 0, this.steps, 0, other.depth);
+        this.depth = other.depth;
+        this.extra = other.extra;
+        this.time = other.time;
+        this.score = other.score;
+    }
+
+    /**
+     * Simulate the upgrade of a building by one level.
+     *
+     * @param slot  Building position.
+     * @param table Level table of the building.
+     * @return <code>false</code> if the upgrade is not possible, the state is then undefined.
+     */
+    boolean upgrade(final int slot, final LevelTable table) {
+        int level = this.levels[slot] + 1;
+        if (level > table.maxLevel || this.depth == this.steps.length) {
+            return false;
+        }
+        float[] price = table.price[level];
+        long wait = 0;
+        for (int r = 0; r < this.resources.length; r++) {
+            float missing = price[r] - this.resources[r];
+            if (missing > 0) {
+                if (price[r] > this.limits[r] || this.ratios[r] <= 0) {
+                    return false;
+                }
+                wait = Math.max(wait, (long) Math.ceil(missing / (this.ratios[r] * MS_TO_S)));
+            }
+        }
+        this.advance(wait);
+        for (int r = 0; r < this.resources.length; r++) {
+            this.resources[r] = Math.max(0, this.resources[r] - price[r]);
+        }
+        this.advance(table.time[level]);
+        for (int r = 0; r < this.resources.length; r++) {
+            this.ratios[r] += table.ratio[level][r] - table.ratio[level - 1][r];
+            this.limits[r] += table.limit[level][r] - table.limit[level - 1][r];
+        }
+        this.levels[slot] = level;
+        this.steps[this.depth++] = slot;
+        return true;
+    }
+
+    private void advance(final long ms) {
+        if (ms == 0) {
+            return;
+        }
+        for (int r = 0; r < this.resources.length; r++) {
+            this.resources[r] = Math.min(this.limits[r], this.resources[r] + this.ratios[r] * ms * MS_TO_S);
+        }
+        this.time += ms;
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.planner;
+
+import be.yildizgames.common.model.PlayerId;
+import be.yildizgames.engine.feature.city.City;
+import be.yildizgames.engine.feature.city.CityId;
+import be.yildizgames.engine.feature.city.CityManager;
+import be.yildizgames.engine.feature.city.building.Building;
+import be.yildizgames.engine.feature.city.building.BuildingData;
+import be.yildizgames.engine.feature.city.building.construction.BuildingConstructionManager;
+import be.yildizgames.engine.feature.resource.ResourceValue;
+
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Find the buildings that can be upgraded now with the resources of their city.
+ * <p>
+ * The prices are read once by building data in level tables, the resources of a city are updated once per query and compared to the price of
+ * the next level of every building. Buildings at their maximum level, without data or already in construction are skipped instead of failing.
+ * Checking a building does not allocate, and filling a reused set does not allocate once the tables are built.
+ * The queries must be called from the thread owning the cities: reading the resources of a city updates its producer, and the constructions are
+ * read from the construction manager.
+ *
+ * @param <B> Building implementation.
+ * @param <D> Building data implementation.
+ * @param <C> City implementation.
+ * @author Grégory Van den Borre
+ */
+public final class UpgradeAdvisor<B extends Building, D extends BuildingData, C extends City<B, D>> {
+
+    /**
+     * Level tables by building data.
+     */
+    private final Map<BuildingData, LevelTable> tables = new ConcurrentHashMap<>();
+
+    /**
+     * Manager running the constructions, to skip the buildings already upgrading.
+     */
+    private final BuildingConstructionManager<B, D, C> constructionManager;
+
+    /**
+     * Create a new advisor.
+     *
+     * @param constructionManager Manager running the constructions of the cities.
+     */
+    public UpgradeAdvisor(final BuildingConstructionManager<B, D, C> constructionManager) {
+        super();
+        this.constructionManager = Objects.requireNonNull(constructionManager);
+    }
+
+    /**
+     * Find the positions of the buildings of a city with a next level affordable now.
+     *
+     * @param city City to check.
+     * @return The affordable positions.
+     */
+    public BitSet getAffordableUpgrades(final C city) {
+        BitSet result = new BitSet(city.getSlotCount());
+        this.getAffordableUpgrades(city, result);
+        return result;
+    }
+
+    /**
+     * Find the positions of the buildings of a city with a next level affordable now.
+     *
+     * @param city   City to check.
+     * @param result Set to fill with the affordable positions, cleared first, can be reused between calls.
+     * @return The number of affordable positions.
+     */
+    public int getAffordableUpgrades(final C city, final BitSet result) {
+        result.clear();
+        ResourceValue stock = city.getProducer().getResources();
+        List<B> buildings = city.getBuildings();
+        int count = 0;
+        for (int i = 0; i < buildings.size(); i++) {
+            B b = buildings.get(i);
+            if (this.constructionManager.isInConstruction(city, b.getBuildingPosition())) {
+                continue;
+            }
+            LevelTable table = this.getTable(city.getByType(b.getType()), stock);
+            int next = b.getLevel().value + 1;
+            if (table != null && next <= table.maxLevel && isAffordable(table.price[next], stock)) {
+                result.set(b.getBuildingPosition().value);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Find the affordable upgrades of every city of a player.
+     *
+     * @param cityManager Manager holding the cities.
+     * @param player      Player owning the cities.
+     * @return The affordable positions by city, ordered by city id, with an empty set for the cities without affordable upgrade.
+     */
+    public Map<CityId, BitSet> getAffordableUpgrades(final CityManager<B, D, C> cityManager, final PlayerId player) {
+        Map<CityId, BitSet> result = new LinkedHashMap<>();
+        for (C city : cityManager.getCities(player)) {
+            result.put(city.getId(), this.getAffordableUpgrades(city));
+        }
+        return result;
+    }
+
+    private static boolean isAffordable(final float[] price, final ResourceValue stock) {
+        for (int r = 0; r < price.length; r++) {
+            if (stock.getValue(r) < price[r]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The level table of the data, null if the data is null.
+     */
+    private LevelTable getTable(final BuildingData data, final ResourceValue stock) {
+        if (data == null) {
+            return null;
+        }
+        LevelTable table = this.tables.get(data);
+        if (table == null) {
+            table = new LevelTable(data, stock.getArray().length);
+            LevelTable previous = this.tables.putIfAbsent(data, table);
+            if (previous != null) {
+                table = previous;
+            }
+        }
+        return table;
+    }
+}
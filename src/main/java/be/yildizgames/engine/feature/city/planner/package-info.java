@@ -0,0 +1,6 @@
+/**
+ * Simulation of a city forward in time to plan the building upgrade order, and affordable upgrade queries.
+ *
+ * @author Grégory Van den Borre
+ */
+package be.yildizgames.engine.feature.city.planner;
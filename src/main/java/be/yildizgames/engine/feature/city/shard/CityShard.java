@@ -0,0 +1,159 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+package be.yildizgames.engine.feature.city.shard;
+
+import be.yildizgames.common.geometry.Point3D;
+import be.yildizgames.common.model.PlayerId;
+import be.yildizgames.engine.feature.city.City;
+import be.yildizgames.engine.feature.city.CityId;
+import be.yildizgames.engine.feature.city.building.Building;
+import be.yildizgames.engine.feature.city.building.BuildingData;
+import be.yildizgames.engine.feature.city.building.BuildingType;
+
+import java.util.List;
+
+/**
+ * A partition of the world, holding the cities routed to it.
+ * This is the transport extension point: the contract is made of the query and command operations the sharded manager forwards, so a remote
+ * implementation only has to send them to the node holding the cities, without any live manager in the current process. Cities are only moved
+ * between shards as encoded records, so no object is shared between two shards.
+ *
+ * @param <T> Building implementation.
+ * @param <D> Building data implementation.
+ * @param <C> City implementation.
+ * @author Grégory Van den Borre
+ */
+public interface CityShard<T extends Building, D extends BuildingData, C extends City<T, D>> {
+
+    /**
+     * @return The unique name of this shard, used to place it on the hash ring.
+     */
+    String getName();
+
+    /**
+     * Create a city in this shard.
+     *
+     * @param id       City id.
+     * @param owner    City owner.
+     * @param position City position.
+     * @return The created city.
+     */
+    C createCity(CityId id, PlayerId owner, Point3D position);
+
+    /**
+     * @param id City id.
+     * @return The city, null if it is not in this shard.
+     */
+    C getCityById(CityId id);
+
+    /**
+     * Remove a city from this shard.
+     *
+     * @param id Id of the city to remove.
+     * @return The removed city.
+     * @throws IllegalArgumentException If the city is not in this shard.
+     */
+    C removeCity(CityId id);
+
+    /**
+     * @return The ids of all the cities of this shard.
+     */
+    List<CityId> getCityIds();
+
+    /**
+     * @return All the cities of this shard.
+     */
+    List<C> getCities();
+
+    /**
+     * @param player Owner of the cities.
+     * @return The cities of this shard owned by the player, by ascending city id.
+     */
+    List<C> getCities(PlayerId player);
+
+    /**
+     * @param player Owner of the cities.
+     * @return The number of cities of this shard owned by the player.
+     */
+    int getCityCount(PlayerId player);
+
+    /**
+     * Change the owner of a city of this shard.
+     *
+     * @param id       Id of the city to transfer.
+     * @param newOwner New owner of the city.
+     * @throws IllegalArgumentException If the city is not in this shard.
+     */
+    void transferCity(CityId id, PlayerId newOwner);
+
+    /**
+     * @param position Position to search from.
+     * @return The city of this shard nearest to the position, null if the shard is empty.
+     */
+    C findNearest(Point3D position);
+
+    /**
+     * @param position Center of the search.
+     * @param radius   Search radius.
+     * @return The cities of this shard within the radius.
+     */
+    List<C> findWithinRadius(Point3D position, float radius);
+
+    /**
+     * @param min Minimum corner of the box.
+     * @param max Maximum corner of the box.
+     * @return The cities of this shard within the box.
+     */
+    List<C> findInBox(Point3D min, Point3D max);
+
+    /**
+     * Create the empty buildings of a city of this shard.
+     *
+     * @param city City to fill.
+     */
+    void createEmptyCityBuildings(C city);
+
+    /**
+     * @param type Building type.
+     * @return The data of the building type.
+     */
+    D getData(BuildingType type);
+
+    /**
+     * Encode a city with its pending constructions and staff allocations and remove it from this shard.
+     *
+     * @param id Id of the city to export.
+     * @return The encoded city.
+     * @throws IllegalArgumentException If the city is not in this shard.
+     */
+    byte[] exportCity(CityId id);
+
+    /**
+     * Create a city in this shard from an encoded one.
+     *
+     * @param record City encoded by exportCity.
+     * @return The created city.
+     */
+    C importCity(byte[] record);
+}
@@ -0,0 +1,182 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.shard;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consistent hash ring mapping keys to shards.
+ * Every shard is placed on the ring at several virtual points, so keys are evenly spread and adding or removing a shard only moves the keys
+ * of the ring segments it gains or loses. Points are kept in sorted arrays replaced on modification, routing a key is a binary search and never locks.
+ *
+ * @param <S> Shard type.
+ * @author Grégory Van den Borre
+ */
+final class ConsistentHashRing<S> {
+
+    /**
+     * Number of points of every shard on the ring.
+     */
+    private final int virtualNodes;
+
+    /**
+     * Shards by name, in insertion order.
+     */
+    private final Map<String, S> shards = new LinkedHashMap<>();
+
+    /**
+     * Current ring and shard list, replaced on modification.
+     */
+    private volatile Ring ring = new Ring(new long[0], new Object[0], Collections.emptyList());
+
+    ConsistentHashRing(final int virtualNodes) {
+        super();
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("Virtual nodes must be positive.");
+        }
+        this.virtualNodes = virtualNodes;
+    }
+
+    synchronized void add(final String name, final S shard) {
+        if (this.shards.containsKey(name)) {
+            throw new IllegalArgumentException("Shard " + name + " already registered.");
+        }
+        this.shards.put(name, shard);
+        this.rebuild();
+    }
+
+    synchronized S remove(final String name) {
+        S removed = this.shards.remove(name);
+        if (removed == null) {
+            throw new IllegalArgumentException("Unknown shard " + name);
+        }
+        this.rebuild();
+        return removed;
+    }
+
+    /**
+     * @param key Key to route.
+     * @return The shard owning the key, null if there is no shard.
+     */
+    @SuppressWarnings("unchecked")
+    S route(final int key) {
+        Ring current = this.ring;
+        if (current.points.length == 0) {
+            return null;
+        }
+        int index = Arrays.binarySearch(current.points, mix(key));
+        if (index < 0) {
+            index = -index - 1;
+            if (index == current.points.length) {
+                index = 0;
+            }
+        }
+        return (S) current.owners[index];
+    }
+
+    /**
+     * @param name Shard name.
+     * @return The shard registered with that name, null if none.
+     */
+    synchronized S get(final String name) {
+        return this.shards.get(name);
+    }
+
+    /**
+     * @return The registered shards, in registration order, read only.
+     */
+    @SuppressWarnings("unchecked")
+    List<S> getShards() {
+        return (List<S>) this.ring.shards;
+    }
+
+    private void rebuild() {
+        int size = this.shards.size() * this.virtualNodes;
+        long[] points = new long[size];
+        Object[] owners = new Object[size];
+        int i = 0;
+        for (Map.Entry<String, S> e : this.shards.entrySet()) {
+            long base = hash(e.getKey());
+            for (int v = 0; v < this.virtualNodes; v++) {
+                long point = mix(base + v * 0x9e3779b97f4a7c15L);
+                int insert = Arrays.binarySearch(points, 0, i, point);
+                insert = insert < 0 ? -insert - 1 : insert;
+                System.arraycopy(points, insert, points, insert + 1, i - insert);
+                System.arraycopy(owners, insert, owners, insert + 1, i - insert);
+                points[insert] = point;
+                owners[insert] = e.getValue();
+                i++;
+            }
+        }
+        this.ring = new Ring(points, owners, Collections.unmodifiableList(new ArrayList<>(this.shards.values())));
+    }
+
+    /**
+     * Seed the points of a shard, 64 bits FNV-1a hash of the name bytes: names with the same String.hashCode, like "Aa" and "BB", get different points.
+     */
+    private static long hash(final String name) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : name.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /**
+     * Spread a value over the whole ring, finalizer of the 64 bits murmur3 hash.
+     */
+    private static long mix(final long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static final class Ring {
+
+        private final long[] points;
+
+        private final Object[] owners;
+
+        private final List<?> shards;
+
+        private Ring(final long[] points, final Object[] owners, final List<?> shards) {
+            super();
+            this.points = points;
+            this.owners = owners;
+            this.shards = shards;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.shard;
+
+import be.yildizgames.common.geometry.Point3D;
+import be.yildizgames.common.model.PlayerId;
+import be.yildizgames.engine.feature.city.City;
+import be.yildizgames.engine.feature.city.CityId;
+import be.yildizgames.engine.feature.city.CityManager;
+import be.yildizgames.engine.feature.city.building.Building;
+import be.yildizgames.engine.feature.city.building.BuildingData;
+import be.yildizgames.engine.feature.city.building.BuildingType;
+import be.yildizgames.engine.feature.city.snapshot.CityTransfer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Shard running in the current process.
+ * Cities are still exported and imported as encoded records, with their pending constructions and staff allocations,
+ * so it behaves as a loopback transport and can stand in for a remote shard in tests.
+ *
+ * @param <T> Building implementation.
+ * @param <D> Building data implementation.
+ * @param <C> City implementation.
+ * @author Grégory Van den Borre
+ */
+public final class LocalCityShard<T extends Building, D extends BuildingData, C extends City<T, D>> implements CityShard<T, D, C> {
+
+    private final String name;
+
+    private final CityTransfer<T, D, C> transfer;
+
+    private final CityManager<T, D, C> manager;
+
+    /**
+     * Create a new local shard.
+     *
+     * @param name     Unique shard name.
+     * @param transfer Transfer over the managers of the shard.
+     */
+    public LocalCityShard(final String name, final CityTransfer<T, D, C> transfer) {
+        super();
+        this.name = Objects.requireNonNull(name);
+        this.transfer = Objects.requireNonNull(transfer);
+        this.manager = transfer.getCityManager();
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public C createCity(final CityId id, final PlayerId owner, final Point3D position) {
+        return this.manager.createCity(id, owner, position);
+    }
+
+    @Override
+    public C getCityById(final CityId id) {
+        return this.manager.getCityById(id);
+    }
+
+    @Override
+    public C removeCity(final CityId id) {
+        return this.manager.removeCity(id);
+    }
+
+    @Override
+    public List<CityId> getCityIds() {
+        List<C> cities = this.manager.getCities();
+        List<CityId> result = new ArrayList<>(cities.size());
+        for (C c : cities) {
+            result.add(c.getId());
+        }
+        return result;
+    }
+
+    @Override
+    public List<C> getCities() {
+        return this.manager.getCities();
+    }
+
+    @Override
+    public List<C> getCities(final PlayerId player) {
+        return new ArrayList<>(this.manager.getCities(player));
+    }
+
+    @Override
+    public int getCityCount(final PlayerId player) {
+        return this.manager.getCityCount(player);
+    }
+
+    @Override
+    public void transferCity(final CityId id, final PlayerId newOwner) {
+        this.manager.transferCity(id, newOwner);
+    }
+
+    @Override
+    public C findNearest(final Point3D position) {
+        return this.manager.findNearest(position);
+    }
+
+    @Override
+    public List<C> findWithinRadius(final Point3D position, final float radius) {
+        return this.manager.findWithinRadius(position, radius);
+    }
+
+    @Override
+    public List<C> findInBox(final Point3D min, final Point3D max) {
+        return this.manager.findInBox(min, max);
+    }
+
+    @Override
+    public void createEmptyCityBuildings(final C city) {
+        this.manager.createEmptyCityBuildings(city);
+    }
+
+    @Override
+    public D getData(final BuildingType type) {
+        return this.manager.getData(type);
+    }
+
+    @Override
+    public byte[] exportCity(final CityId id) {
+        return this.transfer.exportCity(id);
+    }
+
+    @Override
+    public C importCity(final byte[] record) {
+        return this.transfer.importCity(record);
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+}
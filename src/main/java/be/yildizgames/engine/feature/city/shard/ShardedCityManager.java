@@ -0,0 +1,279 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.shard;
+
+import be.yildizgames.common.geometry.Point3D;
+import be.yildizgames.common.model.PlayerId;
+import be.yildizgames.engine.feature.city.City;
+import be.yildizgames.engine.feature.city.CityId;
+import be.yildizgames.engine.feature.city.CityManager;
+import be.yildizgames.engine.feature.city.building.Building;
+import be.yildizgames.engine.feature.city.building.BuildingData;
+import be.yildizgames.engine.feature.city.building.BuildingType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * City manager partitioning the cities across several shards, every city is routed to a shard by consistent hashing of its id.
+ * Operations on a single city are forwarded to its shard, operations on several cities are sent to every shard and their results merged.
+ * When a shard is added or removed, only the cities whose owning shard changed are moved, as encoded records with their pending
+ * constructions and staff allocations.
+ *
+ * @param <T> Building implementation.
+ * @param <D> Building data implementation.
+ * @param <C> City implementation.
+ * @author Grégory Van den Borre
+ */
+public final class ShardedCityManager<T extends Building, D extends BuildingData, C extends City<T, D>> implements CityManager<T, D, C> {
+
+    /**
+     * Default number of points of every shard on the hash ring.
+     */
+    public static final int DEFAULT_VIRTUAL_NODES = 128;
+
+    private static final Comparator<City<?, ?>> BY_ID = Comparator.comparingInt(c -> c.getId().value);
+
+    private final ConsistentHashRing<CityShard<T, D, C>> ring;
+
+    /**
+     * Create a new manager without any shard.
+     */
+    public ShardedCityManager() {
+        this(DEFAULT_VIRTUAL_NODES);
+    }
+
+    /**
+     * Create a new manager without any shard.
+     *
+     * @param virtualNodes Number of points of every shard on the hash ring, more points spread the cities more evenly.
+     */
+    public ShardedCityManager(final int virtualNodes) {
+        super();
+        this.ring = new ConsistentHashRing<>(virtualNodes);
+    }
+
+    /**
+     * Add a shard and move to it the cities it now owns.
+     *
+     * @param shard Shard to add, must not hold any city.
+     * @return The number of moved cities.
+     * @throws IllegalArgumentException If a shard with the same name is already registered or if the shard holds cities.
+     */
+    public int addShard(final CityShard<T, D, C> shard) {
+        if (!shard.getCityIds().isEmpty()) {
+            throw new IllegalArgumentException("Shard " + shard.getName() + " already holds cities.");
+        }
+        this.ring.add(shard.getName(), shard);
+        return this.rebalance();
+    }
+
+    /**
+     * Remove a shard after moving all its cities to the remaining shards.
+     *
+     * @param name Name of the shard to remove.
+     * @return The number of moved cities.
+     * @throws IllegalArgumentException If the shard is not registered, or if it still holds cities and is the last one.
+     */
+    public int removeShard(final String name) {
+        CityShard<T, D, C> removed = this.ring.get(name);
+        if (removed == null) {
+            throw new IllegalArgumentException("Unknown shard " + name);
+        }
+        List<CityId> cities = removed.getCityIds();
+        if (!cities.isEmpty() && this.ring.getShards().size() == 1) {
+            throw new IllegalArgumentException("Cannot remove the last shard holding cities.");
+        }
+        this.ring.remove(name);
+        for (CityId id : cities) {
+            this.move(removed, this.ring.route(id.value), id);
+        }
+        return cities.size();
+    }
+
+    /**
+     * Move every city not held by its owning shard.
+     *
+     * @return The number of moved cities.
+     */
+    public int rebalance() {
+        int moved = 0;
+        for (CityShard<T, D, C> shard : this.ring.getShards()) {
+            for (CityId id : shard.getCityIds()) {
+                CityShard<T, D, C> target = this.ring.route(id.value);
+                if (target != shard) {
+                    this.move(shard, target, id);
+                    moved++;
+                }
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * @param id City id.
+     * @return The shard owning the city.
+     * @throws IllegalStateException If no shard is registered.
+     */
+    public CityShard<T, D, C> getShard(final CityId id) {
+        CityShard<T, D, C> shard = this.ring.route(id.value);
+        if (shard == null) {
+            throw new IllegalStateException("No shard registered.");
+        }
+        return shard;
+    }
+
+    /**
+     * @return The registered shards, in registration order, read only.
+     */
+    public List<CityShard<T, D, C>> getShards() {
+        return this.ring.getShards();
+    }
+
+    private void move(final CityShard<T, D, C> from, final CityShard<T, D, C> to, final CityId id) {
+        to.importCity(from.exportCity(id));
+    }
+
+    @Override
+    public C createCity(final CityId id, final PlayerId owner, final Point3D position) {
+        return this.getShard(id).createCity(id, owner, position);
+    }
+
+    @Override
+    public C getCityById(final CityId id) {
+        return this.getShard(id).getCityById(id);
+    }
+
+    @Override
+    public C removeCity(final CityId id) {
+        return this.getShard(id).removeCity(id);
+    }
+
+    @Override
+    public List<C> getCities() {
+        List<C> result = new ArrayList<>();
+        for (CityShard<T, D, C> shard : this.ring.getShards()) {
+            result.addAll(shard.getCities());
+        }
+        return result;
+    }
+
+    @Override
+    public Set<C> getCities(final PlayerId player) {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(this.gather(player)));
+    }
+
+    @Override
+    public int getCityCount(final PlayerId player) {
+        int count = 0;
+        for (CityShard<T, D, C> shard : this.ring.getShards()) {
+            count += shard.getCityCount(player);
+        }
+        return count;
+    }
+
+    /**
+     * Execute an action on every city owned by a player, by ascending city id.
+     * Unlike a single manager, the cities are first gathered from every shard.
+     *
+     * @param player Owner of the cities.
+     * @param action Action to execute.
+     */
+    @Override
+    public void forEachCity(final PlayerId player, final Consumer<? super C> action) {
+        this.gather(player).forEach(action);
+    }
+
+    @Override
+    public void transferCity(final CityId id, final PlayerId newOwner) {
+        this.getShard(id).transferCity(id, newOwner);
+    }
+
+    @Override
+    public C findNearest(final Point3D position) {
+        C nearest = null;
+        float distance = Float.MAX_VALUE;
+        for (CityShard<T, D, C> shard : this.ring.getShards()) {
+            C candidate = shard.findNearest(position);
+            if (candidate != null) {
+                float d = Point3D.squaredDistance(candidate.getPosition(), position);
+                if (d < distance) {
+                    distance = d;
+                    nearest = candidate;
+                }
+            }
+        }
+        return nearest;
+    }
+
+    @Override
+    public List<C> findWithinRadius(final Point3D position, final float radius) {
+        List<C> result = new ArrayList<>();
+        for (CityShard<T, D, C> shard : this.ring.getShards()) {
+            result.addAll(shard.findWithinRadius(position, radius));
+        }
+        return result;
+    }
+
+    @Override
+    public List<C> findInBox(final Point3D min, final Point3D max) {
+        List<C> result = new ArrayList<>();
+        for (CityShard<T, D, C> shard : this.ring.getShards()) {
+            result.addAll(shard.findInBox(min, max));
+        }
+        return result;
+    }
+
+    @Override
+    public void createEmptyCityBuildings(final C city) {
+        this.getShard(city.getId()).createEmptyCityBuildings(city);
+    }
+
+    /**
+     * Building data are expected to be the same in every shard.
+     */
+    @Override
+    public D getData(final BuildingType entityType) {
+        List<CityShard<T, D, C>> shards = this.ring.getShards();
+        return shards.isEmpty() ? null : shards.get(0).getData(entityType);
+    }
+
+    /**
+     * @return The cities of a player in every shard, sorted by id.
+     */
+    private List<C> gather(final PlayerId player) {
+        List<C> result = new ArrayList<>();
+        for (CityShard<T, D, C> shard : this.ring.getShards()) {
+            result.addAll(shard.getCities(player));
+        }
+        result.sort(BY_ID);
+        return result;
+    }
+}
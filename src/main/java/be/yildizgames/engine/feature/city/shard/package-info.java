@@ -0,0 +1,6 @@
+/**
+ * Partitioning of the cities across several city managers, local or remote, by consistent hashing of their id.
+ *
+ * @author Grégory Van den Borre
+ */
+package be.yildizgames.engine.feature.city.shard;
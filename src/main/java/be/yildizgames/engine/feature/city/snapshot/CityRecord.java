@@ -0,0 +1,122 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.snapshot;
+
+import be.yildizgames.engine.feature.city.CityId;
+
+/**
+ * Decoded content of a city in a snapshot, kept in primitive arrays until the city is materialized.
+ * Immutable class.
+ *
+ * @author Grégory Van den Borre
+ */
+public final class CityRecord {
+
+    /**
+     * City id value.
+     */
+    final int id;
+
+    /**
+     * Owner id value.
+     */
+    final int owner;
+
+    /**
+     * City position in the world.
+     */
+    final float x;
+
+    final float y;
+
+    final float z;
+
+    /**
+     * Buildings, 5 values by building: position, type, level, staff, old staff.
+     */
+    final int[] buildings;
+
+    /**
+     * Pending constructions, 4 values by construction: position, type, level, staff.
+     */
+    final int[] constructions;
+
+    /**
+     * Work left for every pending construction, in milliseconds at normal speed.
+     */
+    final long[] constructionTimes;
+
+    /**
+     * Pending staff allocations, 2 values by allocation: position, staff.
+     */
+    final int[] allocations;
+
+    /**
+     * Time left for every pending staff allocation.
+     */
+    final long[] allocationTimes;
+
+    CityRecord(int id, int owner, float x, float y, float z, int[] buildings, int[] constructions, long[] constructionTimes, int[] allocations, long[] allocationTimes) {
+        super();
+        this.id = id;
+        this.owner = owner;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.buildings = buildings;
+        this.constructions = constructions;
+        this.constructionTimes = constructionTimes;
+        this.allocations = allocations;
+        this.allocationTimes = allocationTimes;
+    }
+
+    /**
+     * @return The id of the recorded city.
+     */
+    public CityId getId() {
+        return CityId.valueOf(this.id);
+    }
+
+    /**
+     * @return The number of buildings recorded for the city.
+     */
+    public int getBuildingCount() {
+        return this.buildings.length / CityRecordCodec.BUILDING_VALUES;
+    }
+
+    /**
+     * @return The number of pending constructions recorded for the city.
+     */
+    public int getConstructionCount() {
+        return this.constructionTimes.length;
+    }
+
+    /**
+     * @return The number of pending staff allocations recorded for the city.
+     */
+    public int getAllocationCount() {
+        return this.allocationTimes.length;
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.snapshot;
+
+import be.yildizgames.common.geometry.Point3D;
+import be.yildizgames.common.model.Level;
+import be.yildizgames.common.model.PlayerId;
+import be.yildizgames.engine.feature.city.City;
+import be.yildizgames.engine.feature.city.CityId;
+import be.yildizgames.engine.feature.city.CityManager;
+import be.yildizgames.engine.feature.city.building.Building;
+import be.yildizgames.engine.feature.city.building.BuildingData;
+import be.yildizgames.engine.feature.city.building.BuildingPosition;
+import be.yildizgames.engine.feature.city.building.BuildingType;
+import be.yildizgames.engine.feature.city.building.construction.BuildingConstructionManager;
+import be.yildizgames.engine.feature.city.building.construction.WaitingBuilding;
+import be.yildizgames.engine.feature.city.building.staff.Staff;
+import be.yildizgames.engine.feature.city.building.staff.StaffAllocatorManager;
+import be.yildizgames.engine.feature.city.building.staff.WaitingAllocation;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Encode and decode a single city, with its buildings, pending constructions and pending staff allocations, in a compact binary form.
+ * <p>
+ * Record layout, big endian:
+ * <pre>
+ * int id, int owner, float x, float y, float z,
+ * short building count, [short position, int type, short level, int staff, int old staff]*,
+ * short construction count, [short position, int type, short level, int staff, long work left]*,
+ * short allocation count, [short position, int staff, long time left]*
+ * </pre>
+ * Decoding does not touch the managers and can be run concurrently, materializing a record must be done on the thread owning the managers,
+ * except for {@link #createBuildings(City, CityRecord)} which only modifies the given city.
+ *
+ * @param <B> Building implementation.
+ * @param <D> Building data implementation.
+ * @param <C> City implementation.
+ * @author Grégory Van den Borre
+ */
+public final class CityRecordCodec<B extends Building, D extends BuildingData, C extends City<B, D>> {
+
+    /**
+     * Number of values stored for a building.
+     */
+    static final int BUILDING_VALUES = 5;
+
+    /**
+     * Number of values stored for a pending construction.
+     */
+    private static final int CONSTRUCTION_VALUES = 4;
+
+    /**
+     * Number of values stored for a pending staff allocation.
+     */
+    private static final int ALLOCATION_VALUES = 2;
+
+    private static final int CITY_BYTES = Integer.BYTES * 2 + Float.BYTES * 3 + Short.BYTES * 3;
+
+    private static final int BUILDING_BYTES = Short.BYTES * 2 + Integer.BYTES * 3;
+
+    private static final int CONSTRUCTION_BYTES = Short.BYTES * 2 + Integer.BYTES * 2 + Long.BYTES;
+
+    private static final int ALLOCATION_BYTES = Short.BYTES + Integer.BYTES + Long.BYTES;
+
+    /**
+     * Associated city manager to create cities and retrieve building data.
+     */
+    private final CityManager<B, D, C> cityManager;
+
+    /**
+     * Create the building instances.
+     */
+    private final BuildingLoader<B> loader;
+
+    /**
+     * Create a new codec.
+     *
+     * @param cityManager Associated city manager.
+     * @param loader      Building instances factory.
+     */
+    public CityRecordCodec(final CityManager<B, D, C> cityManager, final BuildingLoader<B> loader) {
+        super();
+        this.cityManager = cityManager;
+        this.loader = loader;
+    }
+
+    /**
+     * Compute the number of bytes required to encode a city.
+     *
+     * @param city          City to encode.
+     * @param constructions Pending constructions for the city.
+     * @param allocations   Pending staff allocations for the city.
+     * @return The size of the record.
+     */
+    public int sizeOf(final C city, final Collection<WaitingBuilding<B>> constructions, final Collection<WaitingAllocation<B>> allocations) {
+        return CITY_BYTES
+                + city.getBuildings().size() * BUILDING_BYTES
+                + constructions.size() * CONSTRUCTION_BYTES
+                + allocations.size() * ALLOCATION_BYTES;
+    }
+
+    /**
+     * Encode a city.
+     *
+     * @param city          City to encode.
+     * @param constructions Pending constructions for the city, their work left is saved, so they resume at the speed of the loading manager.
+     * @param allocations   Pending staff allocations for the city.
+     * @param out           Buffer to write into, must have at least sizeOf() bytes remaining.
+     */
+    public void write(final C city, final Collection<WaitingBuilding<B>> constructions, final Collection<WaitingAllocation<B>> allocations, final ByteBuffer out) {
+        Point3D position = city.getPosition();
+        out.putInt(city.getId().value);
+        out.putInt(city.getOwner().value);
+        out.putFloat(position.x);
+        out.putFloat(position.y);
+        out.putFloat(position.z);
+        List<B> buildings = city.getBuildings();
+        out.putShort(toShort(buildings.size()));
+        for (int i = 0; i < buildings.size(); i++) {
+            B b = buildings.get(i);
+            out.putShort(toShort(b.getBuildingPosition().value));
+            out.putInt(b.getType().type);
+            out.putShort(toShort(b.getLevel().value));
+            out.putInt(b.getStaff().value);
+            out.putInt(b.getOldStaff().value);
+        }
+        out.putShort(toShort(constructions.size()));
+        for (WaitingBuilding<B> w : constructions) {
+            B b = w.getB();
+            out.putShort(toShort(b.getBuildingPosition().value));
+            out.putInt(b.getType().type);
+            out.putShort(toShort(b.getLevel().value));
+            out.putInt(b.getStaff().value);
+            out.putLong(w.getWork());
+        }
+        out.putShort(toShort(allocations.size()));
+        for (WaitingAllocation<B> w : allocations) {
+            out.putShort(toShort(w.getB().getBuildingPosition().value));
+            out.putInt(w.getStaff().value);
+            out.putLong(w.getTime());
+        }
+    }
+
+    /**
+     * Decode a city record, this method does not modify any state and can be called from any thread.
+     *
+     * @param in Buffer positioned at the beginning of the record.
+     * @return The decoded record.
+     * @throws CitySnapshotException If the buffer content is truncated.
+     */
+    public CityRecord read(final ByteBuffer in) {
+        try {
+            int id = in.getInt();
+            int owner = in.getInt();
+            float x = in.getFloat();
+            float y = in.getFloat();
+            float z = in.getFloat();
+            int[] buildings = new int[in.getShort() * BUILDING_VALUES];
+            for (int i = 0; i < buildings.length; i += BUILDING_VALUES) {
+                buildings[i] = in.getShort();
+                buildings[i + 1] = in.getInt();
+                buildings[i + 2] = in.getShort();
+                buildings[i + 3] = in.getInt();
+                buildings[i + 4] = in.getInt();
+            }
+            long[] constructionTimes = new long[in.getShort()];
+            int[] constructions = new int[constructionTimes.length * CONSTRUCTION_VALUES];
+            for (int i = 0; i < constructionTimes.length; i++) {
+                int index = i * CONSTRUCTION_VALUES;
+                constructions[index] = in.getShort();
+                constructions[index + 1] = in.getInt();
+                constructions[index + 2] = in.getShort();
+                constructions[index + 3] = in.getInt();
+                constructionTimes[i] = in.getLong();
+            }
+            long[] allocationTimes = new long[in.getShort()];
+            int[] allocations = new int[allocationTimes.length * ALLOCATION_VALUES];
+            for (int i = 0; i < allocationTimes.length; i++) {
+                int index = i * ALLOCATION_VALUES;
+                allocations[index] = in.getShort();
+                allocations[index + 1] = in.getInt();
+                allocationTimes[i] = in.getLong();
+            }
+            return new CityRecord(id, owner, x, y, z, buildings, constructions, constructionTimes, allocations, allocationTimes);
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            throw new CitySnapshotException("Truncated city record", e);
+        }
+    }
+
+    /**
+     * Register the city of a record in the city manager.
+     *
+     * @param r Record to materialize.
+     * @return The created city, without any building.
+     */
+    public C createCity(final CityRecord r) {
+        return this.cityManager.createCity(CityId.valueOf(r.id), PlayerId.valueOf(r.owner), Point3D.valueOf(r.x, r.y, r.z));
+    }
+
+    /**
+     * Create the buildings of a record in its city.
+     * Only the given city is modified, so different cities can be filled concurrently.
+     * Buildings with a pending staff allocation are created with their previous staff, the allocation is restored by resume().
+     *
+     * @param city City created from the record.
+     * @param r    Record to materialize.
+     */
+    public void createBuildings(final C city, final CityRecord r) {
+        for (int i = 0; i < r.buildings.length; i += BUILDING_VALUES) {
+            int staff = hasAllocation(r, r.buildings[i]) ? r.buildings[i + 4] : r.buildings[i + 3];
+            city.createConstruction(this.load(city.getId(), r.buildings[i], r.buildings[i + 1], r.buildings[i + 2], staff));
+        }
+    }
+
+    /**
+     * Restart the pending constructions and staff allocations of a record, with the work and time left they had when encoded.
+     *
+     * @param city                City created from the record, with its buildings.
+     * @param r                   Record to materialize.
+     * @param constructionManager Manager to resume the constructions.
+     * @param staffManager        Manager to resume the staff allocations.
+     */
+    public void resume(final C city, final CityRecord r, final BuildingConstructionManager<B, D, C> constructionManager, final StaffAllocatorManager<B, D, C> staffManager) {
+        for (int i = 0; i < r.constructionTimes.length; i++) {
+            int index = i * CONSTRUCTION_VALUES;
+            B b = this.load(city.getId(), r.constructions[index], r.constructions[index + 1], r.constructions[index + 2], r.constructions[index + 3]);
+            constructionManager.createBuilding(b, r.constructionTimes[i]);
+        }
+        for (int i = 0; i < r.allocationTimes.length; i++) {
+            int index = i * ALLOCATION_VALUES;
+            B b = city.getBuilding(BuildingPosition.valueOf(r.allocations[index]));
+            staffManager.add(b, Staff.valueOf(r.allocations[index + 1]), r.allocationTimes[i]);
+        }
+    }
+
+    private B load(final CityId city, final int position, final int type, final int level, final int staff) {
+        D data = this.cityManager.getData(BuildingType.valueOf(type));
+        if (data == null) {
+            throw new CitySnapshotException("Unknown building type " + type);
+        }
+        return this.loader.load(city, data, BuildingPosition.valueOf(position), Level.valueOf(level), Staff.valueOf(staff));
+    }
+
+    private static boolean hasAllocation(final CityRecord r, final int position) {
+        for (int i = 0; i < r.allocations.length; i += ALLOCATION_VALUES) {
+            if (r.allocations[i] == position) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static short toShort(final int value) {
+        if (value < 0 || value > Short.MAX_VALUE) {
+            throw new CitySnapshotException("Value out of range for a snapshot: " + value);
+        }
+        return (short) value;
+    }
+}
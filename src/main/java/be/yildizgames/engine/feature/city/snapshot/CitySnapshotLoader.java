@@ -0,0 +1,135 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.snapshot;
+
+import be.yildizgames.engine.feature.city.City;
+import be.yildizgames.engine.feature.city.CityManager;
+import be.yildizgames.engine.feature.city.building.Building;
+import be.yildizgames.engine.feature.city.building.BuildingData;
+import be.yildizgames.engine.feature.city.building.construction.BuildingConstructionManager;
+import be.yildizgames.engine.feature.city.building.staff.StaffAllocatorManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Load a snapshot written by a {@link CitySnapshotWriter}.
+ * <p>
+ * The file is memory mapped, records are decoded in parallel, cities are then registered sequentially in the city manager,
+ * their buildings are created in parallel (every city is only touched by one thread) and the pending constructions and staff allocations
+ * are finally restored sequentially in their managers.
+ * This class must be used from the thread owning the managers, before they are used by the frame loop.
+ *
+ * @param <B> Building implementation.
+ * @param <D> Building data implementation.
+ * @param <C> City implementation.
+ * @author Grégory Van den Borre
+ */
+public final class CitySnapshotLoader<B extends Building, D extends BuildingData, C extends City<B, D>> {
+
+    private final BuildingConstructionManager<B, D, C> constructionManager;
+
+    private final StaffAllocatorManager<B, D, C> staffManager;
+
+    private final CityRecordCodec<B, D, C> codec;
+
+    /**
+     * Create a new snapshot loader.
+     *
+     * @param cityManager         Manager to fill with the cities.
+     * @param loader              Factory creating the building instances.
+     * @param constructionManager Manager to fill with the pending constructions.
+     * @param staffManager        Manager to fill with the pending staff allocations.
+     */
+    public CitySnapshotLoader(final CityManager<B, D, C> cityManager, final BuildingLoader<B> loader, final BuildingConstructionManager<B, D, C> constructionManager, final StaffAllocatorManager<B, D, C> staffManager) {
+        super();
+        this.constructionManager = constructionManager;
+        this.staffManager = staffManager;
+        this.codec = new CityRecordCodec<>(cityManager, loader);
+    }
+
+    /**
+     * Load the snapshot.
+     *
+     * @param path Snapshot file.
+     * @return The list of loaded cities.
+     * @throws UncheckedIOException  If the file cannot be read.
+     * @throws CitySnapshotException If the file is not a valid snapshot.
+     */
+    public List<C> load(final Path path) {
+        CityRecord[] records = this.read(path);
+        @SuppressWarnings("unchecked")
+        C[] cities = (C[]) new City[records.length];
+        for (int i = 0; i < records.length; i++) {
+            cities[i] = this.codec.createCity(records[i]);
+        }
+        IntStream.range(0, records.length).parallel().forEach(i -> this.codec.createBuildings(cities[i], records[i]));
+        for (int i = 0; i < records.length; i++) {
+            this.codec.resume(cities[i], records[i], this.constructionManager, this.staffManager);
+        }
+        return List.of(cities);
+    }
+
+    private CityRecord[] read(final Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < CitySnapshotWriter.HEADER_BYTES || buffer.getInt() != CitySnapshotWriter.MAGIC) {
+                throw new CitySnapshotException("Not a city snapshot: " + path);
+            }
+            short version = buffer.getShort();
+            if (version != CitySnapshotWriter.VERSION) {
+                throw new CitySnapshotException("Unsupported snapshot version: " + version);
+            }
+            int count = buffer.getInt();
+            long tableOffset = buffer.getLong();
+            if (count < 0 || tableOffset < CitySnapshotWriter.HEADER_BYTES || tableOffset + (long) count * Long.BYTES > buffer.limit()) {
+                throw new CitySnapshotException("Corrupted snapshot header: " + path);
+            }
+            long[] offsets = new long[count];
+            ByteBuffer table = buffer.duplicate();
+            table.position((int) tableOffset);
+            table.asLongBuffer().get(offsets);
+            CityRecord[] records = new CityRecord[count];
+            IntStream.range(0, count).parallel().forEach(i -> {
+                if (offsets[i] < CitySnapshotWriter.HEADER_BYTES || offsets[i] >= tableOffset) {
+                    throw new CitySnapshotException("Corrupted record offset: " + offsets[i]);
+                }
+                ByteBuffer record = buffer.duplicate();
+                record.position((int) offsets[i]);
+                records[i] = this.codec.read(record);
+            });
+            return records;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.snapshot;
+
+import be.yildizgames.engine.feature.city.City;
+import be.yildizgames.engine.feature.city.CityId;
+import be.yildizgames.engine.feature.city.CityManager;
+import be.yildizgames.engine.feature.city.building.Building;
+import be.yildizgames.engine.feature.city.building.BuildingData;
+import be.yildizgames.engine.feature.city.building.construction.BuildingConstructionManager;
+import be.yildizgames.engine.feature.city.building.construction.WaitingBuilding;
+import be.yildizgames.engine.feature.city.building.staff.StaffAllocatorManager;
+import be.yildizgames.engine.feature.city.building.staff.WaitingAllocation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Write the state of a whole city manager in a snapshot file.
+ * <p>
+ * File layout, big endian:
+ * <pre>
+ * int magic, short version, int city count, long table offset,
+ * city records (see {@link CityRecordCodec}),
+ * table: long record offset for every city.
+ * </pre>
+ * The snapshot is first written in a temporary file moved over the target once complete, a crash while writing never leaves a truncated snapshot.
+ * This class must be used from the thread owning the managers.
+ *
+ * @param <B> Building implementation.
+ * @param <D> Building data implementation.
+ * @param <C> City implementation.
+ * @author Grégory Van den Borre
+ */
+public final class CitySnapshotWriter<B extends Building, D extends BuildingData, C extends City<B, D>> {
+
+    /**
+     * File identifier, "YCTY".
+     */
+    static final int MAGIC = 0x59435459;
+
+    /**
+     * Current format version.
+     */
+    static final short VERSION = 1;
+
+    /**
+     * Size of the file header.
+     */
+    static final int HEADER_BYTES = Integer.BYTES + Short.BYTES + Integer.BYTES + Long.BYTES;
+
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    private final CityManager<B, D, C> cityManager;
+
+    private final BuildingConstructionManager<B, D, C> constructionManager;
+
+    private final StaffAllocatorManager<B, D, C> staffManager;
+
+    private final CityRecordCodec<B, D, C> codec;
+
+    /**
+     * Create a new snapshot writer.
+     *
+     * @param cityManager         Manager holding the cities to save.
+     * @param constructionManager Manager holding the pending constructions.
+     * @param staffManager        Manager holding the pending staff allocations.
+     */
+    public CitySnapshotWriter(final CityManager<B, D, C> cityManager, final BuildingConstructionManager<B, D, C> constructionManager, final StaffAllocatorManager<B, D, C> staffManager) {
+        super();
+        this.cityManager = cityManager;
+        this.constructionManager = constructionManager;
+        this.staffManager = staffManager;
+        this.codec = new CityRecordCodec<>(cityManager, null);
+    }
+
+    /**
+     * Write the snapshot.
+     *
+     * @param path File to write, replaced if it already exists.
+     * @throws UncheckedIOException If the file cannot be written.
+     */
+    public void write(final Path path) {
+        List<C> cities = this.cityManager.getCities();
+        Map<CityId, List<WaitingAllocation<B>>> allocations = new HashMap<>();
+        for (WaitingAllocation<B> w : this.staffManager.getAllocationList()) {
+            allocations.computeIfAbsent(w.getB().getCity(), k -> new ArrayList<>()).add(w);
+        }
+        long[] offsets = new long[cities.size()];
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(INITIAL_BUFFER_SIZE);
+            long position = HEADER_BYTES;
+            channel.position(position);
+            for (int i = 0; i < cities.size(); i++) {
+                C city = cities.get(i);
+                List<WaitingBuilding<B>> constructions = this.constructionManager.export(city);
+                Collection<WaitingAllocation<B>> cityAllocations = allocations.getOrDefault(city.getId(), Collections.emptyList());
+                int size = this.codec.sizeOf(city, constructions, cityAllocations);
+                if (size > buffer.remaining()) {
+                    position += flush(channel, buffer);
+                    if (size > buffer.capacity()) {
+                        buffer = ByteBuffer.allocateDirect(size);
+                    }
+                }
+                offsets[i] = position + buffer.position();
+                this.codec.write(city, constructions, cityAllocations, buffer);
+            }
+            position += flush(channel, buffer);
+            ByteBuffer table = ByteBuffer.allocate(offsets.length * Long.BYTES);
+            table.asLongBuffer().put(offsets);
+            writeFully(channel, table);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putShort(VERSION).putInt(offsets.length).putLong(position).flip();
+            channel.position(0);
+            writeFully(channel, header);
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int flush(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        int written = buffer.remaining();
+        writeFully(channel, buffer);
+        buffer.clear();
+        return written;
+    }
+
+    private static void writeFully(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.snapshot;
+
+import be.yildizgames.engine.feature.city.City;
+import be.yildizgames.engine.feature.city.CityId;
+import be.yildizgames.engine.feature.city.CityManager;
+import be.yildizgames.engine.feature.city.building.Building;
+import be.yildizgames.engine.feature.city.building.BuildingData;
+import be.yildizgames.engine.feature.city.building.construction.BuildingConstructionManager;
+import be.yildizgames.engine.feature.city.building.construction.WaitingBuilding;
+import be.yildizgames.engine.feature.city.building.staff.StaffAllocatorManager;
+import be.yildizgames.engine.feature.city.building.staff.WaitingAllocation;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Move a city with its complete live state between two sets of managers, typically on different servers.
+ * <p>
+ * Exporting encodes the pending constructions and staff allocations of the city with the city and its buildings in a single record, then
+ * freezes them and removes the city from the source managers, a failed encoding leaves the city untouched. Importing the record on the target recreates the city and resumes the countdowns with the
+ * time left they had when frozen, the time spent in transfer is not counted.
+ * Both operations must be called on the thread owning the managers.
+ *
+ * @param <B> Building implementation.
+ * @param <D> Building data implementation.
+ * @param <C> City implementation.
+ * @author Grégory Van den Borre
+ */
+public final class CityTransfer<B extends Building, D extends BuildingData, C extends City<B, D>> {
+
+    private final CityManager<B, D, C> cityManager;
+
+    private final BuildingConstructionManager<B, D, C> constructionManager;
+
+    private final StaffAllocatorManager<B, D, C> staffManager;
+
+    private final CityRecordCodec<B, D, C> codec;
+
+    /**
+     * Listeners called once an exported city is removed.
+     */
+    private final List<Consumer<CityId>> removalListeners = new ArrayList<>();
+
+    /**
+     * Create a new transfer for a set of managers.
+     *
+     * @param cityManager         Manager holding the cities.
+     * @param loader              Building instances factory used to import cities.
+     * @param constructionManager Manager running the constructions of the cities.
+     * @param staffManager        Manager running the staff allocations of the cities.
+     */
+    public CityTransfer(final CityManager<B, D, C> cityManager, final BuildingLoader<B> loader, final BuildingConstructionManager<B, D, C> constructionManager, final StaffAllocatorManager<B, D, C> staffManager) {
+        super();
+        this.cityManager = cityManager;
+        this.constructionManager = constructionManager;
+        this.staffManager = staffManager;
+        this.codec = new CityRecordCodec<>(cityManager, loader);
+    }
+
+    /**
+     * Encode a city, then freeze it and remove it from the managers.
+     *
+     * @param id Id of the city to export.
+     * @return The encoded city.
+     * @throws IllegalArgumentException If the city does not exist.
+     */
+    public byte[] exportCity(final CityId id) {
+        C city = this.cityManager.getCityById(id);
+        if (city == null) {
+            throw new IllegalArgumentException("Unknown city " + id);
+        }
+        List<WaitingBuilding<B>> constructions = this.constructionManager.export(city);
+        List<WaitingAllocation<B>> allocations = this.staffManager.export(city);
+        ByteBuffer buffer = ByteBuffer.allocate(this.codec.sizeOf(city, constructions, allocations));
+        this.codec.write(city, constructions, allocations, buffer);
+        this.constructionManager.freeze(city);
+        this.staffManager.freeze(city);
+        this.cityManager.removeCity(id);
+        for (int i = 0; i < this.removalListeners.size(); i++) {
+            this.removalListeners.get(i).accept(id);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Add a listener called with the id of every exported city once it is removed from the managers, freezing a city does not notify the
+     * construction and staff listeners, so CityJournal::cityRemoved must be registered here to forget its pending work.
+     *
+     * @param listener Listener to call.
+     */
+    public void willNotify(final Consumer<CityId> listener) {
+        this.removalListeners.add(Objects.requireNonNull(listener));
+    }
+
+    /**
+     * Recreate an exported city and resume its constructions and staff allocations.
+     *
+     * @param record City encoded by exportCity.
+     * @return The created city.
+     * @throws CitySnapshotException If the record is not valid.
+     */
+    public C importCity(final byte[] record) {
+        CityRecord r = this.codec.read(ByteBuffer.wrap(record));
+        C city = this.codec.createCity(r);
+        this.codec.createBuildings(city, r);
+        this.codec.resume(city, r, this.constructionManager, this.staffManager);
+        return city;
+    }
+
+    /**
+     * @return The manager holding the cities.
+     */
+    public CityManager<B, D, C> getCityManager() {
+        return this.cityManager;
+    }
+}
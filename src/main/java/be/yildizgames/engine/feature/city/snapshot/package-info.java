@@ -0,0 +1,6 @@
+/**
+ * Binary snapshots of the city state, used to save and restore a whole world quickly.
+ *
+ * @author Grégory Van den Borre
+ */
+package be.yildizgames.engine.feature.city.snapshot;
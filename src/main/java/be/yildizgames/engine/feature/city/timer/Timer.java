@@ -0,0 +1,107 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.timer;
+
+/**
+ * Handle on a value scheduled in a timer service, used to reschedule or cancel it.
+ * The handles also link the pending timers in schedule order, so they can be iterated without allocation.
+ *
+ * @param <T> Type of the timer value.
+ * @author Grégory Van den Borre
+ */
+public final class Timer<T> {
+
+    /**
+     * Service owning this timer.
+     */
+    final TimerService<T> service;
+
+    private final T value;
+
+    /**
+     * Schedule order, kept when the timer is rescheduled.
+     */
+    final long sequence;
+
+    /**
+     * Time stamp when the timer expires.
+     */
+    long deadline;
+
+    /**
+     * Wheel bucket holding the timer, -1 once the timer is expired or cancelled.
+     */
+    int bucket = -1;
+
+    /**
+     * Neighbours in the bucket.
+     */
+    Timer<T> previousInBucket;
+
+    Timer<T> nextInBucket;
+
+    /**
+     * Neighbours in schedule order.
+     */
+    Timer<T> previous;
+
+    Timer<T> next;
+
+    Timer(final TimerService<T> service, final T value, final long sequence, final long deadline) {
+        super();
+        this.service = service;
+        this.value = value;
+        this.sequence = sequence;
+        this.deadline = deadline;
+    }
+
+    /**
+     * @return The scheduled value.
+     */
+    public T getValue() {
+        return this.value;
+    }
+
+    /**
+     * @return The time stamp when the timer expires.
+     */
+    public long getDeadline() {
+        return this.deadline;
+    }
+
+    /**
+     * @return <code>true</code> if the timer is neither expired nor cancelled.
+     */
+    public boolean isPending() {
+        return this.bucket >= 0;
+    }
+
+    /**
+     * @return The next pending timer in schedule order, null if this timer is the last one or is not pending.
+     */
+    public Timer<T> getNext() {
+        return this.next;
+    }
+}
@@ -0,0 +1,326 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.timer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Hashed timing wheel.
+ * <p>
+ * Timers are hashed by deadline in a fixed number of buckets, each bucket covering a time resolution, and are linked in their bucket and in schedule
+ * order through their handle, so scheduling, rescheduling and cancelling are O(1). Advancing the service only visits the buckets between the
+ * previous and the new time stamp, the timers of a later wheel turn found there stay in place. The expired timers are given as a single batch, in
+ * schedule order: timers are appended at the tail of their bucket, so every bucket gives an ordered run, and the runs are merged by Arrays.sort.
+ * Once the timers are scheduled, advancing the service and iterating the pending timers do not allocate, except the merge buffer of the sort
+ * when more than 32 timers expire at once.
+ * <p>
+ * The service has no clock of its own: every owner advances it with its time, the wall clock or a time accumulated frame by frame.
+ * This class is not thread safe.
+ *
+ * @param <T> Type of the timer values.
+ * @author Grégory Van den Borre
+ */
+public final class TimerService<T> {
+
+    /**
+     * Default number of buckets.
+     */
+    private static final int DEFAULT_BUCKETS = 256;
+
+    /**
+     * Default time covered by a bucket, about a frame.
+     */
+    private static final long DEFAULT_RESOLUTION = 16;
+
+    /**
+     * Schedule order of the timers.
+     */
+    private static final Comparator<Timer<?>> SCHEDULE_ORDER = Comparator.comparingLong(t -> t.sequence);
+
+    /**
+     * First timer of every bucket.
+     */
+    private final Timer<T>[] buckets;
+
+    /**
+     * Last timer of every bucket.
+     */
+    private final Timer<T>[] tails;
+
+    private final int mask;
+
+    private final long resolution;
+
+    private final TimerExpiry<T> expiry;
+
+    /**
+     * Values of the timers expired during an advance.
+     */
+    private final List<T> expired = new ArrayList<>();
+
+    /**
+     * Read only view given to the expiry callback.
+     */
+    private final List<T> expiredView = Collections.unmodifiableList(this.expired);
+
+    /**
+     * Timers expired during an advance, sorted in schedule order before the callback.
+     */
+    private Timer<T>[] batch = newTimers(16);
+
+    /**
+     * Pending timers in schedule order.
+     */
+    private Timer<T> first;
+
+    private Timer<T> last;
+
+    private int size;
+
+    private long sequence;
+
+    /**
+     * Bucket tick reached by the last advance.
+     */
+    private long cursor;
+
+    /**
+     * Create a new service with 256 buckets of 16 time units.
+     *
+     * @param expiry Callback receiving the expired timers.
+     */
+    public TimerService(final TimerExpiry<T> expiry) {
+        this(DEFAULT_BUCKETS, DEFAULT_RESOLUTION, expiry);
+    }
+
+    /**
+     * Create a new service.
+     *
+     * @param buckets    Number of buckets, a power of two.
+     * @param resolution Time covered by a bucket.
+     * @param expiry     Callback receiving the expired timers.
+     * @throws IllegalArgumentException If the number of buckets is not a positive power of two or if the resolution is not positive.
+     */
+    public TimerService(final int buckets, final long resolution, final TimerExpiry<T> expiry) {
+        super();
+        if (buckets <= 0 || Integer.bitCount(buckets) != 1 || resolution <= 0) {
+            throw new IllegalArgumentException("Buckets must be a positive power of two and resolution must be positive.");
+        }
+        this.buckets = newTimers(buckets);
+        this.tails = newTimers(buckets);
+        this.mask = buckets - 1;
+        this.resolution = resolution;
+        this.expiry = Objects.requireNonNull(expiry);
+    }
+
+    /**
+     * Schedule a value, a deadline already reached expires at the next advance.
+     *
+     * @param value    Value to schedule.
+     * @param deadline Time stamp when the timer expires, Long.MAX_VALUE never expires.
+     * @return The timer handle.
+     */
+    public Timer<T> schedule(final T value, final long deadline) {
+        Timer<T> timer = new Timer<>(this, value, this.sequence++, deadline);
+        timer.previous = this.last;
+        if (this.last == null) {
+            this.first = timer;
+        } else {
+            this.last.next = timer;
+        }
+        this.last = timer;
+        this.size++;
+        this.link(timer);
+        return timer;
+    }
+
+    /**
+     * Change the deadline of a pending timer, its schedule order is kept.
+     *
+     * @param timer    Timer to modify.
+     * @param deadline New time stamp when the timer expires.
+     * @throws IllegalArgumentException If the timer is not pending in this service.
+     */
+    public void reschedule(final Timer<T> timer, final long deadline) {
+        this.check(timer);
+        this.unlink(timer);
+        timer.deadline = deadline;
+        this.link(timer);
+    }
+
+    /**
+     * Cancel a timer.
+     *
+     * @param timer Timer to cancel.
+     * @return <code>true</code> if the timer was pending, <code>false</code> if it was already expired or cancelled.
+     * @throws IllegalArgumentException If the timer belongs to another service.
+     */
+    public boolean cancel(final Timer<T> timer) {
+        if (timer.service != this) {
+            throw new IllegalArgumentException("Timer scheduled in another service.");
+        }
+        if (!timer.isPending()) {
+            return false;
+        }
+        this.remove(timer);
+        return true;
+    }
+
+    /**
+     * Expire all the timers with a deadline reached, the callback receives them in a single batch.
+     *
+     * @param now Current time stamp, must not go back in time.
+     * @return The number of expired timers.
+     */
+    public int advance(final long now) {
+        long tick = Math.max(Math.floorDiv(now, this.resolution), this.cursor);
+        int count = 0;
+        if (tick - this.cursor >= this.buckets.length) {
+            for (int b = 0; b < this.buckets.length; b++) {
+                count = this.expire(b, now, count);
+            }
+        } else {
+            for (long t = this.cursor; t <= tick; t++) {
+                count = this.expire((int) (t & this.mask), now, count);
+            }
+        }
+        this.cursor = tick;
+        if (count == 0) {
+            return 0;
+        }
+        Arrays.sort(this.batch, 0, count, SCHEDULE_ORDER);
+        for (int i = 0; i < count; i++) {
+            this.expired.add(this.batch[i].getValue());
+            this.batch[i] = null;
+        }
+        try {
+            this.expiry.expired(this.expiredView);
+        } finally {
+            this.expired.clear();
+        }
+        return count;
+    }
+
+    /**
+     * @return The first pending timer in schedule order, null if there is none.
+     */
+    public Timer<T> getFirst() {
+        return this.first;
+    }
+
+    /**
+     * @return The number of pending timers.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Move the expired timers of a bucket in the batch.
+     *
+     * @return The new batch size.
+     */
+    private int expire(final int bucket, final long now, final int count) {
+        int result = count;
+        Timer<T> timer = this.buckets[bucket];
+        while (timer != null) {
+            Timer<T> next = timer.nextInBucket;
+            if (timer.deadline <= now) {
+                this.remove(timer);
+                if (result == this.batch.length) {
+                    Timer<T>[] grown = newTimers(result * 2);
+                    System.arraycopy(this.batch, 0, grown, 0, result);
+                    this.batch = grown;
+                }
+                this.batch[result++] = timer;
+            }
+            timer = next;
+        }
+        return result;
+    }
+
+    private void check(final Timer<T> timer) {
+        if (timer.service != this || !timer.isPending()) {
+            throw new IllegalArgumentException("Timer not pending in this service.");
+        }
+    }
+
+    private void link(final Timer<T> timer) {
+        long tick = Math.max(Math.floorDiv(timer.deadline, this.resolution), this.cursor);
+        int bucket = (int) (tick & this.mask);
+        timer.bucket = bucket;
+        timer.nextInBucket = null;
+        timer.previousInBucket = this.tails[bucket];
+        if (timer.previousInBucket == null) {
+            this.buckets[bucket] = timer;
+        } else {
+            timer.previousInBucket.nextInBucket = timer;
+        }
+        this.tails[bucket] = timer;
+    }
+
+    private void unlink(final Timer<T> timer) {
+        if (timer.previousInBucket == null) {
+            this.buckets[timer.bucket] = timer.nextInBucket;
+        } else {
+            timer.previousInBucket.nextInBucket = timer.nextInBucket;
+        }
+        if (timer.nextInBucket == null) {
+            this.tails[timer.bucket] = timer.previousInBucket;
+        } else {
+            timer.nextInBucket.previousInBucket = timer.previousInBucket;
+        }
+        timer.previousInBucket = null;
+        timer.nextInBucket = null;
+    }
+
+    private void remove(final Timer<T> timer) {
+        this.unlink(timer);
+        timer.bucket = -1;
+        if (timer.previous == null) {
+            this.first = timer.next;
+        } else {
+            timer.previous.next = timer.next;
+        }
+        if (timer.next == null) {
+            this.last = timer.previous;
+        } else {
+            timer.next.previous = timer.previous;
+        }
+        timer.previous = null;
+        timer.next = null;
+        this.size--;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Timer<T>[] newTimers(final int size) {
+        return new Timer[size];
+    }
+}
@@ -0,0 +1,6 @@
+/**
+ * Timers shared by the city features completing work after a delay.
+ *
+ * @author Grégory Van den Borre
+ */
+package be.yildizgames.engine.feature.city.timer;
@@ -0,0 +1,102 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.view;
+
+import be.yildizgames.common.model.Level;
+import be.yildizgames.engine.feature.city.building.Building;
+import be.yildizgames.engine.feature.city.building.BuildingPosition;
+import be.yildizgames.engine.feature.city.building.BuildingType;
+import be.yildizgames.engine.feature.city.building.staff.Staff;
+
+/**
+ * Immutable state of a building slot at the time it was published.
+ *
+ * @author Grégory Van den Borre
+ */
+public final class BuildingView {
+
+    private final BuildingPosition position;
+
+    private final BuildingType type;
+
+    private final Level level;
+
+    private final Staff staff;
+
+    private BuildingView(final BuildingPosition position, final BuildingType type, final Level level, final Staff staff) {
+        super();
+        this.position = position;
+        this.type = type;
+        this.level = level;
+        this.staff = staff;
+    }
+
+    /**
+     * Get the view of a building, reusing the previous one if nothing changed.
+     *
+     * @param building Live building.
+     * @param previous Previous view of the same slot, can be null.
+     * @return The view of the building.
+     */
+    static BuildingView of(final Building building, final BuildingView previous) {
+        if (previous != null && previous.matches(building)) {
+            return previous;
+        }
+        return new BuildingView(building.getBuildingPosition(), building.getType(), building.getLevel(), building.getStaff());
+    }
+
+    private boolean matches(final Building building) {
+        return this.type.equals(building.getType()) && this.level.equals(building.getLevel()) && this.staff.equals(building.getStaff())
+                && this.position.equals(building.getBuildingPosition());
+    }
+
+    public BuildingPosition getPosition() {
+        return this.position;
+    }
+
+    public BuildingType getType() {
+        return this.type;
+    }
+
+    public Level getLevel() {
+        return this.level;
+    }
+
+    public Staff getStaff() {
+        return this.staff;
+    }
+
+    /**
+     * @return <code>true</code> if a building exists in this slot.
+     */
+    public boolean exists() {
+        return this.level.isNotZero();
+    }
+
+    @Override
+    public String toString() {
+        return this.type + " " + this.level + " at " + this.position;
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.view;
+
+import be.yildizgames.common.model.Level;
+import be.yildizgames.engine.feature.city.CityId;
+import be.yildizgames.engine.feature.city.building.BuildingData;
+import be.yildizgames.engine.feature.city.building.BuildingPosition;
+import be.yildizgames.engine.feature.city.building.BuildingType;
+import be.yildizgames.engine.feature.resource.ResourceValue;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Answer the client queries about the cities without going through the frame thread.
+ * Queries only read the immutable views published by a CityViewPublisher and the building data, so they never block the frame
+ * and any number of them can run at the same time. Every answer is consistent with one published version of the city.
+ * Queries can be called directly, or submitted to run on a virtual thread per query, suited to a network layer blocking on its clients.
+ *
+ * @author Grégory Van den Borre
+ */
+public final class CityQueryService implements AutoCloseable {
+
+    private final CityViewPublisher<?, ?, ?> publisher;
+
+    /**
+     * Building data by type, never modified after construction.
+     */
+    private final Map<BuildingType, BuildingData> data = new HashMap<>();
+
+    private final ExecutorService executor;
+
+    /**
+     * Create a new service running the submitted queries on virtual threads.
+     *
+     * @param publisher Publisher of the city views.
+     * @param data      Data of all the building types.
+     */
+    public CityQueryService(final CityViewPublisher<?, ?, ?> publisher, final Collection<? extends BuildingData> data) {
+        this(publisher, data, Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    /**
+     * Create a new service.
+     *
+     * @param publisher Publisher of the city views.
+     * @param data      Data of all the building types.
+     * @param executor  Executor running the submitted queries, closed with this service.
+     */
+    public CityQueryService(final CityViewPublisher<?, ?, ?> publisher, final Collection<? extends BuildingData> data, final ExecutorService executor) {
+        super();
+        this.publisher = publisher;
+        this.executor = executor;
+        for (BuildingData d : data) {
+            this.data.put(d.getType(), d);
+        }
+    }
+
+    /**
+     * @param city City id.
+     * @return The last published view of the city.
+     * @throws IllegalArgumentException If the city has no published view.
+     */
+    public CityView getCity(final CityId city) {
+        CityView view = this.publisher.getView(city);
+        if (view == null) {
+            throw new IllegalArgumentException("Unknown city " + city);
+        }
+        return view;
+    }
+
+    /**
+     * @param city City id.
+     * @return The building types that can still be built in the city, their instance limit is not reached, as published by the city from its own data.
+     * @throws IllegalArgumentException If the city has no published view.
+     */
+    public Set<BuildingType> getAllowedTypes(final CityId city) {
+        return this.getCity(city).getAllowedTypes();
+    }
+
+    /**
+     * @param city     City id.
+     * @param position Building position.
+     * @return The price to upgrade the building to its next level.
+     * @throws IllegalArgumentException If the city has no published view, if there is no building at that position, or if it is at its max level.
+     */
+    public ResourceValue getNextLevelPrice(final CityId city, final BuildingPosition position) {
+        BuildingView b = this.getCity(city).getBuilding(position);
+        if (b == null) {
+            throw new IllegalArgumentException("No building at " + position + " in " + city);
+        }
+        BuildingData d = this.data.get(b.getType());
+        if (d == null || b.getLevel().value >= d.getMaxLevel().value) {
+            throw new IllegalArgumentException(b + " cannot be upgraded.");
+        }
+        return d.getPrice(Level.valueOf(b.getLevel().value + 1));
+    }
+
+    /**
+     * Run a query asynchronously, on its own virtual thread by default.
+     *
+     * @param query Query to run.
+     * @param <T>   Result type.
+     * @return The future result of the query.
+     */
+    public <T> CompletableFuture<T> submit(final Function<CityQueryService, T> query) {
+        return CompletableFuture.supplyAsync(() -> query.apply(this), this.executor);
+    }
+
+    /**
+     * Stop accepting queries and wait for the running ones to complete.
+     */
+    @Override
+    public void close() {
+        this.executor.close();
+    }
+}
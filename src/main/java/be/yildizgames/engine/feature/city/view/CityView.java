@@ -0,0 +1,211 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.view;
+
+import be.yildizgames.common.geometry.Point3D;
+import be.yildizgames.common.model.PlayerId;
+import be.yildizgames.engine.feature.city.City;
+import be.yildizgames.engine.feature.city.CityId;
+import be.yildizgames.engine.feature.city.building.Building;
+import be.yildizgames.engine.feature.city.building.BuildingPosition;
+import be.yildizgames.engine.feature.city.building.BuildingType;
+
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * Immutable state of a city at the time it was published.
+ * The building views of the slots not modified since the previous version are shared with it, as are the allowed building types if they did not change.
+ *
+ * @author Grégory Van den Borre
+ */
+public final class CityView {
+
+    private final CityId id;
+
+    private final String name;
+
+    private final PlayerId owner;
+
+    private final Point3D position;
+
+    /**
+     * Version of the view, incremented every time a new view of the city is published.
+     */
+    private final long version;
+
+    private final BuildingView[] buildings;
+
+    private final List<BuildingView> buildingList;
+
+    /**
+     * Building types that can still be built, computed by the city from its own building data.
+     */
+    private final Set<BuildingType> allowedTypes;
+
+    private CityView(final CityId id, final String name, final PlayerId owner, final Point3D position, final long version, final BuildingView[] buildings,
+                     final Set<BuildingType> allowedTypes) {
+        super();
+        this.id = id;
+        this.name = name;
+        this.owner = owner;
+        this.position = position;
+        this.version = version;
+        this.buildings = buildings;
+        this.buildingList = new Buildings(buildings);
+        this.allowedTypes = allowedTypes;
+    }
+
+    /**
+     * Get the view of a city, reusing the previous one or its building views if nothing changed.
+     *
+     * @param city     Live city.
+     * @param previous Previous view of the city, can be null.
+     * @return The view of the city.
+     */
+    static CityView of(final City<?, ?> city, final CityView previous) {
+        List<? extends Building> live = city.getBuildings();
+        BuildingView[] views = null;
+        for (int i = 0; i < live.size(); i++) {
+            BuildingView old = previous != null && i < previous.buildings.length ? previous.buildings[i] : null;
+            BuildingView current = BuildingView.of(live.get(i), old);
+            if (views == null && current != old) {
+                views = new BuildingView[live.size()];
+                if (previous != null) {
+                    System.arraycopy(previous.buildings, 0, views, 0, Math.min(i, previous.buildings.length));
+                }
+            }
+            if (views != null) {
+                views[i] = current;
+            }
+        }
+        Set<BuildingType> allowed = city.getAllowedType();
+        Set<BuildingType> allowedTypes = previous != null && previous.allowedTypes.equals(allowed) ? previous.allowedTypes : Collections.unmodifiableSet(allowed);
+        if (previous != null) {
+            if (views == null && live.size() != previous.buildings.length) {
+                views = new BuildingView[live.size()];
+                System.arraycopy(previous.buildings, 0, views, 0, live.size());
+            }
+            if (views == null && allowedTypes == previous.allowedTypes && previous.owner.equals(city.getOwner()) && previous.name.equals(city.getName())) {
+                return previous;
+            }
+            return new CityView(city.getId(), city.getName(), city.getOwner(), city.getPosition(), previous.version + 1, views == null ? previous.buildings : views,
+                    allowedTypes);
+        }
+        return new CityView(city.getId(), city.getName(), city.getOwner(), city.getPosition(), 0, views == null ? new BuildingView[0] : views, allowedTypes);
+    }
+
+    public CityId getId() {
+        return this.id;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public PlayerId getOwner() {
+        return this.owner;
+    }
+
+    public Point3D getPosition() {
+        return this.position;
+    }
+
+    /**
+     * @return The version of the view, incremented every time the city changes.
+     */
+    public long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * @return The views of all created buildings ordered by position, unmodifiable.
+     */
+    public List<BuildingView> getBuildings() {
+        return this.buildingList;
+    }
+
+    /**
+     * @return The building types that can still be built in the city, their instance limit is not reached, unmodifiable.
+     */
+    public Set<BuildingType> getAllowedTypes() {
+        return this.allowedTypes;
+    }
+
+    /**
+     * @param index Index of the building in the building list.
+     * @return The view of the building.
+     */
+    public BuildingView getBuilding(final int index) {
+        return this.buildings[index];
+    }
+
+    /**
+     * @param position Position of the building in the city.
+     * @return The view of the building at that position, null if no building was created there.
+     */
+    public BuildingView getBuilding(final BuildingPosition position) {
+        int low = 0;
+        int high = this.buildings.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int value = this.buildings[mid].getPosition().value;
+            if (value < position.value) {
+                low = mid + 1;
+            } else if (value > position.value) {
+                high = mid - 1;
+            } else {
+                return this.buildings[mid];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Unmodifiable list over the building views array, the array is never modified once published.
+     */
+    private static final class Buildings extends AbstractList<BuildingView> implements RandomAccess {
+
+        private final BuildingView[] views;
+
+        private Buildings(final BuildingView[] views) {
+            super();
+            this.views = views;
+        }
+
+        @Override
+        public BuildingView get(final int index) {
+            return this.views[index];
+        }
+
+        @Override
+        public int size() {
+            return this.views.length;
+        }
+    }
+}
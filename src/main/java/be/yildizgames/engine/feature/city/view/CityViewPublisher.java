@@ -0,0 +1,150 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.view;
+
+import be.yildizgames.common.frame.EndFrameListener;
+import be.yildizgames.engine.feature.city.City;
+import be.yildizgames.engine.feature.city.CityId;
+import be.yildizgames.engine.feature.city.CityManager;
+import be.yildizgames.engine.feature.city.building.Building;
+import be.yildizgames.engine.feature.city.building.BuildingData;
+import be.yildizgames.engine.feature.city.building.construction.BuildingConstructionListener;
+import be.yildizgames.engine.feature.city.building.staff.Staff;
+import be.yildizgames.engine.feature.city.building.staff.StaffAllocationListener;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Publish immutable views of the cities at the end of every frame.
+ * Register it in the construction and staff managers: the cities modified during the frame are published again, the others keep their view.
+ * Other modifications, like a city transfer, must be signaled with markDirty, the cities modified by commands are signaled by registering
+ * markDirty in the CityCommandDispatcher, which must then run before this publisher in the frame.
+ * Writes are done by the frame thread only, views can be read from any thread without lock.
+ *
+ * @param <B> Building implementation.
+ * @param <D> Building data implementation.
+ * @param <C> City implementation.
+ * @author Grégory Van den Borre
+ */
+public final class CityViewPublisher<B extends Building, D extends BuildingData, C extends City<B, D>> extends EndFrameListener
+        implements BuildingConstructionListener<B, D, C>, StaffAllocationListener<B, D, C> {
+
+    /**
+     * Last published view by city.
+     */
+    private final Map<CityId, CityView> views = new ConcurrentHashMap<>();
+
+    private final Collection<CityView> readOnlyViews = Collections.unmodifiableCollection(this.views.values());
+
+    /**
+     * Cities modified since the last publication.
+     */
+    private final Set<C> dirty = new LinkedHashSet<>();
+
+    /**
+     * Create a new publisher, all existing cities are published immediately.
+     *
+     * @param cityManager Manager holding the cities.
+     */
+    public CityViewPublisher(final CityManager<B, D, C> cityManager) {
+        super();
+        for (C c : cityManager.getCities()) {
+            this.publish(c);
+        }
+    }
+
+    /**
+     * Publish the view of a city now, to use when a city is created.
+     *
+     * @param city City to publish.
+     */
+    public void publish(final C city) {
+        this.views.compute(city.getId(), (k, previous) -> CityView.of(city, previous));
+    }
+
+    /**
+     * Signal a city modification, it will be published at the end of the frame.
+     *
+     * @param city Modified city.
+     */
+    public void markDirty(final C city) {
+        this.dirty.add(city);
+    }
+
+    /**
+     * Remove the view of a city no longer existing.
+     *
+     * @param city City id.
+     */
+    public void remove(final CityId city) {
+        this.views.remove(city);
+    }
+
+    /**
+     * @param city City id.
+     * @return The last published view of the city, null if the city was never published.
+     */
+    public CityView getView(final CityId city) {
+        return this.views.get(city);
+    }
+
+    /**
+     * @return The last published views of all cities, each view is consistent but views may come from different frames.
+     */
+    public Collection<CityView> getViews() {
+        return this.readOnlyViews;
+    }
+
+    @Override
+    public boolean frameEnded(final long time) {
+        if (!this.dirty.isEmpty()) {
+            for (C c : this.dirty) {
+                this.publish(c);
+            }
+            this.dirty.clear();
+        }
+        return true;
+    }
+
+    @Override
+    public void buildingComplete(final C city, final B b) {
+        this.markDirty(city);
+    }
+
+    @Override
+    public void allocationStarted(final C city, final B building, final Staff number, final long timeLeft) {
+        this.markDirty(city);
+    }
+
+    @Override
+    public void staffAllocated(final C city, final B building, final Staff number) {
+        this.markDirty(city);
+    }
+}
@@ -0,0 +1,6 @@
+/**
+ * Immutable views of the cities, published by the frame thread and readable from any thread.
+ *
+ * @author Grégory Van den Borre
+ */
+package be.yildizgames.engine.feature.city.view;
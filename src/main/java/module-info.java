@@ -29,12 +29,22 @@ module be.yildizgames.feature.city.shared {
     requires be.yildizgames.common.mapping;
     requires be.yildizgames.common.mapping.model;
     requires be.yildizgames.common.frame;
+    requires java.management;
 
     exports be.yildizgames.engine.feature.city;
     exports be.yildizgames.engine.feature.city.building;
     exports be.yildizgames.engine.feature.city.building.construction;
+    exports be.yildizgames.engine.feature.city.command;
+    exports be.yildizgames.engine.feature.city.event;
+    exports be.yildizgames.engine.feature.city.journal;
+    exports be.yildizgames.engine.feature.city.metrics;
+    exports be.yildizgames.engine.feature.city.planner;
     exports be.yildizgames.engine.feature.city.building.staff;
     exports be.yildizgames.engine.feature.city.protocol;
     exports be.yildizgames.engine.feature.city.protocol.mapper;
+    exports be.yildizgames.engine.feature.city.shard;
+    exports be.yildizgames.engine.feature.city.snapshot;
+    exports be.yildizgames.engine.feature.city.timer;
+    exports be.yildizgames.engine.feature.city.view;
 
 }
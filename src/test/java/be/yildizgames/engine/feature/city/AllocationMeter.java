@@ -0,0 +1,87 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+
+/**
+ * Measure the bytes allocated by the current thread, with the HotSpot thread bean.
+ *
+ * @author Grégory Van den Borre
+ */
+public final class AllocationMeter {
+
+    private final Object bean = ManagementFactory.getThreadMXBean();
+
+    private final Method allocated;
+
+    /**
+     * Bytes allocated by a measure without any code to measure.
+     */
+    private final long overhead;
+
+    public AllocationMeter() {
+        super();
+        try {
+            this.allocated = Class.forName("com.sun.management.ThreadMXBean").getMethod("getCurrentThreadAllocatedBytes");
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Allocation measure not supported by this JVM.", e);
+        }
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            min = Math.min(min, this.measureOnce(() -> {}));
+        }
+        this.overhead = min;
+    }
+
+    /**
+     * Run an action several times and keep the smallest allocation, to ignore the one time allocations of the JVM, like class loading.
+     *
+     * @param action Action to measure.
+     * @return The number of bytes allocated by the action.
+     */
+    public long measure(final Runnable action) {
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            min = Math.min(min, this.measureOnce(action));
+        }
+        return min - this.overhead;
+    }
+
+    private long measureOnce(final Runnable action) {
+        long before = this.read();
+        action.run();
+        return this.read() - before;
+    }
+
+    private long read() {
+        try {
+            return (Long) this.allocated.invoke(this.bean);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
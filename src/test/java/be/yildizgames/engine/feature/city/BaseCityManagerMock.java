@@ -28,19 +28,35 @@ import be.yildizgames.common.geometry.Point3D;
 import be.yildizgames.common.model.PlayerId;
 import be.yildizgames.engine.feature.city.building.Building;
 import be.yildizgames.engine.feature.city.building.BuildingData;
+import be.yildizgames.engine.feature.resource.ResourceValue;
 
 /**
  * @author Grégory Van den Borre
  */
 public class BaseCityManagerMock extends BaseCityManager<Building, BuildingData, BaseCity<Building, BuildingData>> {
 
+    /**
+     * Number of building positions in every created city.
+     */
+    public static final int POSITIONS = 5;
 
-    public BaseCityManagerMock() {
-        super(new BuildingTypeFactoryMock());
+    private final BuildingTypeFactoryMock factory;
+
+    public BaseCityManagerMock(BuildingData... data) {
+        this(new BuildingTypeFactoryMock(data));
+    }
+
+    private BaseCityManagerMock(BuildingTypeFactoryMock factory) {
+        super(factory);
+        this.factory = factory;
     }
 
     @Override
     protected final BaseCity<Building, BuildingData> createCityImpl(CityId id, PlayerId owner, Point3D position) {
-        return null;// new BaseCity<>(id, new ResourceValue(new float[]{1000, 1000, 1000}), new Point3D[]{}, new HashMap<>());
+        Point3D[] offsets = new Point3D[POSITIONS];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = Point3D.valueOf(i, 0, 0);
+        }
+        return new BaseCity<>(id, owner, position, new ResourceValue(new float[]{1000, 1000, 1000}), offsets, this.factory.getRegisteredData());
     }
 }
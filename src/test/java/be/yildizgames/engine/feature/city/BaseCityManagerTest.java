@@ -24,33 +24,83 @@
 
 package be.yildizgames.engine.feature.city;
 
+import be.yildizgames.common.geometry.Point3D;
+import be.yildizgames.common.model.PlayerId;
 import be.yildizgames.engine.feature.city.building.Building;
 import be.yildizgames.engine.feature.city.building.BuildingData;
-import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * @author Grégory Van den Borre
  */
-@Disabled
 public class BaseCityManagerTest {
 
+    private static final PlayerId OWNER = PlayerId.valueOf(6);
+
+    private static final PlayerId OTHER = PlayerId.valueOf(7);
+
     @Test
     public void testSetOwnerCityPlayer() {
+        CityManager<Building, BuildingData, BaseCity<Building, BuildingData>> cm = givenACityManager();
+        cm.createCity(CityId.valueOf(5), OWNER, Point3D.ZERO);
+        cm.createCity(CityId.valueOf(6), OWNER, Point3D.ZERO);
+        cm.transferCity(CityId.valueOf(5), OTHER);
+        Assertions.assertEquals(OTHER, cm.getCityById(CityId.valueOf(5)).getOwner());
+        Assertions.assertEquals(1, cm.getCityCount(OWNER));
+        Assertions.assertEquals(1, cm.getCityCount(OTHER));
+        Assertions.assertTrue(cm.getCities(OTHER).contains(cm.getCityById(CityId.valueOf(5))));
+        Assertions.assertFalse(cm.getCities(OWNER).contains(cm.getCityById(CityId.valueOf(5))));
+    }
 
+    @Test
+    public void testTransferUnknownCity() {
+        CityManager<Building, BuildingData, BaseCity<Building, BuildingData>> cm = givenACityManager();
+        Assertions.assertThrows(IllegalArgumentException.class, () -> cm.transferCity(CityId.valueOf(5), OTHER));
     }
 
     @Test
     public void createCity() {
-        /*CityManager cm = givenACityManager();
-        assertEquals(0, cm.getCities().size());
-        assertEquals(0, cm.getCities().size());
-        assertEquals(0, cm.getCities(e.getOwner()).size());
-        cm.createCity(e);
-        assertEquals(1, cm.getCities().size());
-        assertEquals(PlayerId.valueOf(6), cm.getCityById(EntityId.valueOf(5L)).getOwner());
-        assertEquals(1, cm.getCities(e.getOwner()).size());
-        Assertions.assertNotNull(cm.getCityById(e.getId()));*/
+        CityManager<Building, BuildingData, BaseCity<Building, BuildingData>> cm = givenACityManager();
+        Assertions.assertEquals(0, cm.getCities().size());
+        Assertions.assertEquals(0, cm.getCities(OWNER).size());
+        Assertions.assertEquals(0, cm.getCityCount(OWNER));
+        cm.createCity(CityId.valueOf(5), OWNER, Point3D.ZERO);
+        Assertions.assertEquals(1, cm.getCities().size());
+        Assertions.assertEquals(OWNER, cm.getCityById(CityId.valueOf(5)).getOwner());
+        Assertions.assertEquals(1, cm.getCities(OWNER).size());
+        Assertions.assertEquals(1, cm.getCityCount(OWNER));
+        Assertions.assertNotNull(cm.getCityById(CityId.valueOf(5)));
+    }
+
+    @Test
+    public void getCitiesIsSortedAndReadOnly() {
+        CityManager<Building, BuildingData, BaseCity<Building, BuildingData>> cm = givenACityManager();
+        cm.createCity(CityId.valueOf(9), OWNER, Point3D.ZERO);
+        cm.createCity(CityId.valueOf(2), OWNER, Point3D.ZERO);
+        cm.createCity(CityId.valueOf(5), OWNER, Point3D.ZERO);
+        List<CityId> ids = new ArrayList<>();
+        cm.getCities(OWNER).forEach(c -> ids.add(c.getId()));
+        Assertions.assertEquals(List.of(CityId.valueOf(2), CityId.valueOf(5), CityId.valueOf(9)), ids);
+        List<CityId> iterated = new ArrayList<>();
+        cm.forEachCity(OWNER, c -> iterated.add(c.getId()));
+        Assertions.assertEquals(ids, iterated);
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> cm.getCities(OWNER).clear());
+    }
+
+    @Test
+    public void removeCity() {
+        CityManager<Building, BuildingData, BaseCity<Building, BuildingData>> cm = givenACityManager();
+        cm.createCity(CityId.valueOf(5), OWNER, Point3D.ZERO);
+        cm.createCity(CityId.valueOf(6), OWNER, Point3D.ZERO);
+        Assertions.assertEquals(CityId.valueOf(5), cm.removeCity(CityId.valueOf(5)).getId());
+        Assertions.assertNull(cm.getCityById(CityId.valueOf(5)));
+        Assertions.assertEquals(1, cm.getCityCount(OWNER));
+        Assertions.assertEquals(CityId.valueOf(6), cm.findNearest(Point3D.ZERO).getId());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> cm.removeCity(CityId.valueOf(5)));
     }
 
     private CityManager<Building,BuildingData,BaseCity<Building,BuildingData>> givenACityManager() {
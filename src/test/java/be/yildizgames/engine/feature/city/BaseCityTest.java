@@ -0,0 +1,141 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city;
+
+import be.yildizgames.common.geometry.Point3D;
+import be.yildizgames.common.model.Level;
+import be.yildizgames.common.model.PlayerId;
+import be.yildizgames.engine.feature.city.building.BaseBuilding;
+import be.yildizgames.engine.feature.city.building.Building;
+import be.yildizgames.engine.feature.city.building.BuildingData;
+import be.yildizgames.engine.feature.city.building.BuildingDataMock;
+import be.yildizgames.engine.feature.city.building.BuildingPosition;
+import be.yildizgames.engine.feature.city.building.BuildingType;
+import be.yildizgames.engine.feature.city.building.staff.Staff;
+import be.yildizgames.engine.feature.city.command.CityCommand;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Grégory Van den Borre
+ */
+public class BaseCityTest {
+
+    private static final BuildingData DATA = new BuildingDataMock(BuildingType.register(340, "slot"), false, 10, 20);
+
+    private final BaseCity<Building, BuildingData> city = new BaseCityManagerMock(DATA).createCity(CityId.valueOf(1), PlayerId.valueOf(1), Point3D.ZERO);
+
+    @Test
+    public void createOutOfOrder() {
+        this.city.createConstruction(this.building(3, 1));
+        this.city.createConstruction(this.building(1, 1));
+        Assertions.assertEquals(BaseCityManagerMock.POSITIONS, this.city.getSlotCount());
+        Assertions.assertEquals(2, this.city.getBuildingCount());
+        Assertions.assertEquals(BuildingPosition.valueOf(1), this.city.getBuildings().get(0).getBuildingPosition());
+        Assertions.assertEquals(BuildingPosition.valueOf(3), this.city.getBuildings().get(1).getBuildingPosition());
+        Assertions.assertEquals(BuildingPosition.valueOf(3), this.city.getBuilding(BuildingPosition.valueOf(3)).getBuildingPosition());
+        Assertions.assertNull(this.city.getBuilding(BuildingPosition.valueOf(2)));
+    }
+
+    @Test
+    public void replaceBuilding() {
+        this.city.createConstruction(this.building(2, 1));
+        this.city.createConstruction(this.building(2, 4));
+        Assertions.assertEquals(1, this.city.getBuildingCount());
+        Assertions.assertEquals(Level.valueOf(4), this.city.getBuilding(BuildingPosition.valueOf(2)).getLevel());
+    }
+
+    @Test
+    public void forEachBuildingInPositionOrder() {
+        this.city.createConstruction(this.building(4, 1));
+        this.city.createConstruction(this.building(0, 1));
+        this.city.createConstruction(this.building(2, 1));
+        List<Integer> positions = new ArrayList<>();
+        this.city.forEachBuilding(b -> positions.add(b.getBuildingPosition().value));
+        Assertions.assertEquals(List.of(0, 2, 4), positions);
+    }
+
+    @Test
+    public void positionOutOfBounds() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> this.city.createConstruction(this.building(BaseCityManagerMock.POSITIONS, 1)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> this.city.getBuilding(BuildingPosition.valueOf(BaseCityManagerMock.POSITIONS)));
+        Assertions.assertEquals(0, this.city.getBuildingCount());
+    }
+
+    @Test
+    public void buildingFromAnotherCity() {
+        Building other = new BaseBuilding(CityId.valueOf(2), DATA, BuildingPosition.valueOf(0), Level.ONE, Staff.valueOf(0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> this.city.createConstruction(other));
+    }
+
+    @Test
+    public void buildingsAreReadOnly() {
+        this.city.createConstruction(this.building(0, 1));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> this.city.getBuildings().clear());
+    }
+
+    @Test
+    public void typeIndexFollowsReplacements() {
+        this.city.createConstruction(this.building(0, 0));
+        Assertions.assertEquals(0, this.city.countByType(DATA.getType()));
+        Assertions.assertTrue(this.city.getAllowedType().contains(DATA.getType()));
+        this.city.createConstruction(this.building(0, 5));
+        Assertions.assertEquals(1, this.city.countByType(DATA.getType()));
+        Assertions.assertTrue(this.city.hasBuilding(DATA.getType(), Level.valueOf(5)));
+        Assertions.assertFalse(this.city.hasBuilding(DATA.getType(), Level.valueOf(6)));
+        Assertions.assertTrue(this.city.isInstanceLimitReached(DATA.getType()));
+        Assertions.assertFalse(this.city.getAllowedType().contains(DATA.getType()));
+        this.city.createConstruction(this.building(0, 0));
+        Assertions.assertEquals(0, this.city.countByType(DATA.getType()));
+        Assertions.assertTrue(this.city.getBuildings(DATA.getType()).isEmpty());
+    }
+
+    @Test
+    public void typeIndexFollowsLevelChanges() {
+        this.city.createConstruction(this.building(0, 0));
+        CityCommand.<BaseCity<Building, BuildingData>>setLevel(BuildingPosition.valueOf(0), Level.valueOf(3)).execute(this.city);
+        Assertions.assertEquals(1, this.city.countByType(DATA.getType()));
+        Assertions.assertTrue(this.city.hasBuilding(DATA.getType(), Level.valueOf(3)));
+        Assertions.assertTrue(this.city.isInstanceLimitReached(DATA.getType()));
+        Assertions.assertFalse(this.city.getAllowedType().contains(DATA.getType()));
+        CityCommand.<BaseCity<Building, BuildingData>>setLevel(BuildingPosition.valueOf(0), Level.valueOf(0)).execute(this.city);
+        Assertions.assertEquals(0, this.city.countByType(DATA.getType()));
+        Assertions.assertTrue(this.city.getAllowedType().contains(DATA.getType()));
+    }
+
+    @Test
+    public void getAllowedTypeDoesNotModifyTheCity() {
+        this.city.getAllowedType().clear();
+        Assertions.assertFalse(this.city.getAllowedType().isEmpty());
+        Assertions.assertNotNull(this.city.getByType(DATA.getType()));
+    }
+
+    private Building building(int position, int level) {
+        return new BaseBuilding(this.city.getId(), DATA, BuildingPosition.valueOf(position), Level.valueOf(level), Staff.valueOf(0));
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city;
+
+import be.yildizgames.common.geometry.Point3D;
+import be.yildizgames.common.model.Level;
+import be.yildizgames.common.model.PlayerId;
+import be.yildizgames.engine.feature.city.building.BaseBuilding;
+import be.yildizgames.engine.feature.city.building.Building;
+import be.yildizgames.engine.feature.city.building.BuildingData;
+import be.yildizgames.engine.feature.city.building.BuildingDataMock;
+import be.yildizgames.engine.feature.city.building.BuildingPosition;
+import be.yildizgames.engine.feature.city.building.BuildingType;
+import be.yildizgames.engine.feature.city.building.staff.Staff;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+/**
+ * @author Grégory Van den Borre
+ */
+public class BuildingStatisticsTest {
+
+    private static final BuildingData FARM = new BuildingDataMock(BuildingType.register(350, "farm"), false, 20, 30);
+
+    private static final BuildingData MINE = new BuildingDataMock(BuildingType.register(351, "mine"), false, 20, 30);
+
+    private final BaseCityManagerMock manager = new BaseCityManagerMock(FARM, MINE);
+
+    private final BuildingStatistics statistics = this.manager.getStatistics();
+
+    @Test
+    public void countAcrossCities() {
+        BaseCity<Building, BuildingData> first = this.givenACity(1);
+        BaseCity<Building, BuildingData> second = this.givenACity(2);
+        first.createConstruction(building(first, FARM, 0, 2, 5));
+        first.createConstruction(building(first, MINE, 1, 1, 3));
+        second.createConstruction(building(second, FARM, 0, 2, 4));
+        second.createConstruction(building(second, FARM, 1, 0, 0));
+        Assertions.assertEquals(2, this.statistics.getCount(FARM.getType(), 2));
+        Assertions.assertEquals(2, this.statistics.getCount(FARM.getType()));
+        Assertions.assertEquals(9, this.statistics.getStaff(FARM.getType()));
+        Assertions.assertEquals(1, this.statistics.getCount(MINE.getType(), 1));
+        Assertions.assertEquals(3, this.statistics.getStaff(MINE.getType()));
+    }
+
+    @Test
+    public void replacementMovesTheCount() {
+        BaseCity<Building, BuildingData> city = this.givenACity(1);
+        city.createConstruction(building(city, FARM, 0, 2, 5));
+        city.createConstruction(building(city, FARM, 0, 3, 1));
+        Assertions.assertEquals(0, this.statistics.getCount(FARM.getType(), 2));
+        Assertions.assertEquals(1, this.statistics.getCount(FARM.getType(), 3));
+        Assertions.assertEquals(1, this.statistics.getStaff(FARM.getType()));
+        Assertions.assertEquals(3, this.statistics.getMaxLevel(FARM.getType()));
+    }
+
+    @Test
+    public void inPlaceChangeNeedsNotification() {
+        BaseCity<Building, BuildingData> city = this.givenACity(1);
+        Building b = building(city, FARM, 0, 2, 5);
+        city.createConstruction(b);
+        b.setLevel(Level.valueOf(15));
+        b.setStaff(Staff.valueOf(7));
+        Assertions.assertEquals(1, this.statistics.getCount(FARM.getType(), 2));
+        city.buildingUpdated(b.getBuildingPosition());
+        Assertions.assertEquals(0, this.statistics.getCount(FARM.getType(), 2));
+        Assertions.assertEquals(1, this.statistics.getCount(FARM.getType(), 15));
+        Assertions.assertEquals(7, this.statistics.getStaff(FARM.getType()));
+    }
+
+    @Test
+    public void removedCityIsNotCounted() {
+        BaseCity<Building, BuildingData> city = this.givenACity(1);
+        city.createConstruction(building(city, FARM, 0, 2, 5));
+        this.manager.removeCity(city.getId());
+        Assertions.assertEquals(0, this.statistics.getCount(FARM.getType()));
+        Assertions.assertEquals(0, this.statistics.getStaff(FARM.getType()));
+    }
+
+    @Test
+    public void writeCsv() throws IOException {
+        BaseCity<Building, BuildingData> city = this.givenACity(1);
+        city.createConstruction(building(city, MINE, 0, 1, 3));
+        city.createConstruction(building(city, FARM, 1, 2, 5));
+        city.createConstruction(building(city, FARM, 2, 2, 1));
+        StringBuilder out = new StringBuilder();
+        this.statistics.writeCsv(out);
+        Assertions.assertEquals("type,name,level,count,staff\n350,farm,2,2,6\n351,mine,1,1,3\n", out.toString());
+    }
+
+    private BaseCity<Building, BuildingData> givenACity(final int id) {
+        return this.manager.createCity(CityId.valueOf(id), PlayerId.valueOf(1), Point3D.ZERO);
+    }
+
+    private static Building building(final BaseCity<Building, BuildingData> city, final BuildingData data, final int position, final int level, final int staff) {
+        return new BaseBuilding(city.getId(), data, BuildingPosition.valueOf(position), Level.valueOf(level), Staff.valueOf(staff));
+    }
+}
@@ -38,9 +38,18 @@ import java.util.Map;
  */
 public class BuildingTypeFactoryMock implements BuildingTypeFactory<Building, BuildingData> {
 
+    private final Map<BuildingType, BuildingData> data = new HashMap<>();
+
+    public BuildingTypeFactoryMock(BuildingData... data) {
+        super();
+        for (BuildingData d : data) {
+            this.data.put(d.getType(), d);
+        }
+    }
+
     @Override
     public final Map<BuildingType, BuildingData> getRegisteredData() {
-        return new HashMap<>();
+        return new HashMap<>(this.data);
     }
 
     @Override
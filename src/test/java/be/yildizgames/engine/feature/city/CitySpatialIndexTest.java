@@ -0,0 +1,83 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city;
+
+import be.yildizgames.common.geometry.Point3D;
+import be.yildizgames.common.model.PlayerId;
+import be.yildizgames.engine.feature.city.building.Building;
+import be.yildizgames.engine.feature.city.building.BuildingData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * @author Grégory Van den Borre
+ */
+public class CitySpatialIndexTest {
+
+    @Test
+    public void findNearestEmpty() {
+        Assertions.assertNull(new BaseCityManagerMock().findNearest(Point3D.ZERO));
+    }
+
+    @Test
+    public void queriesMatchLinearScan() {
+        CityManager<Building, BuildingData, BaseCity<Building, BuildingData>> cm = new BaseCityManagerMock();
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            cm.createCity(CityId.valueOf(i), PlayerId.valueOf(1), Point3D.valueOf(random.nextFloat() * 20000 - 10000, random.nextFloat() * 50, random.nextFloat() * 20000 - 10000));
+        }
+        List<BaseCity<Building, BuildingData>> all = cm.getCities();
+        for (int i = 0; i < 200; i++) {
+            Point3D p = Point3D.valueOf(random.nextFloat() * 30000 - 15000, random.nextFloat() * 50, random.nextFloat() * 30000 - 15000);
+            BaseCity<Building, BuildingData> expected = all.stream().min(Comparator.comparingDouble(c -> distance(c.getPosition(), p))).orElseThrow();
+            Assertions.assertEquals(distance(expected.getPosition(), p), distance(cm.findNearest(p).getPosition(), p), 0.0001);
+
+            float radius = random.nextFloat() * 3000;
+            Set<CityId> inRadius = all.stream().filter(c -> distance(c.getPosition(), p) <= radius * radius).map(City::getId).collect(Collectors.toSet());
+            Assertions.assertEquals(inRadius, cm.findWithinRadius(p, radius).stream().map(City::getId).collect(Collectors.toSet()));
+
+            Point3D max = p.add(radius, radius, radius);
+            Set<CityId> inBox = all.stream().filter(c -> inBox(c.getPosition(), p, max)).map(City::getId).collect(Collectors.toSet());
+            Assertions.assertEquals(inBox, cm.findInBox(p, max).stream().map(City::getId).collect(Collectors.toSet()));
+        }
+    }
+
+    private static double distance(Point3D a, Point3D b) {
+        double x = a.x - b.x;
+        double y = a.y - b.y;
+        double z = a.z - b.z;
+        return x * x + y * y + z * z;
+    }
+
+    private static boolean inBox(Point3D p, Point3D min, Point3D max) {
+        return p.x >= min.x && p.x <= max.x && p.y >= min.y && p.y <= max.y && p.z >= min.z && p.z <= max.z;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.building;
+
+import be.yildizgames.common.model.Level;
+import be.yildizgames.engine.feature.city.building.staff.Staff;
+import be.yildizgames.engine.feature.resource.ResourceValue;
+import be.yildizgames.engine.feature.resource.bonus.BonusResources;
+
+import java.time.Duration;
+
+/**
+ * Building data where the price is 10 by resource and by level, and time to build is 1 second by level.
+ *
+ * @author Grégory Van den Borre
+ */
+public class BuildingDataMock implements BuildingData {
+
+    private final BuildingType type;
+
+    private final boolean builder;
+
+    private final Level maxLevel;
+
+    private final Staff maxPopulation;
+
+    public BuildingDataMock(BuildingType type, boolean builder, int maxLevel, int maxPopulation) {
+        this.type = type;
+        this.builder = builder;
+        this.maxLevel = Level.valueOf(maxLevel);
+        this.maxPopulation = Staff.valueOf(maxPopulation);
+    }
+
+    @Override
+    public BuildingType getType() {
+        return this.type;
+    }
+
+    @Override
+    public ResourceValue getPrice() {
+        return this.getPrice(Level.ONE);
+    }
+
+    @Override
+    public Duration getTimeToBuild() {
+        return this.getTimeToBuild(Level.ONE);
+    }
+
+    @Override
+    public BonusResources getStaffBonus(Staff staff) {
+        return null;
+    }
+
+    @Override
+    public BonusResources getLevelBonus(Level level) {
+        return null;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return false;
+    }
+
+    @Override
+    public boolean isBuilder() {
+        return this.builder;
+    }
+
+    @Override
+    public boolean hasRatioBonus() {
+        return false;
+    }
+
+    @Override
+    public ResourceValue getPrice(Level level) {
+        float price = level.value * 10f;
+        return new ResourceValue(new float[]{price, price, price});
+    }
+
+    @Override
+    public Duration getTimeToBuild(Level level) {
+        return Duration.ofSeconds(level.value);
+    }
+
+    @Override
+    public Staff getMaxPopulation(Level level) {
+        return this.maxPopulation;
+    }
+
+    @Override
+    public Level getMaxLevel() {
+        return this.maxLevel;
+    }
+
+    @Override
+    public boolean isBuildable() {
+        return true;
+    }
+}
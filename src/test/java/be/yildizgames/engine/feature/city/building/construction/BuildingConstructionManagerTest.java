@@ -0,0 +1,246 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.building.construction;
+
+import be.yildizgames.common.geometry.Point3D;
+import be.yildizgames.common.model.Level;
+import be.yildizgames.common.model.PlayerId;
+import be.yildizgames.engine.feature.city.AllocationMeter;
+import be.yildizgames.engine.feature.city.BaseCity;
+import be.yildizgames.engine.feature.city.BaseCityManagerMock;
+import be.yildizgames.engine.feature.city.CityId;
+import be.yildizgames.engine.feature.city.building.BaseBuilding;
+import be.yildizgames.engine.feature.city.building.Building;
+import be.yildizgames.engine.feature.city.building.BuildingData;
+import be.yildizgames.engine.feature.city.building.BuildingDataMock;
+import be.yildizgames.engine.feature.city.building.BuildingPosition;
+import be.yildizgames.engine.feature.city.building.BuildingType;
+import be.yildizgames.engine.feature.city.building.staff.Staff;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Grégory Van den Borre
+ */
+public class BuildingConstructionManagerTest {
+
+    private static final BuildingData HOUSE = new BuildingDataMock(BuildingType.register(320, "slot-house"), false, 10, 20);
+
+    private static final BuildingData WORKSHOP = new BuildingDataMock(BuildingType.register(321, "slot-workshop"), true, 10, 20);
+
+    private final BaseCityManagerMock cityManager = new BaseCityManagerMock(HOUSE, WORKSHOP);
+
+    private final BaseCity<Building, BuildingData> city;
+
+    public BuildingConstructionManagerTest() {
+        this.city = this.cityManager.createCity(CityId.valueOf(1), PlayerId.valueOf(1), Point3D.ZERO);
+        for (int p = 0; p < BaseCityManagerMock.POSITIONS; p++) {
+            this.city.createConstruction(new BaseBuilding(this.city.getId(), HOUSE, BuildingPosition.valueOf(p), Level.ZERO, Staff.valueOf(0)));
+        }
+    }
+
+    @Test
+    public void unlimitedByDefault() {
+        BuildingConstructionManager<Building, BuildingData, BaseCity<Building, BuildingData>> manager = this.createManager(ConstructionSlotPolicy.UNLIMITED);
+        for (int p = 0; p < 3; p++) {
+            manager.createBuilding(this.house(p), 10);
+        }
+        Assertions.assertEquals(3, manager.getActiveConstructionCount(this.city));
+        Assertions.assertTrue(manager.getQueuedBuildings(this.city).isEmpty());
+    }
+
+    @Test
+    public void waitingConstructionsPromotedInOrder() {
+        BuildingConstructionManager<Building, BuildingData, BaseCity<Building, BuildingData>> manager = this.createManager(ConstructionSlotPolicy.builders(1));
+        List<Integer> started = new ArrayList<>();
+        List<Integer> queued = new ArrayList<>();
+        manager.willNotify(new BuildingConstructionListener<>() {
+            @Override
+            public void buildingConstructionStarted(BaseCity<Building, BuildingData> c, Building building, long timeLeft) {
+                started.add(building.getBuildingPosition().value);
+            }
+
+            @Override
+            public void buildingConstructionQueued(BaseCity<Building, BuildingData> c, Building building, long timeLeft) {
+                queued.add(building.getBuildingPosition().value);
+            }
+        });
+        for (int p = 0; p < 3; p++) {
+            manager.createBuilding(this.house(p), 10);
+        }
+        Assertions.assertEquals(List.of(0), started);
+        Assertions.assertEquals(List.of(1, 2), queued);
+        Assertions.assertEquals(2, manager.getQueuedBuildings(this.city).size());
+        manager.frameEnded(5);
+        Assertions.assertEquals(List.of(0), started);
+        manager.frameEnded(5);
+        Assertions.assertEquals(List.of(0, 1), started);
+        Assertions.assertEquals(10, manager.getBuildingList().get(0).getTime());
+        manager.frameEnded(10);
+        Assertions.assertEquals(List.of(0, 1, 2), started);
+        Assertions.assertEquals(1, manager.getActiveConstructionCount(this.city));
+        Assertions.assertTrue(manager.getQueuedBuildings(this.city).isEmpty());
+    }
+
+    @Test
+    public void builderBuildingProvidesSlot() {
+        BuildingConstructionManager<Building, BuildingData, BaseCity<Building, BuildingData>> manager = this.createManager(ConstructionSlotPolicy.builders(1));
+        manager.createBuilding(new BaseBuilding(this.city.getId(), WORKSHOP, BuildingPosition.valueOf(4), Level.ONE, Staff.valueOf(0)), 10);
+        manager.createBuilding(this.house(0), 10);
+        manager.createBuilding(this.house(1), 10);
+        Assertions.assertEquals(2, manager.getQueuedBuildings(this.city).size());
+        manager.frameEnded(10);
+        Assertions.assertEquals(2, manager.getActiveConstructionCount(this.city));
+        Assertions.assertTrue(manager.getQueuedBuildings(this.city).isEmpty());
+    }
+
+    @Test
+    public void instantBuilderStartsWaitingConstruction() {
+        BuildingConstructionManager<Building, BuildingData, BaseCity<Building, BuildingData>> manager = this.createManager(ConstructionSlotPolicy.builders(1));
+        manager.createBuilding(this.house(0), 100);
+        manager.createBuilding(this.house(1), 100);
+        Assertions.assertEquals(1, manager.getQueuedBuildings(this.city).size());
+        manager.createBuilding(new BaseBuilding(this.city.getId(), WORKSHOP, BuildingPosition.valueOf(4), Level.ONE, Staff.valueOf(0)));
+        Assertions.assertEquals(2, manager.getActiveConstructionCount(this.city));
+        Assertions.assertTrue(manager.getQueuedBuildings(this.city).isEmpty());
+    }
+
+    @Test
+    public void speedMultipliers() {
+        BuildingConstructionManager<Building, BuildingData, BaseCity<Building, BuildingData>> manager = this.createManager(ConstructionSlotPolicy.UNLIMITED);
+        manager.getSpeed().setGlobal(2f);
+        manager.createBuilding(this.house(0), 100);
+        WaitingBuilding<Building> w = manager.getBuildingList().get(0);
+        Assertions.assertEquals(50, w.getTime());
+        manager.frameEnded(10);
+        Assertions.assertEquals(40, w.getTime());
+        manager.getSpeed().setPlayer(PlayerId.valueOf(1), 2f);
+        manager.getSpeed().setCity(this.city.getId(), 0.5f);
+        Assertions.assertEquals(40, manager.getTimeLeft(w));
+        manager.getSpeed().resetCity(this.city.getId());
+        Assertions.assertEquals(20, manager.getTimeLeft(w));
+        manager.frameEnded(10);
+        Assertions.assertEquals(15, w.getTime());
+        manager.frameEnded(15);
+        Assertions.assertTrue(manager.getBuildingList().isEmpty());
+        Assertions.assertTrue(manager.getBuildingList(this.city).isEmpty());
+    }
+
+    @Test
+    public void pausedConstruction() {
+        BuildingConstructionManager<Building, BuildingData, BaseCity<Building, BuildingData>> manager = this.createManager(ConstructionSlotPolicy.UNLIMITED);
+        manager.createBuilding(this.house(0), 100);
+        manager.getSpeed().setCity(this.city.getId(), 0);
+        manager.frameEnded(10);
+        manager.frameEnded(1000);
+        Assertions.assertEquals(Long.MAX_VALUE, manager.getBuildingList().get(0).getTime());
+        manager.getSpeed().resetCity(this.city.getId());
+        manager.frameEnded(1000);
+        Assertions.assertEquals(90, manager.getBuildingList().get(0).getTime());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> manager.getSpeed().setGlobal(-1));
+    }
+
+    @Test
+    public void timeLeftComputedOnRequest() {
+        BuildingConstructionManager<Building, BuildingData, BaseCity<Building, BuildingData>> manager = this.createManager(ConstructionSlotPolicy.builders(1));
+        manager.createBuilding(this.house(0), 100);
+        manager.createBuilding(this.house(1), 100);
+        WaitingBuilding<Building> running = manager.getBuildingList().get(0);
+        WaitingBuilding<Building> queued = manager.getQueuedBuildings(this.city).get(0);
+        manager.frameEnded(30);
+        Assertions.assertEquals(70, running.getTime());
+        Assertions.assertEquals(100, queued.getTime());
+        manager.getSpeed().setCity(this.city.getId(), 0.5f);
+        Assertions.assertEquals(70, running.getTime());
+        manager.frameEnded(10);
+        Assertions.assertEquals(120, running.getTime());
+        manager.frameEnded(120);
+        Assertions.assertEquals(0, running.getTime());
+        Assertions.assertEquals(200, queued.getTime());
+    }
+
+    @Test
+    public void steadyStateFrameDoesNotAllocate() {
+        BuildingConstructionManager<Building, BuildingData, BaseCity<Building, BuildingData>> manager = this.createManager(ConstructionSlotPolicy.UNLIMITED);
+        long[] notified = new long[1];
+        manager.willNotify(new BuildingConstructionListener<>() {
+            @Override
+            public void buildingInConstruction(BaseCity<Building, BuildingData> city, Building building, long timeLeft) {
+                notified[0]++;
+            }
+        });
+        for (int p = 0; p < BaseCityManagerMock.POSITIONS; p++) {
+            manager.createBuilding(this.house(p), Long.MAX_VALUE / 2);
+        }
+        AllocationMeter meter = new AllocationMeter();
+        Runnable frames = () -> {
+            for (int i = 0; i < 10_000; i++) {
+                manager.frameEnded(16);
+            }
+        };
+        frames.run();
+        Assertions.assertEquals(0, meter.measure(frames));
+        Assertions.assertEquals(40_000L * BaseCityManagerMock.POSITIONS, notified[0]);
+    }
+
+    @Test
+    public void scopedListeners() {
+        BaseCity<Building, BuildingData> other = this.cityManager.createCity(CityId.valueOf(2), PlayerId.valueOf(2), Point3D.ZERO);
+        BuildingConstructionManager<Building, BuildingData, BaseCity<Building, BuildingData>> manager =
+                new BuildingConstructionManager<>(this.cityManager, b -> this.cityManager.getCityById(b.getCity()).createConstruction(b));
+        List<String> events = new ArrayList<>();
+        BuildingConstructionListener<Building, BuildingData, BaseCity<Building, BuildingData>> byCity = this.completed(events, "city");
+        manager.willNotify(this.city.getId(), byCity);
+        manager.willNotify(PlayerId.valueOf(2), this.completed(events, "owner"));
+        manager.willNotify(WORKSHOP.getType(), this.completed(events, "type"));
+        manager.createBuilding(this.house(0));
+        manager.createBuilding(new BaseBuilding(other.getId(), HOUSE, BuildingPosition.valueOf(0), Level.ONE, Staff.valueOf(0)));
+        manager.createBuilding(new BaseBuilding(this.city.getId(), WORKSHOP, BuildingPosition.valueOf(4), Level.ONE, Staff.valueOf(0)));
+        Assertions.assertEquals(List.of("city", "owner", "city", "type"), events);
+        manager.removeListener(byCity);
+        manager.createBuilding(this.house(1));
+        Assertions.assertEquals(4, events.size());
+    }
+
+    private BuildingConstructionListener<Building, BuildingData, BaseCity<Building, BuildingData>> completed(List<String> events, String name) {
+        return new BuildingConstructionListener<>() {
+            @Override
+            public void buildingComplete(BaseCity<Building, BuildingData> c, Building b) {
+                events.add(name);
+            }
+        };
+    }
+
+    private Building house(int position) {
+        return new BaseBuilding(this.city.getId(), HOUSE, BuildingPosition.valueOf(position), Level.ONE, Staff.valueOf(0));
+    }
+
+    private BuildingConstructionManager<Building, BuildingData, BaseCity<Building, BuildingData>> createManager(ConstructionSlotPolicy policy) {
+        return new BuildingConstructionManager<>(this.cityManager, b -> this.city.createConstruction(b), policy);
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.building.staff;
+
+import be.yildizgames.common.geometry.Point3D;
+import be.yildizgames.common.model.Level;
+import be.yildizgames.common.model.PlayerId;
+import be.yildizgames.engine.feature.city.AllocationMeter;
+import be.yildizgames.engine.feature.city.BaseCity;
+import be.yildizgames.engine.feature.city.BaseCityManagerMock;
+import be.yildizgames.engine.feature.city.CityId;
+import be.yildizgames.engine.feature.city.building.BaseBuilding;
+import be.yildizgames.engine.feature.city.building.Building;
+import be.yildizgames.engine.feature.city.building.BuildingData;
+import be.yildizgames.engine.feature.city.building.BuildingDataMock;
+import be.yildizgames.engine.feature.city.building.BuildingPosition;
+import be.yildizgames.engine.feature.city.building.BuildingType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Grégory Van den Borre
+ */
+public class StaffAllocatorManagerTest {
+
+    private static final BuildingData DATA = new BuildingDataMock(BuildingType.register(290, "staff"), false, 10, 20);
+
+    private final BaseCityManagerMock cityManager = new BaseCityManagerMock(DATA);
+
+    private final StaffAllocatorManager<Building, BuildingData, BaseCity<Building, BuildingData>> manager = new StaffAllocatorManager<>(cityManager);
+
+    private final BaseCity<Building, BuildingData> city;
+
+    public StaffAllocatorManagerTest() {
+        this.city = this.cityManager.createCity(CityId.valueOf(1), PlayerId.valueOf(1), Point3D.ZERO);
+        for (int p = 0; p < BaseCityManagerMock.POSITIONS; p++) {
+            this.city.createConstruction(new BaseBuilding(this.city.getId(), DATA, BuildingPosition.valueOf(p), Level.ONE, Staff.valueOf(2)));
+        }
+    }
+
+    @Test
+    public void allocatePlan() {
+        List<Integer> events = new ArrayList<>();
+        this.manager.willNotify(new StaffAllocationListener<>() {
+            @Override
+            public void staffAllocated(BaseCity<Building, BuildingData> c, Building building, Staff number) {
+                events.add(-1);
+            }
+
+            @Override
+            public void allocationPlanStarted(BaseCity<Building, BuildingData> c, List<WaitingAllocation<Building>> allocations, long timeLeft) {
+                events.add(allocations.size());
+            }
+
+            @Override
+            public void allocationPlanCompleted(BaseCity<Building, BuildingData> c, List<WaitingAllocation<Building>> allocations) {
+                events.add(allocations.size() * 10);
+            }
+        });
+        this.manager.allocate(this.city, Map.of(BuildingPosition.valueOf(0), Staff.valueOf(10), BuildingPosition.valueOf(1), Staff.valueOf(0)), 20, 0);
+        Assertions.assertEquals(Staff.valueOf(10), this.city.getBuilding(BuildingPosition.valueOf(0)).getStaff());
+        Assertions.assertEquals(Staff.valueOf(2), this.city.getBuilding(BuildingPosition.valueOf(0)).getOldStaff());
+        Assertions.assertEquals(2, this.manager.getAllocationList().size());
+        this.manager.frameEnded(1);
+        Assertions.assertEquals(Staff.valueOf(10), this.city.getBuilding(BuildingPosition.valueOf(0)).getOldStaff());
+        Assertions.assertTrue(this.manager.getAllocationList().isEmpty());
+        Assertions.assertEquals(List.of(2, 20), events);
+    }
+
+    @Test
+    public void allocatePlanWithSingleEntry() {
+        List<String> events = new ArrayList<>();
+        this.manager.willNotify(new StaffAllocationListener<>() {
+            @Override
+            public void updateTime(BaseCity<Building, BuildingData> c, Building building, long timeLeft) {
+                events.add("updated");
+            }
+
+            @Override
+            public void staffAllocated(BaseCity<Building, BuildingData> c, Building building, Staff number) {
+                events.add("allocated");
+            }
+
+            @Override
+            public void allocationPlanStarted(BaseCity<Building, BuildingData> c, List<WaitingAllocation<Building>> allocations, long timeLeft) {
+                events.add("plan started");
+            }
+
+            @Override
+            public void allocationPlanUpdated(BaseCity<Building, BuildingData> c, List<WaitingAllocation<Building>> allocations, long timeLeft) {
+                events.add("plan updated");
+            }
+
+            @Override
+            public void allocationPlanCompleted(BaseCity<Building, BuildingData> c, List<WaitingAllocation<Building>> allocations) {
+                events.add("plan completed");
+            }
+        });
+        this.manager.allocate(this.city, Map.of(BuildingPosition.valueOf(0), Staff.valueOf(10)), 20, 100_000);
+        this.manager.frameEnded(1);
+        Assertions.assertEquals(List.of("plan started", "plan updated"), events);
+        this.manager.allocate(this.city, Map.of(BuildingPosition.valueOf(1), Staff.valueOf(4)), 20, 0);
+        this.manager.frameEnded(1);
+        Assertions.assertEquals(List.of("plan started", "plan updated", "plan started", "plan completed", "plan updated"), events);
+    }
+
+    @Test
+    public void defaultPlanEventsNotifyEveryBuilding() {
+        List<BuildingPosition> allocated = new ArrayList<>();
+        this.manager.willNotify((c, b, n) -> allocated.add(b.getBuildingPosition()));
+        this.manager.allocate(this.city, Map.of(BuildingPosition.valueOf(3), Staff.valueOf(4), BuildingPosition.valueOf(4), Staff.valueOf(4)), 20, 0);
+        this.manager.frameEnded(1);
+        Assertions.assertEquals(2, allocated.size());
+    }
+
+    @Test
+    public void steadyStateFrameDoesNotAllocate() {
+        long[] notified = new long[1];
+        this.manager.willNotify(new StaffAllocationListener<>() {
+            @Override
+            public void updateTime(BaseCity<Building, BuildingData> c, Building building, long timeLeft) {
+                notified[0]++;
+            }
+
+            @Override
+            public void staffAllocated(BaseCity<Building, BuildingData> c, Building building, Staff number) {
+            }
+        });
+        this.manager.add(this.city.getBuilding(BuildingPosition.valueOf(0)), Staff.valueOf(4), Long.MAX_VALUE / 2);
+        this.manager.allocate(this.city, Map.of(BuildingPosition.valueOf(1), Staff.valueOf(4), BuildingPosition.valueOf(2), Staff.valueOf(4)), 20, Long.MAX_VALUE / 2);
+        AllocationMeter meter = new AllocationMeter();
+        Runnable frames = () -> {
+            for (int i = 0; i < 10_000; i++) {
+                this.manager.frameEnded(16);
+            }
+        };
+        frames.run();
+        Assertions.assertEquals(0, meter.measure(frames));
+        Assertions.assertEquals(40_000L * 3, notified[0]);
+    }
+
+    @Test
+    public void listenerRegisteredOnce() {
+        List<Staff> allocated = new ArrayList<>();
+        StaffAllocationListener<Building, BuildingData, BaseCity<Building, BuildingData>> listener = (c, b, n) -> allocated.add(n);
+        this.manager.willNotify(listener);
+        this.manager.willNotify(listener);
+        this.manager.add(this.city.getBuilding(BuildingPosition.valueOf(0)), Staff.valueOf(4), 0);
+        this.manager.frameEnded(1);
+        Assertions.assertEquals(List.of(Staff.valueOf(4)), allocated);
+        this.manager.removeListener(listener);
+        this.manager.add(this.city.getBuilding(BuildingPosition.valueOf(1)), Staff.valueOf(4), 0);
+        this.manager.frameEnded(1);
+        Assertions.assertEquals(1, allocated.size());
+    }
+
+    @Test
+    public void typeListenerReceivesPlanByBuilding() {
+        BuildingData other = new BuildingDataMock(BuildingType.register(291, "staff-other"), false, 10, 20);
+        this.city.createConstruction(new BaseBuilding(this.city.getId(), other, BuildingPosition.valueOf(4), Level.ONE, Staff.valueOf(2)));
+        List<BuildingPosition> allocated = new ArrayList<>();
+        List<BuildingPosition> byOwner = new ArrayList<>();
+        this.manager.willNotify(DATA.getType(), (c, b, n) -> allocated.add(b.getBuildingPosition()));
+        this.manager.willNotify(PlayerId.valueOf(1), (c, b, n) -> byOwner.add(b.getBuildingPosition()));
+        this.manager.willNotify(PlayerId.valueOf(2), (c, b, n) -> Assertions.fail("Other owner notified"));
+        this.manager.allocate(this.city, Map.of(BuildingPosition.valueOf(3), Staff.valueOf(4), BuildingPosition.valueOf(4), Staff.valueOf(4)), 20, 0);
+        this.manager.frameEnded(1);
+        Assertions.assertEquals(List.of(BuildingPosition.valueOf(3)), allocated);
+        Assertions.assertEquals(2, byOwner.size());
+    }
+
+    @Test
+    public void planAboveCityPopulation() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> this.manager.allocate(this.city, Map.of(BuildingPosition.valueOf(0), Staff.valueOf(10), BuildingPosition.valueOf(1), Staff.valueOf(9)), 20, 0));
+        Assertions.assertEquals(Staff.valueOf(2), this.city.getBuilding(BuildingPosition.valueOf(0)).getStaff());
+        Assertions.assertTrue(this.manager.getAllocationList().isEmpty());
+    }
+
+    @Test
+    public void planAboveBuildingMaximum() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> this.manager.allocate(this.city, Map.of(BuildingPosition.valueOf(0), Staff.valueOf(21)), 100, 0));
+    }
+
+    @Test
+    public void planWithUnknownPosition() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> this.manager.allocate(this.city, Map.of(BuildingPosition.valueOf(40), Staff.valueOf(1)), 100, 0));
+    }
+}
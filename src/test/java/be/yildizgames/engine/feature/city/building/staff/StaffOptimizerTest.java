@@ -0,0 +1,130 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.building.staff;
+
+import be.yildizgames.common.geometry.Point3D;
+import be.yildizgames.common.model.Level;
+import be.yildizgames.common.model.PlayerId;
+import be.yildizgames.engine.feature.city.BaseCity;
+import be.yildizgames.engine.feature.city.BaseCityManagerMock;
+import be.yildizgames.engine.feature.city.CityId;
+import be.yildizgames.engine.feature.city.building.BaseBuilding;
+import be.yildizgames.engine.feature.city.building.Building;
+import be.yildizgames.engine.feature.city.building.BuildingData;
+import be.yildizgames.engine.feature.city.building.BuildingDataMock;
+import be.yildizgames.engine.feature.city.building.BuildingPosition;
+import be.yildizgames.engine.feature.city.building.BuildingType;
+import be.yildizgames.engine.feature.resource.bonus.BonusResources;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * @author Grégory Van den Borre
+ */
+public class StaffOptimizerTest {
+
+    private static final BuildingData FARM = new BonusDataMock(BuildingType.register(300, "farm"), s -> 10 * Math.sqrt(s));
+
+    private static final BuildingData MINE = new BonusDataMock(BuildingType.register(301, "mine"), s -> 30 * Math.log1p(s));
+
+    private static final BuildingData LAB = new BonusDataMock(BuildingType.register(302, "lab"), s -> 2.5 * s);
+
+    @Test
+    public void optimalForConcaveGains() {
+        BaseCity<Building, BuildingData> city = createCity();
+        StaffOptimizer optimizer = new StaffOptimizer(StaffObjective.production(1));
+        for (int population = 0; population <= 60; population += 7) {
+            Map<BuildingPosition, Staff> plan = optimizer.optimize(city, population);
+            int total = plan.values().stream().mapToInt(s -> s.value).sum();
+            Assertions.assertTrue(total <= population);
+            Assertions.assertEquals(bruteForce(population), optimizer.score(city, plan), 0.01);
+        }
+    }
+
+    @Test
+    public void planCanBeAllocated() {
+        BaseCity<Building, BuildingData> city = createCity();
+        BaseCityManagerMock cityManager = new BaseCityManagerMock(FARM, MINE, LAB);
+        StaffAllocatorManager<Building, BuildingData, BaseCity<Building, BuildingData>> manager = new StaffAllocatorManager<>(cityManager);
+        Map<BuildingPosition, Staff> plan = new StaffOptimizer(StaffObjective.production(1)).optimize(city, 30);
+        manager.allocate(city, plan, 30, 0);
+        Assertions.assertEquals(3, manager.getAllocationList().size());
+    }
+
+    @Test
+    public void zeroWeightGivesNoStaff() {
+        BaseCity<Building, BuildingData> city = createCity();
+        StaffOptimizer optimizer = new StaffOptimizer(new StaffObjective(new float[]{0}, new float[]{0}));
+        Map<BuildingPosition, Staff> plan = optimizer.optimize(city, 50);
+        Assertions.assertTrue(plan.values().stream().allMatch(s -> s.value == 0));
+    }
+
+    private static BaseCity<Building, BuildingData> createCity() {
+        BaseCityManagerMock cityManager = new BaseCityManagerMock(FARM, MINE, LAB);
+        BaseCity<Building, BuildingData> city = cityManager.createCity(CityId.valueOf(1), PlayerId.valueOf(1), Point3D.ZERO);
+        BuildingData[] data = {FARM, MINE, LAB};
+        for (int p = 0; p < 3; p++) {
+            city.createConstruction(new BaseBuilding(city.getId(), data[p], BuildingPosition.valueOf(p), Level.ONE, Staff.valueOf(0)));
+        }
+        return city;
+    }
+
+    private static float bruteForce(int population) {
+        float best = 0;
+        for (int f = 0; f <= 20; f++) {
+            for (int m = 0; m <= 20; m++) {
+                for (int l = 0; l <= 20; l++) {
+                    if (f + m + l <= population) {
+                        best = Math.max(best, score(FARM, f) + score(MINE, m) + score(LAB, l));
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private static float score(BuildingData data, int staff) {
+        return data.getStaffBonus(Staff.valueOf(staff)).getRatio(0);
+    }
+
+    private static class BonusDataMock extends BuildingDataMock {
+
+        private final IntToDoubleFunction bonus;
+
+        private BonusDataMock(BuildingType type, IntToDoubleFunction bonus) {
+            super(type, false, 10, 20);
+            this.bonus = bonus;
+        }
+
+        @Override
+        public BonusResources getStaffBonus(Staff staff) {
+            return new BonusResources(new float[]{(float) this.bonus.applyAsDouble(staff.value)}, new float[]{0}) {
+            };
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.command;
+
+import be.yildizgames.common.geometry.Point3D;
+import be.yildizgames.common.model.Level;
+import be.yildizgames.common.model.PlayerId;
+import be.yildizgames.engine.feature.city.BaseCity;
+import be.yildizgames.engine.feature.city.BaseCityManagerMock;
+import be.yildizgames.engine.feature.city.CityId;
+import be.yildizgames.engine.feature.city.building.BaseBuilding;
+import be.yildizgames.engine.feature.city.building.Building;
+import be.yildizgames.engine.feature.city.building.BuildingData;
+import be.yildizgames.engine.feature.city.building.BuildingDataMock;
+import be.yildizgames.engine.feature.city.building.BuildingPosition;
+import be.yildizgames.engine.feature.city.building.BuildingType;
+import be.yildizgames.engine.feature.city.building.staff.Staff;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Grégory Van den Borre
+ */
+public class CityCommandDispatcherTest {
+
+    private static final BuildingData DATA = new BuildingDataMock(BuildingType.register(380, "command"), false, 10, 20);
+
+    private static final int CITIES = 10;
+
+    private static final int PRODUCERS = 4;
+
+    private static final int COMMANDS = 2_000;
+
+    private final BaseCityManagerMock cityManager = new BaseCityManagerMock(DATA);
+
+    private final Map<CityId, RuntimeException> errors = new ConcurrentHashMap<>();
+
+    public CityCommandDispatcherTest() {
+        for (int i = 0; i < CITIES; i++) {
+            this.cityManager.createCity(CityId.valueOf(i), PlayerId.valueOf(1), Point3D.ZERO);
+        }
+    }
+
+    @Test
+    public void commandsOfACityAreSerialAndOrdered() throws InterruptedException {
+        Map<CityId, List<Integer>> executed = new HashMap<>();
+        for (int i = 0; i < CITIES; i++) {
+            executed.put(CityId.valueOf(i), new ArrayList<>());
+        }
+        try (CityCommandDispatcher<Building, BuildingData, BaseCity<Building, BuildingData>> dispatcher = new CityCommandDispatcher<>(this.cityManager, this.errors::put)) {
+            List<Thread> producers = new ArrayList<>();
+            for (int p = 0; p < PRODUCERS; p++) {
+                int producer = p;
+                producers.add(new Thread(() -> {
+                    for (int n = 0; n < COMMANDS; n++) {
+                        int value = producer * COMMANDS + n;
+                        dispatcher.submit(CityId.valueOf(n % CITIES), c -> executed.get(c.getId()).add(value));
+                    }
+                }));
+            }
+            producers.forEach(Thread::start);
+            for (int frame = 0; frame < 50; frame++) {
+                dispatcher.frameEnded(1);
+            }
+            for (Thread t : producers) {
+                t.join();
+            }
+            dispatcher.frameEnded(1);
+            dispatcher.frameEnded(1);
+        }
+        int total = 0;
+        for (List<Integer> values : executed.values()) {
+            total += values.size();
+            int[] last = new int[PRODUCERS];
+            Arrays.fill(last, -1);
+            for (int value : values) {
+                int producer = value / COMMANDS;
+                Assertions.assertTrue(value > last[producer], "Commands of a producer must keep their order");
+                last[producer] = value;
+            }
+        }
+        Assertions.assertEquals(PRODUCERS * COMMANDS, total);
+        Assertions.assertTrue(this.errors.isEmpty());
+    }
+
+    @Test
+    public void modifiedCitiesAreNotifiedOnTheFrameThread() {
+        List<CityId> notified = new ArrayList<>();
+        Thread frame = Thread.currentThread();
+        try (CityCommandDispatcher<Building, BuildingData, BaseCity<Building, BuildingData>> dispatcher = new CityCommandDispatcher<>(this.cityManager, this.errors::put)) {
+            dispatcher.willNotify(c -> {
+                Assertions.assertSame(frame, Thread.currentThread());
+                notified.add(c.getId());
+            });
+            for (int i = 0; i < 3; i++) {
+                dispatcher.submit(CityId.valueOf(i), c -> {});
+            }
+            dispatcher.frameEnded(1);
+            dispatcher.frameEnded(1);
+        }
+        Assertions.assertEquals(3, notified.size());
+        Assertions.assertTrue(notified.containsAll(List.of(CityId.valueOf(0), CityId.valueOf(1), CityId.valueOf(2))));
+    }
+
+    @Test
+    public void interruptedFrameKeepsTheCommandsNotStarted() {
+        AtomicInteger executed = new AtomicInteger();
+        try (CityCommandDispatcher<Building, BuildingData, BaseCity<Building, BuildingData>> dispatcher = new CityCommandDispatcher<>(this.cityManager, this.errors::put, Executors.newSingleThreadExecutor())) {
+            for (int i = 0; i < CITIES; i++) {
+                dispatcher.submit(CityId.valueOf(i), c -> executed.incrementAndGet());
+            }
+            Thread.currentThread().interrupt();
+            dispatcher.frameEnded(1);
+            Assertions.assertTrue(Thread.interrupted());
+            dispatcher.frameEnded(1);
+        }
+        Assertions.assertEquals(CITIES, executed.get());
+    }
+
+    @Test
+    public void buildingCommands() {
+        try (CityCommandDispatcher<Building, BuildingData, BaseCity<Building, BuildingData>> dispatcher = new CityCommandDispatcher<>(this.cityManager, this.errors::put)) {
+            CityId id = CityId.valueOf(3);
+            BuildingPosition position = BuildingPosition.valueOf(1);
+            dispatcher.submit(id, CityCommand.createConstruction(new BaseBuilding(id, DATA, position, Level.ONE, Staff.valueOf(0))));
+            dispatcher.submit(id, CityCommand.setLevel(position, Level.valueOf(5)));
+            dispatcher.submit(id, CityCommand.setStaff(position, Staff.valueOf(7)));
+            dispatcher.frameEnded(1);
+            Building b = this.cityManager.getCityById(id).getBuilding(position);
+            Assertions.assertEquals(Level.valueOf(5), b.getLevel());
+            Assertions.assertEquals(Staff.valueOf(7), b.getStaff());
+            Assertions.assertEquals(1, this.cityManager.getStatistics().getCount(DATA.getType(), 5));
+        }
+    }
+
+    @Test
+    public void failingCommandDoesNotStopTheOthers() {
+        try (CityCommandDispatcher<Building, BuildingData, BaseCity<Building, BuildingData>> dispatcher = new CityCommandDispatcher<>(this.cityManager, this.errors::put)) {
+            List<CityId> done = new ArrayList<>();
+            dispatcher.submit(CityId.valueOf(1), c -> {
+                throw new IllegalStateException("failure");
+            });
+            dispatcher.submit(CityId.valueOf(1), c -> done.add(c.getId()));
+            dispatcher.submit(CityId.valueOf(CITIES), c -> done.add(c.getId()));
+            dispatcher.frameEnded(1);
+            Assertions.assertEquals(List.of(CityId.valueOf(1)), done);
+            Assertions.assertEquals(2, dispatcher.getFailureCount());
+            Assertions.assertTrue(this.errors.get(CityId.valueOf(1)) instanceof IllegalStateException);
+            Assertions.assertTrue(this.errors.get(CityId.valueOf(CITIES)) instanceof IllegalArgumentException);
+        }
+    }
+}
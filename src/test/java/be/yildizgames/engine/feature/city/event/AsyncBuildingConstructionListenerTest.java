@@ -0,0 +1,107 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.event;
+
+import be.yildizgames.engine.feature.city.BaseCity;
+import be.yildizgames.engine.feature.city.building.Building;
+import be.yildizgames.engine.feature.city.building.BuildingData;
+import be.yildizgames.engine.feature.city.building.construction.BuildingConstructionListener;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * @author Grégory Van den Borre
+ */
+public class AsyncBuildingConstructionListenerTest {
+
+    @Test
+    public void eventsDeliveredInOrder() {
+        List<Long> received = new CopyOnWriteArrayList<>();
+        List<String> threads = new CopyOnWriteArrayList<>();
+        BuildingConstructionListener<Building, BuildingData, BaseCity<Building, BuildingData>> l = new BuildingConstructionListener<>() {
+            @Override
+            public void buildingInConstruction(BaseCity<Building, BuildingData> city, Building building, long timeLeft) {
+                received.add(timeLeft);
+                threads.add(Thread.currentThread().getName());
+            }
+        };
+        AsyncBuildingConstructionListener<Building, BuildingData, BaseCity<Building, BuildingData>> async =
+                new AsyncBuildingConstructionListener<>(l, 16, OverflowPolicy.BLOCK, r -> new Thread(r, "listener"));
+        for (long i = 0; i < 10_000; i++) {
+            async.buildingInConstruction(null, null, i);
+        }
+        async.close();
+        Assertions.assertEquals(10_000, received.size());
+        for (int i = 0; i < received.size(); i++) {
+            Assertions.assertEquals(i, received.get(i).longValue());
+        }
+        Assertions.assertTrue(threads.stream().allMatch("listener"::equals));
+        Assertions.assertEquals(0, async.getDropped());
+    }
+
+    @Test
+    public void eventsDroppedWhenFull() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Long> received = new CopyOnWriteArrayList<>();
+        BuildingConstructionListener<Building, BuildingData, BaseCity<Building, BuildingData>> l = new BuildingConstructionListener<>() {
+            @Override
+            public void buildingInConstruction(BaseCity<Building, BuildingData> city, Building building, long timeLeft) {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                received.add(timeLeft);
+            }
+        };
+        AsyncBuildingConstructionListener<Building, BuildingData, BaseCity<Building, BuildingData>> async =
+                new AsyncBuildingConstructionListener<>(l, 4, OverflowPolicy.DROP, Thread::new);
+        async.buildingInConstruction(null, null, 0);
+        blocked.await();
+        // the event being delivered keeps its slot until the listener returns
+        for (long i = 1; i <= 10; i++) {
+            async.buildingInConstruction(null, null, i);
+        }
+        release.countDown();
+        async.close();
+        Assertions.assertEquals(7, async.getDropped());
+        Assertions.assertEquals(List.of(0L, 1L, 2L, 3L), received);
+    }
+
+    @Test
+    public void dispatchAfterClose() {
+        AsyncBuildingConstructionListener<Building, BuildingData, BaseCity<Building, BuildingData>> async =
+                new AsyncBuildingConstructionListener<>(new BuildingConstructionListener<>() {}, 4, OverflowPolicy.DROP, Thread::new);
+        async.close();
+        async.buildingComplete(null, null);
+        Assertions.assertEquals(1, async.getDropped());
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.journal;
+
+import be.yildizgames.common.geometry.Point3D;
+import be.yildizgames.common.model.Level;
+import be.yildizgames.common.model.PlayerId;
+import be.yildizgames.engine.feature.city.BaseCity;
+import be.yildizgames.engine.feature.city.BaseCityManagerMock;
+import be.yildizgames.engine.feature.city.CityId;
+import be.yildizgames.engine.feature.city.building.BaseBuilding;
+import be.yildizgames.engine.feature.city.building.Building;
+import be.yildizgames.engine.feature.city.building.BuildingData;
+import be.yildizgames.engine.feature.city.building.BuildingDataMock;
+import be.yildizgames.engine.feature.city.building.BuildingPosition;
+import be.yildizgames.engine.feature.city.building.BuildingType;
+import be.yildizgames.engine.feature.city.building.construction.BuildingConstructionManager;
+import be.yildizgames.engine.feature.city.building.construction.ConstructionSlotPolicy;
+import be.yildizgames.engine.feature.city.building.construction.WaitingBuilding;
+import be.yildizgames.engine.feature.city.building.staff.Staff;
+import be.yildizgames.engine.feature.city.building.staff.StaffAllocatorManager;
+import be.yildizgames.engine.feature.city.snapshot.CityTransfer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * @author Grégory Van den Borre
+ */
+public class CityJournalTest {
+
+    private static final BuildingData DATA = new BuildingDataMock(BuildingType.register(270, "journal"), false, 10, 20);
+
+    @Test
+    public void replayAfterCrash(@TempDir Path folder) {
+        World before = new World(folder);
+        BaseCity<Building, BuildingData> city = before.cityManager.getCityById(CityId.valueOf(1));
+        before.constructionManager.createBuilding(new BaseBuilding(city.getId(), DATA, BuildingPosition.valueOf(1), Level.valueOf(2), Staff.valueOf(0)), 100_000);
+        before.constructionManager.createBuilding(new BaseBuilding(city.getId(), DATA, BuildingPosition.valueOf(2), Level.valueOf(3), Staff.valueOf(0)), 10);
+        before.staffManager.add(city.getBuilding(BuildingPosition.valueOf(0)), Staff.valueOf(5), 100_000);
+        before.staffManager.add(city.getBuilding(BuildingPosition.valueOf(3)), Staff.valueOf(6), 0);
+        before.constructionManager.frameEnded(20);
+        before.staffManager.frameEnded(20);
+        before.journal.frameEnded(20);
+
+        World after = new World(folder);
+        after.journal.replay(BaseBuilding::new, after.staffManager);
+
+        List<WaitingBuilding<Building>> constructions = after.constructionManager.getBuildingList();
+        Assertions.assertEquals(1, constructions.size());
+        Assertions.assertEquals(BuildingPosition.valueOf(1), constructions.get(0).getB().getBuildingPosition());
+        Assertions.assertEquals(Level.valueOf(2), constructions.get(0).getB().getLevel());
+        Assertions.assertTrue(constructions.get(0).getTime() <= 100_000);
+        Assertions.assertEquals(1, after.staffManager.getAllocationList().size());
+        Assertions.assertEquals(Staff.valueOf(5), after.staffManager.getAllocationList().get(0).getStaff());
+    }
+
+    @Test
+    public void replayWaitingConstructionsInRequestOrder(@TempDir Path folder) {
+        World before = new World(folder, c -> 1);
+        BaseCity<Building, BuildingData> city = before.cityManager.getCityById(CityId.valueOf(1));
+        before.constructionManager.createBuilding(new BaseBuilding(city.getId(), DATA, BuildingPosition.valueOf(1), Level.valueOf(2), Staff.valueOf(0)), 100_000);
+        before.constructionManager.createBuilding(new BaseBuilding(city.getId(), DATA, BuildingPosition.valueOf(2), Level.valueOf(3), Staff.valueOf(0)), 5_000);
+        before.constructionManager.createBuilding(new BaseBuilding(city.getId(), DATA, BuildingPosition.valueOf(3), Level.valueOf(4), Staff.valueOf(0)), 3_000);
+        before.constructionManager.frameEnded(20);
+        before.journal.frameEnded(20);
+
+        World after = new World(folder, c -> 1);
+        after.journal.replay(BaseBuilding::new, after.staffManager);
+
+        List<WaitingBuilding<Building>> constructions = after.constructionManager.export(after.cityManager.getCityById(CityId.valueOf(1)));
+        Assertions.assertEquals(3, constructions.size());
+        Assertions.assertEquals(BuildingPosition.valueOf(1), constructions.get(0).getB().getBuildingPosition());
+        Assertions.assertEquals(BuildingPosition.valueOf(2), constructions.get(1).getB().getBuildingPosition());
+        Assertions.assertEquals(5_000, constructions.get(1).getTime());
+        Assertions.assertEquals(BuildingPosition.valueOf(3), constructions.get(2).getB().getBuildingPosition());
+        Assertions.assertEquals(Level.valueOf(4), constructions.get(2).getB().getLevel());
+        Assertions.assertEquals(3_000, constructions.get(2).getTime());
+        Assertions.assertEquals(1, after.constructionManager.getActiveConstructionCount(after.cityManager.getCityById(CityId.valueOf(1))));
+    }
+
+    @Test
+    public void replayConstructionsAtSamePosition(@TempDir Path folder) {
+        World before = new World(folder, c -> 1);
+        BaseCity<Building, BuildingData> city = before.cityManager.getCityById(CityId.valueOf(1));
+        before.constructionManager.createBuilding(new BaseBuilding(city.getId(), DATA, BuildingPosition.valueOf(1), Level.valueOf(2), Staff.valueOf(0)), 10);
+        before.constructionManager.createBuilding(new BaseBuilding(city.getId(), DATA, BuildingPosition.valueOf(1), Level.valueOf(3), Staff.valueOf(0)), 100_000);
+        before.constructionManager.frameEnded(20);
+        before.journal.frameEnded(20);
+
+        World after = new World(folder, c -> 1);
+        after.journal.replay(BaseBuilding::new, after.staffManager);
+
+        List<WaitingBuilding<Building>> constructions = after.constructionManager.getBuildingList();
+        Assertions.assertEquals(1, constructions.size());
+        Assertions.assertEquals(BuildingPosition.valueOf(1), constructions.get(0).getB().getBuildingPosition());
+        Assertions.assertEquals(Level.valueOf(3), constructions.get(0).getB().getLevel());
+    }
+
+    @Test
+    public void replayWithSpeedMultiplier(@TempDir Path folder) {
+        World before = new World(folder);
+        before.constructionManager.getSpeed().setGlobal(2f);
+        BaseCity<Building, BuildingData> city = before.cityManager.getCityById(CityId.valueOf(1));
+        before.constructionManager.createBuilding(new BaseBuilding(city.getId(), DATA, BuildingPosition.valueOf(1), Level.valueOf(2), Staff.valueOf(0)), 100_000);
+        before.journal.frameEnded(20);
+
+        World after = new World(folder);
+        after.constructionManager.getSpeed().setGlobal(2f);
+        after.journal.replay(BaseBuilding::new, after.staffManager);
+
+        WaitingBuilding<Building> w = after.constructionManager.getBuildingList().get(0);
+        Assertions.assertTrue(w.getWork() > 90_000 && w.getWork() <= 100_000);
+        Assertions.assertTrue(after.constructionManager.getTimeLeft(w) > 45_000 && after.constructionManager.getTimeLeft(w) <= 50_000);
+    }
+
+    @Test
+    public void replayPausedConstruction(@TempDir Path folder) {
+        World before = new World(folder);
+        before.constructionManager.getSpeed().setGlobal(0f);
+        BaseCity<Building, BuildingData> city = before.cityManager.getCityById(CityId.valueOf(1));
+        before.constructionManager.createBuilding(new BaseBuilding(city.getId(), DATA, BuildingPosition.valueOf(1), Level.valueOf(2), Staff.valueOf(0)), 100_000);
+        before.constructionManager.frameEnded(20);
+        before.journal.frameEnded(20);
+
+        World after = new World(folder);
+        after.constructionManager.getSpeed().setGlobal(0f);
+        after.journal.replay(BaseBuilding::new, after.staffManager);
+        after.constructionManager.frameEnded(20);
+
+        WaitingBuilding<Building> w = after.constructionManager.getBuildingList().get(0);
+        Assertions.assertEquals(100_000, w.getWork());
+        Assertions.assertEquals(Long.MAX_VALUE, after.constructionManager.getTimeLeft(w));
+        Assertions.assertEquals(Level.ONE, after.cityManager.getCityById(CityId.valueOf(1)).getBuilding(BuildingPosition.valueOf(1)).getLevel());
+    }
+
+    @Test
+    public void exportedCityIsNotReplayed(@TempDir Path folder) {
+        World before = new World(folder);
+        BaseCity<Building, BuildingData> city = before.cityManager.getCityById(CityId.valueOf(1));
+        CityTransfer<Building, BuildingData, BaseCity<Building, BuildingData>> transfer = new CityTransfer<>(before.cityManager, BaseBuilding::new, before.constructionManager, before.staffManager);
+        transfer.willNotify(before.journal::cityRemoved);
+        before.constructionManager.createBuilding(new BaseBuilding(city.getId(), DATA, BuildingPosition.valueOf(1), Level.valueOf(2), Staff.valueOf(0)), 100_000);
+        before.staffManager.add(city.getBuilding(BuildingPosition.valueOf(0)), Staff.valueOf(5), 100_000);
+        before.journal.frameEnded(20);
+        transfer.exportCity(city.getId());
+        before.journal.frameEnded(20);
+
+        World after = new World(folder);
+        after.journal.replay(BaseBuilding::new, after.staffManager);
+        Assertions.assertTrue(after.constructionManager.getBuildingList().isEmpty());
+        Assertions.assertTrue(after.staffManager.getAllocationList().isEmpty());
+    }
+
+    @Test
+    public void eventsOfMissingCitiesAreDropped(@TempDir Path folder) {
+        World before = new World(folder);
+        BaseCity<Building, BuildingData> other = before.cityManager.createCity(CityId.valueOf(2), PlayerId.valueOf(1), Point3D.ZERO);
+        other.createConstruction(new BaseBuilding(other.getId(), DATA, BuildingPosition.valueOf(0), Level.ONE, Staff.valueOf(0)));
+        before.constructionManager.createBuilding(new BaseBuilding(other.getId(), DATA, BuildingPosition.valueOf(1), Level.valueOf(2), Staff.valueOf(0)), 100_000);
+        before.staffManager.add(other.getBuilding(BuildingPosition.valueOf(0)), Staff.valueOf(5), 100_000);
+        before.journal.frameEnded(20);
+
+        World after = new World(folder);
+        after.journal.replay(BaseBuilding::new, after.staffManager);
+        Assertions.assertTrue(after.constructionManager.getBuildingList().isEmpty());
+        Assertions.assertTrue(after.staffManager.getAllocationList().isEmpty());
+    }
+
+    @Test
+    public void allocationsOfEmptyPositionsAreDropped(@TempDir Path folder) {
+        World before = new World(folder);
+        BaseCity<Building, BuildingData> other = before.cityManager.createCity(CityId.valueOf(2), PlayerId.valueOf(1), Point3D.ZERO);
+        other.createConstruction(new BaseBuilding(other.getId(), DATA, BuildingPosition.valueOf(0), Level.ONE, Staff.valueOf(0)));
+        before.staffManager.add(other.getBuilding(BuildingPosition.valueOf(0)), Staff.valueOf(5), 100_000);
+        before.staffManager.add(before.cityManager.getCityById(CityId.valueOf(1)).getBuilding(BuildingPosition.valueOf(0)), Staff.valueOf(6), 100_000);
+        before.journal.frameEnded(20);
+
+        World after = new World(folder);
+        after.cityManager.createCity(CityId.valueOf(2), PlayerId.valueOf(1), Point3D.ZERO);
+        after.journal.replay(BaseBuilding::new, after.staffManager);
+        Assertions.assertEquals(1, after.staffManager.getAllocationList().size());
+        Assertions.assertEquals(Staff.valueOf(6), after.staffManager.getAllocationList().get(0).getStaff());
+    }
+
+    @Test
+    public void segmentsAreCompacted(@TempDir Path folder) throws IOException {
+        World world = new World(folder);
+        BaseCity<Building, BuildingData> city = world.cityManager.getCityById(CityId.valueOf(1));
+        for (int i = 0; i < 3000; i++) {
+            world.constructionManager.createBuilding(new BaseBuilding(city.getId(), DATA, BuildingPosition.valueOf(4), Level.valueOf(1), Staff.valueOf(0)), 5);
+            world.constructionManager.frameEnded(10);
+            world.journal.frameEnded(10);
+        }
+        world.journal.close();
+        try (Stream<Path> files = Files.list(folder)) {
+            Assertions.assertEquals(1, files.collect(Collectors.toList()).size());
+        }
+        World after = new World(folder);
+        after.journal.replay(BaseBuilding::new, after.staffManager);
+        Assertions.assertTrue(after.constructionManager.getBuildingList().isEmpty());
+    }
+
+    private static class World {
+
+        private final BaseCityManagerMock cityManager = new BaseCityManagerMock(DATA);
+
+        private final BuildingConstructionManager<Building, BuildingData, BaseCity<Building, BuildingData>> constructionManager;
+
+        private final StaffAllocatorManager<Building, BuildingData, BaseCity<Building, BuildingData>> staffManager = new StaffAllocatorManager<>(cityManager);
+
+        private final CityJournal<Building, BuildingData, BaseCity<Building, BuildingData>> journal;
+
+        private World(Path folder) {
+            this(folder, ConstructionSlotPolicy.UNLIMITED);
+        }
+
+        private World(Path folder, ConstructionSlotPolicy slots) {
+            this.constructionManager = new BuildingConstructionManager<>(cityManager, b -> cityManager.getCityById(b.getCity()).createConstruction(b), slots);
+            BaseCity<Building, BuildingData> city = cityManager.createCity(CityId.valueOf(1), PlayerId.valueOf(1), Point3D.ZERO);
+            for (int p = 0; p < BaseCityManagerMock.POSITIONS; p++) {
+                city.createConstruction(new BaseBuilding(city.getId(), DATA, BuildingPosition.valueOf(p), Level.ONE, Staff.valueOf(0)));
+            }
+            this.journal = new CityJournal<>(folder, cityManager, this.constructionManager, JournalEntry.BYTES * 2048);
+            this.constructionManager.willNotify(this.journal);
+            this.staffManager.willNotify(this.journal);
+        }
+    }
+}
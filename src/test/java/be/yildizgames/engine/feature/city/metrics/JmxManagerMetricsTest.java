@@ -0,0 +1,99 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.metrics;
+
+import be.yildizgames.common.geometry.Point3D;
+import be.yildizgames.common.model.Level;
+import be.yildizgames.common.model.PlayerId;
+import be.yildizgames.engine.feature.city.BaseCity;
+import be.yildizgames.engine.feature.city.BaseCityManagerMock;
+import be.yildizgames.engine.feature.city.CityId;
+import be.yildizgames.engine.feature.city.building.BaseBuilding;
+import be.yildizgames.engine.feature.city.building.Building;
+import be.yildizgames.engine.feature.city.building.BuildingData;
+import be.yildizgames.engine.feature.city.building.BuildingDataMock;
+import be.yildizgames.engine.feature.city.building.BuildingPosition;
+import be.yildizgames.engine.feature.city.building.BuildingType;
+import be.yildizgames.engine.feature.city.building.construction.BuildingConstructionListener;
+import be.yildizgames.engine.feature.city.building.construction.BuildingConstructionManager;
+import be.yildizgames.engine.feature.city.building.staff.Staff;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+/**
+ * @author Grégory Van den Borre
+ */
+public class JmxManagerMetricsTest {
+
+    private static final BuildingData DATA = new BuildingDataMock(BuildingType.register(280, "metrics"), false, 10, 20);
+
+    @Test
+    public void constructionManagerMeasures() throws JMException {
+        BaseCityManagerMock cityManager = new BaseCityManagerMock(DATA);
+        BaseCity<Building, BuildingData> city = cityManager.createCity(CityId.valueOf(1), PlayerId.valueOf(1), Point3D.ZERO);
+        for (int p = 0; p < BaseCityManagerMock.POSITIONS; p++) {
+            city.createConstruction(new BaseBuilding(city.getId(), DATA, BuildingPosition.valueOf(p), Level.ONE, Staff.valueOf(0)));
+        }
+        BuildingConstructionManager<Building, BuildingData, BaseCity<Building, BuildingData>> manager = new BuildingConstructionManager<>(cityManager, b -> city.createConstruction(b));
+        manager.willNotify(noop());
+        manager.willNotify(noop());
+        JmxManagerMetrics metrics = JmxManagerMetrics.register("construction", 0);
+        try {
+            manager.setMetrics(metrics);
+            manager.createBuilding(new BaseBuilding(city.getId(), DATA, BuildingPosition.valueOf(1), Level.ONE, Staff.valueOf(0)), 10);
+            manager.createBuilding(new BaseBuilding(city.getId(), DATA, BuildingPosition.valueOf(2), Level.ONE, Staff.valueOf(0)), 100);
+            manager.frameEnded(20);
+
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            Assertions.assertEquals(1, server.getAttribute(metrics.getName(), "PendingCount"));
+            Assertions.assertEquals(1, server.getAttribute(metrics.getName(), "CompletedLastFrame"));
+            Assertions.assertEquals(1L, server.getAttribute(metrics.getName(), "FrameCount"));
+            Assertions.assertEquals(1L, server.getAttribute(metrics.getName(), "FrameBudgetOverruns"));
+            Map<String, Long> listeners = metrics.getListenerTotalNanos();
+            Assertions.assertEquals(2, listeners.size());
+        } finally {
+            metrics.unregister();
+        }
+    }
+
+    private static BuildingConstructionListener<Building, BuildingData, BaseCity<Building, BuildingData>> noop() {
+        return new BuildingConstructionListener<>() {};
+    }
+
+    @Test
+    public void registerTwice() {
+        JmxManagerMetrics metrics = JmxManagerMetrics.register("twice", 1);
+        try {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> JmxManagerMetrics.register("twice", 1));
+        } finally {
+            metrics.unregister();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.metrics;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Grégory Van den Borre
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void percentilesWithinPrecision() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (long i = 1; i <= 1_000_000; i++) {
+            h.record(i * 1_000);
+        }
+        Assertions.assertEquals(1_000_000, h.getCount());
+        Assertions.assertEquals(1_000_000_000L, h.getMax());
+        assertClose(500_000_000L, h.getValueAtPercentile(50));
+        assertClose(990_000_000L, h.getValueAtPercentile(99));
+        Assertions.assertEquals(500_000_500.0, h.getMean(), 1);
+    }
+
+    @Test
+    public void smallValuesAreExact() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int i = 0; i < 100; i++) {
+            h.record(i);
+        }
+        Assertions.assertEquals(49, h.getValueAtPercentile(50));
+        Assertions.assertEquals(99, h.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void outOfRangeValuesAreClamped() {
+        LatencyHistogram h = new LatencyHistogram(7, 1L << 20);
+        h.record(-5);
+        h.record(Long.MAX_VALUE);
+        Assertions.assertEquals(1L << 20, h.getMax());
+        Assertions.assertEquals(0, h.getValueAtPercentile(50));
+    }
+
+    @Test
+    public void reset() {
+        LatencyHistogram h = new LatencyHistogram();
+        h.record(50);
+        h.reset();
+        Assertions.assertEquals(0, h.getCount());
+        Assertions.assertEquals(0, h.getValueAtPercentile(99));
+    }
+
+    @Test
+    public void invalidPrecision() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new LatencyHistogram(1, 1000));
+    }
+
+    private static void assertClose(long expected, long actual) {
+        Assertions.assertTrue(Math.abs(expected - actual) <= expected / 50, "expected " + expected + " but was " + actual);
+    }
+}
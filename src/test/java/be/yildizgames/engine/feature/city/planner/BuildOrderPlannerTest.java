@@ -0,0 +1,136 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.planner;
+
+import be.yildizgames.common.geometry.Point3D;
+import be.yildizgames.common.model.Level;
+import be.yildizgames.common.model.PlayerId;
+import be.yildizgames.engine.feature.city.BaseCity;
+import be.yildizgames.engine.feature.city.BaseCityManagerMock;
+import be.yildizgames.engine.feature.city.CityId;
+import be.yildizgames.engine.feature.city.building.BaseBuilding;
+import be.yildizgames.engine.feature.city.building.Building;
+import be.yildizgames.engine.feature.city.building.BuildingData;
+import be.yildizgames.engine.feature.city.building.BuildingDataMock;
+import be.yildizgames.engine.feature.city.building.BuildingPosition;
+import be.yildizgames.engine.feature.city.building.BuildingType;
+import be.yildizgames.engine.feature.city.building.staff.Staff;
+import be.yildizgames.engine.feature.resource.ResourceValue;
+import be.yildizgames.engine.feature.resource.bonus.BonusResources;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Grégory Van den Borre
+ */
+public class BuildOrderPlannerTest {
+
+    private static final BuildingData FARM = new PlannerDataMock(BuildingType.register(310, "planner-farm"), 5, 50, 5);
+
+    private static final BuildingData TOWER = new PlannerDataMock(BuildingType.register(311, "planner-tower"), 5, 600, 0);
+
+    private static final BuildingPosition FARM_POSITION = BuildingPosition.valueOf(0);
+
+    private static final BuildingPosition TOWER_POSITION = BuildingPosition.valueOf(1);
+
+    @Test
+    public void investInProductionFirst() {
+        BaseCity<Building, BuildingData> city = createCity(1);
+        BuildOrderPlanner planner = new BuildOrderPlanner(16, 4);
+        PlanGoal goal = new PlanGoal(Map.of(TOWER_POSITION, Level.valueOf(3)));
+        BuildOrder order = planner.plan(city, goal);
+        Assertions.assertTrue(order.isReached());
+        Assertions.assertEquals(3, Collections.frequency(order.getSteps(), TOWER_POSITION));
+        Assertions.assertTrue(order.getSteps().contains(FARM_POSITION));
+        long direct = planner.simulate(city, List.of(TOWER_POSITION, TOWER_POSITION, TOWER_POSITION));
+        Assertions.assertTrue(order.getTime() < direct);
+        Assertions.assertEquals(order.getTime(), planner.simulate(city, order.getSteps()));
+    }
+
+    @Test
+    public void noExtraUpgradeAllowed() {
+        BaseCity<Building, BuildingData> city = createCity(1);
+        BuildOrder order = new BuildOrderPlanner(8, 0).plan(city, new PlanGoal(Map.of(TOWER_POSITION, Level.valueOf(2))));
+        Assertions.assertEquals(List.of(TOWER_POSITION, TOWER_POSITION), order.getSteps());
+    }
+
+    @Test
+    public void unreachableWithoutProduction() {
+        BaseCity<Building, BuildingData> city = createCity(0);
+        BuildOrder order = new BuildOrderPlanner(8, 0).plan(city, new PlanGoal(Map.of(TOWER_POSITION, Level.valueOf(3))));
+        Assertions.assertFalse(order.isReached());
+    }
+
+    @Test
+    public void simulateAllInParallel() {
+        BaseCity<Building, BuildingData> city = createCity(1);
+        BuildOrderPlanner planner = new BuildOrderPlanner(8, 0);
+        long[] times = planner.simulateAll(city, List.of(List.of(FARM_POSITION), List.of(TOWER_POSITION, TOWER_POSITION), List.of(BuildingPosition.valueOf(9))));
+        Assertions.assertEquals(3, times.length);
+        Assertions.assertTrue(times[0] > 0);
+        Assertions.assertTrue(times[1] > times[0]);
+        Assertions.assertEquals(-1, times[2]);
+    }
+
+    private static BaseCity<Building, BuildingData> createCity(float ratio) {
+        BaseCityManagerMock cityManager = new BaseCityManagerMock(FARM, TOWER);
+        BaseCity<Building, BuildingData> city = cityManager.createCity(CityId.valueOf(1), PlayerId.valueOf(1), Point3D.ZERO);
+        city.createConstruction(new BaseBuilding(city.getId(), FARM, FARM_POSITION, Level.ONE, Staff.valueOf(0)));
+        city.createConstruction(new BaseBuilding(city.getId(), TOWER, TOWER_POSITION, Level.ZERO, Staff.valueOf(0)));
+        city.getProducer().addBonus(new BonusResources(new float[]{ratio, ratio, ratio}, new float[]{5000, 5000, 5000}) {
+        });
+        return city;
+    }
+
+    private static class PlannerDataMock extends BuildingDataMock {
+
+        private final float price;
+
+        private final float ratio;
+
+        private PlannerDataMock(BuildingType type, int maxLevel, float price, float ratio) {
+            super(type, false, maxLevel, 10);
+            this.price = price;
+            this.ratio = ratio;
+        }
+
+        @Override
+        public ResourceValue getPrice(Level level) {
+            float p = this.price * level.value;
+            return new ResourceValue(new float[]{p, p, p});
+        }
+
+        @Override
+        public BonusResources getLevelBonus(Level level) {
+            float r = this.ratio * level.value;
+            return new BonusResources(new float[]{r, r, r}, new float[]{0, 0, 0}) {
+            };
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.planner;
+
+import be.yildizgames.common.geometry.Point3D;
+import be.yildizgames.common.model.Level;
+import be.yildizgames.common.model.PlayerId;
+import be.yildizgames.engine.feature.city.AllocationMeter;
+import be.yildizgames.engine.feature.city.BaseCity;
+import be.yildizgames.engine.feature.city.BaseCityManagerMock;
+import be.yildizgames.engine.feature.city.CityId;
+import be.yildizgames.engine.feature.city.building.BaseBuilding;
+import be.yildizgames.engine.feature.city.building.Building;
+import be.yildizgames.engine.feature.city.building.BuildingData;
+import be.yildizgames.engine.feature.city.building.BuildingDataMock;
+import be.yildizgames.engine.feature.city.building.BuildingPosition;
+import be.yildizgames.engine.feature.city.building.BuildingType;
+import be.yildizgames.engine.feature.city.building.construction.BuildingConstructionManager;
+import be.yildizgames.engine.feature.city.building.staff.Staff;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Grégory Van den Borre
+ */
+public class UpgradeAdvisorTest {
+
+    private static final BuildingData MARKET = new BuildingDataMock(BuildingType.register(390, "advisor-market"), false, 200, 20);
+
+    private static final BuildingData WALL = new BuildingDataMock(BuildingType.register(391, "advisor-wall"), false, 3, 20);
+
+    private static final PlayerId OWNER = PlayerId.valueOf(1);
+
+    private final BaseCityManagerMock cityManager = new BaseCityManagerMock(MARKET, WALL);
+
+    private final BuildingConstructionManager<Building, BuildingData, BaseCity<Building, BuildingData>> constructionManager =
+            new BuildingConstructionManager<>(cityManager, b -> cityManager.getCityById(b.getCity()).createConstruction(b));
+
+    private final UpgradeAdvisor<Building, BuildingData, BaseCity<Building, BuildingData>> advisor = new UpgradeAdvisor<>(this.constructionManager);
+
+    @Test
+    public void affordableUpgradesOfCity() {
+        BaseCity<Building, BuildingData> city = this.createCity(1, OWNER);
+        BitSet affordable = this.advisor.getAffordableUpgrades(city);
+        Assertions.assertEquals(List.of(0, 4), affordable.stream().boxed().toList());
+    }
+
+    @Test
+    public void buildingsInConstructionAreSkipped() {
+        BaseCity<Building, BuildingData> city = this.createCity(1, OWNER);
+        this.constructionManager.createBuilding(this.building(city, MARKET, 4, 1), 10_000);
+        Assertions.assertEquals(List.of(0), this.advisor.getAffordableUpgrades(city).stream().boxed().toList());
+        this.constructionManager.frameEnded(10_000);
+        Assertions.assertEquals(List.of(0, 4), this.advisor.getAffordableUpgrades(city).stream().boxed().toList());
+    }
+
+    @Test
+    public void affordableUpgradesOfPlayer() {
+        this.createCity(3, OWNER);
+        this.createCity(1, OWNER);
+        this.createCity(2, PlayerId.valueOf(2));
+        Map<CityId, BitSet> affordable = this.advisor.getAffordableUpgrades(this.cityManager, OWNER);
+        Assertions.assertEquals(List.of(CityId.valueOf(1), CityId.valueOf(3)), List.copyOf(affordable.keySet()));
+        Assertions.assertEquals(2, affordable.get(CityId.valueOf(3)).cardinality());
+    }
+
+    @Test
+    public void reusedSetDoesNotAllocate() {
+        BaseCity<Building, BuildingData> city = this.createCity(1, OWNER);
+        BitSet result = new BitSet(BaseCityManagerMock.POSITIONS);
+        int[] count = new int[1];
+        AllocationMeter meter = new AllocationMeter();
+        Runnable queries = () -> {
+            for (int i = 0; i < 10_000; i++) {
+                count[0] = this.advisor.getAffordableUpgrades(city, result);
+            }
+        };
+        queries.run();
+        Assertions.assertEquals(0, meter.measure(queries));
+        Assertions.assertEquals(2, count[0]);
+    }
+
+    private BaseCity<Building, BuildingData> createCity(int id, PlayerId owner) {
+        BaseCity<Building, BuildingData> city = this.cityManager.createCity(CityId.valueOf(id), owner, Point3D.ZERO);
+        city.createConstruction(this.building(city, MARKET, 0, 1));
+        city.createConstruction(this.building(city, MARKET, 1, 150));
+        city.createConstruction(this.building(city, WALL, 2, 3));
+        city.createConstruction(this.building(city, MARKET, 4, 0));
+        return city;
+    }
+
+    private Building building(BaseCity<Building, BuildingData> city, BuildingData data, int position, int level) {
+        return new BaseBuilding(city.getId(), data, BuildingPosition.valueOf(position), Level.valueOf(level), Staff.valueOf(0));
+    }
+}
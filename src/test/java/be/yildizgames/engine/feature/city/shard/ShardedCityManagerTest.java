@@ -0,0 +1,175 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.shard;
+
+import be.yildizgames.common.geometry.Point3D;
+import be.yildizgames.common.model.Level;
+import be.yildizgames.common.model.PlayerId;
+import be.yildizgames.engine.feature.city.BaseCity;
+import be.yildizgames.engine.feature.city.BaseCityManagerMock;
+import be.yildizgames.engine.feature.city.CityId;
+import be.yildizgames.engine.feature.city.building.BaseBuilding;
+import be.yildizgames.engine.feature.city.building.Building;
+import be.yildizgames.engine.feature.city.building.BuildingData;
+import be.yildizgames.engine.feature.city.building.BuildingDataMock;
+import be.yildizgames.engine.feature.city.building.BuildingPosition;
+import be.yildizgames.engine.feature.city.building.BuildingType;
+import be.yildizgames.engine.feature.city.building.construction.BuildingConstructionManager;
+import be.yildizgames.engine.feature.city.building.staff.Staff;
+import be.yildizgames.engine.feature.city.building.staff.StaffAllocatorManager;
+import be.yildizgames.engine.feature.city.snapshot.CityTransfer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Grégory Van den Borre
+ */
+public class ShardedCityManagerTest {
+
+    private static final BuildingData DATA = new BuildingDataMock(BuildingType.register(360, "shard"), false, 10, 20);
+
+    private static final PlayerId OWNER = PlayerId.valueOf(3);
+
+    private static final int CITIES = 300;
+
+    private final ShardedCityManager<Building, BuildingData, BaseCity<Building, BuildingData>> manager = new ShardedCityManager<>();
+
+    @Test
+    public void citiesAreSpreadAcrossShards() {
+        this.manager.addShard(shard("a"));
+        this.manager.addShard(shard("b"));
+        this.manager.addShard(shard("c"));
+        this.givenCities();
+        for (CityShard<Building, BuildingData, BaseCity<Building, BuildingData>> s : this.manager.getShards()) {
+            int count = s.getCityIds().size();
+            Assertions.assertTrue(count > CITIES / 6, s + " holds " + count);
+        }
+        Assertions.assertEquals(CITIES, this.manager.getCities().size());
+        Assertions.assertEquals(CITIES, this.manager.getCityCount(OWNER));
+        for (int i = 0; i < CITIES; i++) {
+            CityId id = CityId.valueOf(i);
+            Assertions.assertSame(this.manager.getShard(id).getCityById(id), this.manager.getCityById(id));
+        }
+    }
+
+    @Test
+    public void playerCitiesAreGatheredById() {
+        this.manager.addShard(shard("a"));
+        this.manager.addShard(shard("b"));
+        this.givenCities();
+        List<Integer> ids = new ArrayList<>();
+        this.manager.forEachCity(OWNER, c -> ids.add(c.getId().value));
+        Assertions.assertEquals(CITIES, ids.size());
+        for (int i = 0; i < CITIES; i++) {
+            Assertions.assertEquals(i, ids.get(i));
+        }
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> this.manager.getCities(OWNER).clear());
+    }
+
+    @Test
+    public void addingAShardOnlyMovesItsCities() {
+        this.manager.addShard(shard("a"));
+        this.manager.addShard(shard("b"));
+        this.givenCities();
+        this.manager.getCityById(CityId.valueOf(7)).createConstruction(new BaseBuilding(CityId.valueOf(7), DATA, BuildingPosition.valueOf(2), Level.valueOf(4), Staff.valueOf(6)));
+        CityShard<Building, BuildingData, BaseCity<Building, BuildingData>> added = shard("c");
+        int moved = this.manager.addShard(added);
+        Assertions.assertEquals(added.getCityIds().size(), moved);
+        Assertions.assertTrue(moved > 0 && moved < CITIES / 2);
+        Assertions.assertEquals(CITIES, this.manager.getCities().size());
+        Assertions.assertEquals(0, this.manager.rebalance());
+        Building b = this.manager.getCityById(CityId.valueOf(7)).getBuilding(BuildingPosition.valueOf(2));
+        Assertions.assertEquals(Level.valueOf(4), b.getLevel());
+        Assertions.assertEquals(Staff.valueOf(6), b.getStaff());
+    }
+
+    @Test
+    public void removingAShardMovesAllItsCities() {
+        this.manager.addShard(shard("a"));
+        this.manager.addShard(shard("b"));
+        this.givenCities();
+        int held = this.manager.getShards().get(0).getCityIds().size();
+        Assertions.assertEquals(held, this.manager.removeShard("a"));
+        Assertions.assertEquals(1, this.manager.getShards().size());
+        Assertions.assertEquals(CITIES, this.manager.getShards().get(0).getCityIds().size());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> this.manager.removeShard("b"));
+    }
+
+    @Test
+    public void findNearestAcrossShards() {
+        this.manager.addShard(shard("a"));
+        this.manager.addShard(shard("b"));
+        this.givenCities();
+        Assertions.assertEquals(CityId.valueOf(42), this.manager.findNearest(Point3D.valueOf(42 * 100 + 10, 0, 0)).getId());
+        Assertions.assertEquals(3, this.manager.findWithinRadius(Point3D.valueOf(1000, 0, 0), 150).size());
+    }
+
+    @Test
+    public void duplicateShardName() {
+        this.manager.addShard(shard("a"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> this.manager.addShard(shard("a")));
+    }
+
+    @Test
+    public void shardsWithSameStringHash() {
+        this.manager.addShard(shard("Aa"));
+        this.manager.addShard(shard("BB"));
+        this.givenCities();
+        for (CityShard<Building, BuildingData, BaseCity<Building, BuildingData>> s : this.manager.getShards()) {
+            Assertions.assertTrue(s.getCityIds().size() > CITIES / 4, s + " holds " + s.getCityIds().size());
+        }
+    }
+
+    @Test
+    public void shardHoldingCities() {
+        this.manager.addShard(shard("a"));
+        CityShard<Building, BuildingData, BaseCity<Building, BuildingData>> full = shard("b");
+        full.createCity(CityId.valueOf(1), OWNER, Point3D.ZERO);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> this.manager.addShard(full));
+        Assertions.assertEquals(1, this.manager.getShards().size());
+    }
+
+    @Test
+    public void noShard() {
+        Assertions.assertThrows(IllegalStateException.class, () -> this.manager.getCityById(CityId.valueOf(1)));
+    }
+
+    private void givenCities() {
+        for (int i = 0; i < CITIES; i++) {
+            this.manager.createCity(CityId.valueOf(i), OWNER, Point3D.valueOf(i * 100, 0, 0));
+        }
+    }
+
+    private static CityShard<Building, BuildingData, BaseCity<Building, BuildingData>> shard(final String name) {
+        BaseCityManagerMock cityManager = new BaseCityManagerMock(DATA);
+        BuildingConstructionManager<Building, BuildingData, BaseCity<Building, BuildingData>> constructionManager =
+                new BuildingConstructionManager<>(cityManager, b -> cityManager.getCityById(b.getCity()).createConstruction(b));
+        StaffAllocatorManager<Building, BuildingData, BaseCity<Building, BuildingData>> staffManager = new StaffAllocatorManager<>(cityManager);
+        return new LocalCityShard<>(name, new CityTransfer<>(cityManager, BaseBuilding::new, constructionManager, staffManager));
+    }
+}
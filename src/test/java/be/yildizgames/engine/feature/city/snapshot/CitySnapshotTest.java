@@ -0,0 +1,167 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.snapshot;
+
+import be.yildizgames.common.geometry.Point3D;
+import be.yildizgames.common.model.Level;
+import be.yildizgames.common.model.PlayerId;
+import be.yildizgames.engine.feature.city.BaseCity;
+import be.yildizgames.engine.feature.city.BaseCityManagerMock;
+import be.yildizgames.engine.feature.city.CityId;
+import be.yildizgames.engine.feature.city.building.BaseBuilding;
+import be.yildizgames.engine.feature.city.building.Building;
+import be.yildizgames.engine.feature.city.building.BuildingData;
+import be.yildizgames.engine.feature.city.building.BuildingDataMock;
+import be.yildizgames.engine.feature.city.building.BuildingPosition;
+import be.yildizgames.engine.feature.city.building.BuildingType;
+import be.yildizgames.engine.feature.city.building.construction.BuildingConstructionManager;
+import be.yildizgames.engine.feature.city.building.construction.ConstructionSlotPolicy;
+import be.yildizgames.engine.feature.city.building.construction.WaitingBuilding;
+import be.yildizgames.engine.feature.city.building.staff.Staff;
+import be.yildizgames.engine.feature.city.building.staff.StaffAllocatorManager;
+import be.yildizgames.engine.feature.city.building.staff.WaitingAllocation;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author Grégory Van den Borre
+ */
+public class CitySnapshotTest {
+
+    private static final BuildingData DATA = new BuildingDataMock(BuildingType.register(260, "snapshot"), false, 10, 20);
+
+    @Test
+    public void happyFlow(@TempDir Path folder) {
+        Path file = folder.resolve("world.snapshot");
+        World source = new World();
+        for (int i = 1; i <= 50; i++) {
+            BaseCity<Building, BuildingData> city = source.cityManager.createCity(CityId.valueOf(i), PlayerId.valueOf(i % 3), Point3D.valueOf(i, 2, -i));
+            for (int p = 0; p < BaseCityManagerMock.POSITIONS; p++) {
+                city.createConstruction(new BaseBuilding(city.getId(), DATA, BuildingPosition.valueOf(p), Level.valueOf(p + 1), Staff.valueOf(p)));
+            }
+        }
+        BaseCity<Building, BuildingData> city = source.cityManager.getCityById(CityId.valueOf(7));
+        source.constructionManager.createBuilding(new BaseBuilding(city.getId(), DATA, BuildingPosition.valueOf(2), Level.valueOf(4), Staff.valueOf(2)), 50_000);
+        source.staffManager.add(city.getBuilding(BuildingPosition.valueOf(1)), Staff.valueOf(15), 60_000);
+        new CitySnapshotWriter<>(source.cityManager, source.constructionManager, source.staffManager).write(file);
+
+        World target = new World();
+        List<BaseCity<Building, BuildingData>> loaded = new CitySnapshotLoader<>(target.cityManager, BaseBuilding::new, target.constructionManager, target.staffManager).load(file);
+
+        Assertions.assertEquals(50, loaded.size());
+        Assertions.assertEquals(50, target.cityManager.getCities().size());
+        BaseCity<Building, BuildingData> result = target.cityManager.getCityById(CityId.valueOf(7));
+        Assertions.assertEquals(PlayerId.valueOf(1), result.getOwner());
+        Assertions.assertEquals(Point3D.valueOf(7, 2, -7), result.getPosition());
+        Assertions.assertEquals(BaseCityManagerMock.POSITIONS, result.getBuildings().size());
+        Building b = result.getBuilding(BuildingPosition.valueOf(3));
+        Assertions.assertEquals(Level.valueOf(4), b.getLevel());
+        Assertions.assertEquals(Staff.valueOf(3), b.getStaff());
+
+        List<WaitingBuilding<Building>> constructions = target.constructionManager.getBuildingList();
+        Assertions.assertEquals(1, constructions.size());
+        Assertions.assertEquals(Level.valueOf(4), constructions.get(0).getB().getLevel());
+        Assertions.assertTrue(constructions.get(0).getTime() > 0 && constructions.get(0).getTime() <= 50_000);
+
+        List<WaitingAllocation<Building>> allocations = target.staffManager.getAllocationList();
+        Assertions.assertEquals(1, allocations.size());
+        Building allocated = result.getBuilding(BuildingPosition.valueOf(1));
+        Assertions.assertSame(allocated, allocations.get(0).getB());
+        Assertions.assertEquals(Staff.valueOf(1), allocated.getOldStaff());
+        Assertions.assertEquals(Staff.valueOf(15), allocated.getStaff());
+    }
+
+    @Test
+    public void waitingConstructionsAreSaved(@TempDir Path folder) {
+        Path file = folder.resolve("world.snapshot");
+        World source = new World(c -> 1);
+        BaseCity<Building, BuildingData> city = source.cityManager.createCity(CityId.valueOf(1), PlayerId.valueOf(1), Point3D.ZERO);
+        for (int p = 0; p < BaseCityManagerMock.POSITIONS; p++) {
+            city.createConstruction(new BaseBuilding(city.getId(), DATA, BuildingPosition.valueOf(p), Level.ONE, Staff.valueOf(0)));
+        }
+        source.constructionManager.createBuilding(new BaseBuilding(city.getId(), DATA, BuildingPosition.valueOf(1), Level.valueOf(2), Staff.valueOf(0)), 10_000);
+        source.constructionManager.createBuilding(new BaseBuilding(city.getId(), DATA, BuildingPosition.valueOf(2), Level.valueOf(2), Staff.valueOf(0)), 7_000);
+        source.constructionManager.frameEnded(4_000);
+        new CitySnapshotWriter<>(source.cityManager, source.constructionManager, source.staffManager).write(file);
+
+        World target = new World(c -> 1);
+        new CitySnapshotLoader<>(target.cityManager, BaseBuilding::new, target.constructionManager, target.staffManager).load(file);
+
+        List<WaitingBuilding<Building>> constructions = target.constructionManager.export(target.cityManager.getCityById(CityId.valueOf(1)));
+        Assertions.assertEquals(2, constructions.size());
+        Assertions.assertEquals(BuildingPosition.valueOf(1), constructions.get(0).getB().getBuildingPosition());
+        Assertions.assertEquals(6_000, constructions.get(0).getTime());
+        Assertions.assertEquals(BuildingPosition.valueOf(2), constructions.get(1).getB().getBuildingPosition());
+        Assertions.assertEquals(7_000, constructions.get(1).getTime());
+    }
+
+    @Test
+    public void constructionWorkLeftIsSaved() {
+        World source = new World();
+        source.constructionManager.getSpeed().setGlobal(0.5f);
+        BaseCity<Building, BuildingData> city = source.cityManager.createCity(CityId.valueOf(1), PlayerId.valueOf(1), Point3D.ZERO);
+        source.constructionManager.createBuilding(new BaseBuilding(city.getId(), DATA, BuildingPosition.valueOf(1), Level.valueOf(2), Staff.valueOf(0)), 10_000);
+        source.constructionManager.frameEnded(4_000);
+        CityRecordCodec<Building, BuildingData, BaseCity<Building, BuildingData>> codec = new CityRecordCodec<>(source.cityManager, BaseBuilding::new);
+        ByteBuffer buffer = ByteBuffer.allocate(codec.sizeOf(city, source.constructionManager.getBuildingList(city), Collections.emptyList()));
+        codec.write(city, source.constructionManager.getBuildingList(city), Collections.emptyList(), buffer);
+        buffer.flip();
+        Assertions.assertEquals(8_000, codec.read(buffer).constructionTimes[0]);
+    }
+
+    @Test
+    public void notASnapshot(@TempDir Path folder) throws IOException {
+        Path file = folder.resolve("invalid.snapshot");
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20});
+        World target = new World();
+        CitySnapshotLoader<Building, BuildingData, BaseCity<Building, BuildingData>> loader = new CitySnapshotLoader<>(target.cityManager, BaseBuilding::new, target.constructionManager, target.staffManager);
+        Assertions.assertThrows(CitySnapshotException.class, () -> loader.load(file));
+    }
+
+    private static class World {
+
+        private final BaseCityManagerMock cityManager = new BaseCityManagerMock(DATA);
+
+        private final BuildingConstructionManager<Building, BuildingData, BaseCity<Building, BuildingData>> constructionManager;
+
+        private final StaffAllocatorManager<Building, BuildingData, BaseCity<Building, BuildingData>> staffManager = new StaffAllocatorManager<>(cityManager);
+
+        private World() {
+            this(ConstructionSlotPolicy.UNLIMITED);
+        }
+
+        private World(ConstructionSlotPolicy slots) {
+            this.constructionManager = new BuildingConstructionManager<>(cityManager, b -> cityManager.getCityById(b.getCity()).createConstruction(b), slots);
+        }
+    }
+}
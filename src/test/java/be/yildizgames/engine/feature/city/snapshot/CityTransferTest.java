@@ -0,0 +1,137 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.snapshot;
+
+import be.yildizgames.common.geometry.Point3D;
+import be.yildizgames.common.model.Level;
+import be.yildizgames.common.model.PlayerId;
+import be.yildizgames.engine.feature.city.BaseCity;
+import be.yildizgames.engine.feature.city.BaseCityManagerMock;
+import be.yildizgames.engine.feature.city.CityId;
+import be.yildizgames.engine.feature.city.building.BaseBuilding;
+import be.yildizgames.engine.feature.city.building.Building;
+import be.yildizgames.engine.feature.city.building.BuildingData;
+import be.yildizgames.engine.feature.city.building.BuildingDataMock;
+import be.yildizgames.engine.feature.city.building.BuildingPosition;
+import be.yildizgames.engine.feature.city.building.BuildingType;
+import be.yildizgames.engine.feature.city.building.construction.BuildingConstructionManager;
+import be.yildizgames.engine.feature.city.building.construction.WaitingBuilding;
+import be.yildizgames.engine.feature.city.building.staff.Staff;
+import be.yildizgames.engine.feature.city.building.staff.StaffAllocatorManager;
+import be.yildizgames.engine.feature.city.building.staff.WaitingAllocation;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+/**
+ * @author Grégory Van den Borre
+ */
+public class CityTransferTest {
+
+    private static final BuildingData DATA = new BuildingDataMock(BuildingType.register(261, "transfer"), false, 10, 20);
+
+    private static final CityId ID = CityId.valueOf(4);
+
+    @Test
+    public void liveStateIsMoved() {
+        World source = new World();
+        BaseCity<Building, BuildingData> city = source.cityManager.createCity(ID, PlayerId.valueOf(2), Point3D.valueOf(1, 2, 3));
+        for (int p = 0; p < BaseCityManagerMock.POSITIONS; p++) {
+            city.createConstruction(new BaseBuilding(ID, DATA, BuildingPosition.valueOf(p), Level.valueOf(p + 1), Staff.valueOf(p)));
+        }
+        source.constructionManager.getSpeed().setGlobal(0.5f);
+        source.constructionManager.createBuilding(new BaseBuilding(ID, DATA, BuildingPosition.valueOf(2), Level.valueOf(4), Staff.valueOf(2)), 10_000);
+        source.constructionManager.frameEnded(1_000);
+        source.constructionManager.frameEnded(1_000);
+        source.staffManager.add(city.getBuilding(BuildingPosition.valueOf(1)), Staff.valueOf(15), 600_000);
+
+        byte[] record = source.transfer.exportCity(ID);
+
+        Assertions.assertNull(source.cityManager.getCityById(ID));
+        Assertions.assertTrue(source.constructionManager.getBuildingList().isEmpty());
+        Assertions.assertTrue(source.staffManager.getAllocationList().isEmpty());
+
+        World target = new World();
+        BaseCity<Building, BuildingData> result = target.transfer.importCity(record);
+        Assertions.assertSame(result, target.cityManager.getCityById(ID));
+        Assertions.assertEquals(BaseCityManagerMock.POSITIONS, result.getBuildingCount());
+        List<WaitingBuilding<Building>> constructions = target.constructionManager.getBuildingList();
+        Assertions.assertEquals(1, constructions.size());
+        Assertions.assertEquals(9_000, constructions.get(0).getTime());
+        List<WaitingAllocation<Building>> allocations = target.staffManager.getAllocationList();
+        Assertions.assertEquals(1, allocations.size());
+        long left = allocations.get(0).getTime();
+        Assertions.assertTrue(left > 590_000 && left <= 600_000);
+        Building allocated = result.getBuilding(BuildingPosition.valueOf(1));
+        Assertions.assertEquals(Staff.valueOf(1), allocated.getOldStaff());
+        Assertions.assertEquals(Staff.valueOf(15), allocated.getStaff());
+    }
+
+    @Test
+    public void waitingConstructionsKeepTheirOrder() {
+        World source = new World();
+        source.cityManager.createCity(ID, PlayerId.valueOf(2), Point3D.ZERO);
+        for (int p = 0; p < 3; p++) {
+            source.constructionManager.createBuilding(new BaseBuilding(ID, DATA, BuildingPosition.valueOf(p), Level.ONE, Staff.valueOf(0)), 1_000 * (p + 1));
+        }
+        List<WaitingBuilding<Building>> frozen = source.constructionManager.freeze(source.cityManager.getCityById(ID));
+        Assertions.assertEquals(3, frozen.size());
+        for (int p = 0; p < 3; p++) {
+            Assertions.assertEquals(BuildingPosition.valueOf(p), frozen.get(p).getB().getBuildingPosition());
+            Assertions.assertEquals(1_000 * (p + 1), frozen.get(p).getTime());
+        }
+        Assertions.assertEquals(0, source.constructionManager.getActiveConstructionCount(source.cityManager.getCityById(ID)));
+    }
+
+    @Test
+    public void failedEncodingKeepsTheCity() {
+        World source = new World();
+        BaseCity<Building, BuildingData> city = source.cityManager.createCity(ID, PlayerId.valueOf(2), Point3D.ZERO);
+        source.constructionManager.createBuilding(new BaseBuilding(ID, DATA, BuildingPosition.valueOf(40_000), Level.ONE, Staff.valueOf(0)), 1_000);
+        source.constructionManager.createBuilding(new BaseBuilding(ID, DATA, BuildingPosition.valueOf(2), Level.ONE, Staff.valueOf(0)), 2_000);
+        Assertions.assertThrows(CitySnapshotException.class, () -> source.transfer.exportCity(ID));
+        Assertions.assertSame(city, source.cityManager.getCityById(ID));
+        Assertions.assertEquals(2, source.constructionManager.export(city).size());
+    }
+
+    @Test
+    public void unknownCity() {
+        World source = new World();
+        Assertions.assertThrows(IllegalArgumentException.class, () -> source.transfer.exportCity(ID));
+    }
+
+    private static class World {
+
+        private final BaseCityManagerMock cityManager = new BaseCityManagerMock(DATA);
+
+        private final BuildingConstructionManager<Building, BuildingData, BaseCity<Building, BuildingData>> constructionManager =
+                new BuildingConstructionManager<>(cityManager, b -> cityManager.getCityById(b.getCity()).createConstruction(b), c -> 1);
+
+        private final StaffAllocatorManager<Building, BuildingData, BaseCity<Building, BuildingData>> staffManager = new StaffAllocatorManager<>(cityManager);
+
+        private final CityTransfer<Building, BuildingData, BaseCity<Building, BuildingData>> transfer = new CityTransfer<>(cityManager, BaseBuilding::new, constructionManager, staffManager);
+    }
+}
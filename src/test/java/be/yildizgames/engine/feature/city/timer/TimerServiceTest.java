@@ -0,0 +1,127 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.timer;
+
+import be.yildizgames.engine.feature.city.AllocationMeter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Grégory Van den Borre
+ */
+public class TimerServiceTest {
+
+    private final List<List<String>> batches = new ArrayList<>();
+
+    private final TimerService<String> service = new TimerService<>(8, 10, v -> this.batches.add(new ArrayList<>(v)));
+
+    @Test
+    public void expiredInScheduleOrder() {
+        this.service.schedule("a", 50);
+        this.service.schedule("b", 15);
+        this.service.schedule("c", 500);
+        this.service.schedule("d", 40);
+        Assertions.assertEquals(0, this.service.advance(14));
+        Assertions.assertEquals(3, this.service.advance(50));
+        Assertions.assertEquals(List.of(List.of("a", "b", "d")), this.batches);
+        Assertions.assertEquals(1, this.service.size());
+        Assertions.assertEquals("c", this.service.getFirst().getValue());
+    }
+
+    @Test
+    public void largeBatchInScheduleOrder() {
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            this.service.schedule(String.valueOf(i), (i * 37) % 70);
+            expected.add(String.valueOf(i));
+        }
+        this.service.reschedule(this.service.getFirst(), 5);
+        Assertions.assertEquals(1_000, this.service.advance(100));
+        Assertions.assertEquals(List.of(expected), this.batches);
+    }
+
+    @Test
+    public void laterWheelTurnNotExpired() {
+        this.service.schedule("far", 85);
+        Assertions.assertEquals(0, this.service.advance(10));
+        Assertions.assertEquals(0, this.service.advance(84));
+        Assertions.assertEquals(1, this.service.advance(1000));
+        Assertions.assertEquals(List.of(List.of("far")), this.batches);
+    }
+
+    @Test
+    public void pastDeadlineExpiresAtNextAdvance() {
+        this.service.advance(100);
+        this.service.schedule("late", 20);
+        Assertions.assertEquals(1, this.service.advance(100));
+    }
+
+    @Test
+    public void rescheduleAndCancel() {
+        Timer<String> a = this.service.schedule("a", 20);
+        Timer<String> b = this.service.schedule("b", 20);
+        Timer<String> c = this.service.schedule("c", 20);
+        this.service.reschedule(a, 60);
+        Assertions.assertTrue(this.service.cancel(b));
+        Assertions.assertFalse(this.service.cancel(b));
+        Assertions.assertFalse(b.isPending());
+        Assertions.assertSame(c, a.getNext());
+        this.service.advance(30);
+        Assertions.assertEquals(List.of(List.of("c")), this.batches);
+        Assertions.assertSame(a, this.service.getFirst());
+        Assertions.assertNull(a.getNext());
+        this.service.reschedule(a, Long.MAX_VALUE);
+        this.service.advance(100_000);
+        Assertions.assertTrue(a.isPending());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> this.service.reschedule(b, 10));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new TimerService<String>(v -> {}).cancel(a));
+    }
+
+    @Test
+    public void invalidWheel() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new TimerService<String>(6, 10, v -> {}));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new TimerService<String>(8, 0, v -> {}));
+    }
+
+    @Test
+    public void advanceDoesNotAllocate() {
+        for (int i = 0; i < 1000; i++) {
+            this.service.schedule("t" + i, Long.MAX_VALUE / 2 + i);
+        }
+        long[] now = new long[1];
+        AllocationMeter meter = new AllocationMeter();
+        Runnable frames = () -> {
+            for (int i = 0; i < 10_000; i++) {
+                now[0] += 16;
+                this.service.advance(now[0]);
+            }
+        };
+        frames.run();
+        Assertions.assertEquals(0, meter.measure(frames));
+    }
+}
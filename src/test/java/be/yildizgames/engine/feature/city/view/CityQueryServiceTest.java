@@ -0,0 +1,102 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.view;
+
+import be.yildizgames.common.geometry.Point3D;
+import be.yildizgames.common.model.Level;
+import be.yildizgames.common.model.PlayerId;
+import be.yildizgames.engine.feature.city.BaseCity;
+import be.yildizgames.engine.feature.city.BaseCityManagerMock;
+import be.yildizgames.engine.feature.city.CityId;
+import be.yildizgames.engine.feature.city.building.BaseBuilding;
+import be.yildizgames.engine.feature.city.building.Building;
+import be.yildizgames.engine.feature.city.building.BuildingData;
+import be.yildizgames.engine.feature.city.building.BuildingDataMock;
+import be.yildizgames.engine.feature.city.building.BuildingPosition;
+import be.yildizgames.engine.feature.city.building.BuildingType;
+import be.yildizgames.engine.feature.city.building.staff.Staff;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * @author Grégory Van den Borre
+ */
+public class CityQueryServiceTest {
+
+    private static final BuildingData BUILT = new BuildingDataMock(BuildingType.register(370, "query-built"), false, 3, 20);
+
+    private static final BuildingData FREE = new BuildingDataMock(BuildingType.register(371, "query-free"), false, 3, 20);
+
+    private static final CityId ID = CityId.valueOf(1);
+
+    private final BaseCityManagerMock cityManager = new BaseCityManagerMock(BUILT, FREE);
+
+    private final CityViewPublisher<Building, BuildingData, BaseCity<Building, BuildingData>> publisher;
+
+    public CityQueryServiceTest() {
+        BaseCity<Building, BuildingData> city = this.cityManager.createCity(ID, PlayerId.valueOf(1), Point3D.ZERO);
+        city.createConstruction(new BaseBuilding(ID, BUILT, BuildingPosition.valueOf(1), Level.valueOf(2), Staff.valueOf(0)));
+        city.createConstruction(new BaseBuilding(ID, FREE, BuildingPosition.valueOf(3), Level.valueOf(3), Staff.valueOf(0)));
+        city.createConstruction(new BaseBuilding(ID, FREE, BuildingPosition.valueOf(3), Level.ZERO, Staff.valueOf(0)));
+        this.publisher = new CityViewPublisher<>(this.cityManager);
+    }
+
+    @Test
+    public void queries() {
+        try (CityQueryService service = new CityQueryService(this.publisher, List.of(BUILT, FREE))) {
+            Assertions.assertEquals(ID, service.getCity(ID).getId());
+            Assertions.assertEquals(Set.of(FREE.getType()), service.getAllowedTypes(ID));
+            Assertions.assertEquals(30f, service.getNextLevelPrice(ID, BuildingPosition.valueOf(1)).getArray()[0]);
+            Assertions.assertThrows(IllegalArgumentException.class, () -> service.getNextLevelPrice(ID, BuildingPosition.valueOf(0)));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> service.getCity(CityId.valueOf(2)));
+        }
+    }
+
+    @Test
+    public void allowedTypesComeFromTheCityData() {
+        try (CityQueryService service = new CityQueryService(this.publisher, List.of())) {
+            Assertions.assertEquals(Set.of(FREE.getType()), service.getAllowedTypes(ID));
+            Assertions.assertSame(this.publisher.getView(ID).getAllowedTypes(), service.getAllowedTypes(ID));
+        }
+    }
+
+    @Test
+    public void submittedQueriesRunOnVirtualThreads() {
+        try (CityQueryService service = new CityQueryService(this.publisher, List.of(BUILT, FREE))) {
+            List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < 10_000; i++) {
+                futures.add(service.submit(s -> Thread.currentThread().isVirtual() && s.getAllowedTypes(ID).size() == 1));
+            }
+            for (CompletableFuture<Boolean> f : futures) {
+                Assertions.assertTrue(f.join());
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * This file is part of the Yildiz-Engine project, licenced under the MIT License  (MIT)
+ *
+ *  Copyright (c) 2019 Grégory Van den Borre
+ *
+ *  More infos available: https://engine.yildiz-games.be
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ *  documentation files (the "Software"), to deal in the Software without restriction, including without
+ *  limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ *  of the Software, and to permit persons to whom the Software is furnished to do so,
+ *  subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ *  WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ *  OR COPYRIGHT  HOLDERS BE LIABLE FOR ANY CLAIM,
+ *  DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE  SOFTWARE.
+ *
+ */
+
+package be.yildizgames.engine.feature.city.view;
+
+import be.yildizgames.common.geometry.Point3D;
+import be.yildizgames.common.model.Level;
+import be.yildizgames.common.model.PlayerId;
+import be.yildizgames.engine.feature.city.BaseCity;
+import be.yildizgames.engine.feature.city.BaseCityManagerMock;
+import be.yildizgames.engine.feature.city.CityId;
+import be.yildizgames.engine.feature.city.building.BaseBuilding;
+import be.yildizgames.engine.feature.city.building.Building;
+import be.yildizgames.engine.feature.city.building.BuildingData;
+import be.yildizgames.engine.feature.city.building.BuildingDataMock;
+import be.yildizgames.engine.feature.city.building.BuildingPosition;
+import be.yildizgames.engine.feature.city.building.BuildingType;
+import be.yildizgames.engine.feature.city.building.construction.BuildingConstructionManager;
+import be.yildizgames.engine.feature.city.building.staff.Staff;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Grégory Van den Borre
+ */
+public class CityViewPublisherTest {
+
+    private static final BuildingData DATA = new BuildingDataMock(BuildingType.register(330, "view"), false, 10, 20);
+
+    private final BaseCityManagerMock cityManager = new BaseCityManagerMock(DATA);
+
+    private final BaseCity<Building, BuildingData> city;
+
+    public CityViewPublisherTest() {
+        this.city = this.cityManager.createCity(CityId.valueOf(1), PlayerId.valueOf(1), Point3D.ZERO);
+        for (int p = 0; p < BaseCityManagerMock.POSITIONS; p++) {
+            this.city.createConstruction(new BaseBuilding(this.city.getId(), DATA, BuildingPosition.valueOf(p), Level.ONE, Staff.valueOf(0)));
+        }
+    }
+
+    @Test
+    public void unchangedSlotsAreShared() {
+        CityViewPublisher<Building, BuildingData, BaseCity<Building, BuildingData>> publisher = new CityViewPublisher<>(this.cityManager);
+        BuildingConstructionManager<Building, BuildingData, BaseCity<Building, BuildingData>> manager = new BuildingConstructionManager<>(this.cityManager, b -> this.city.createConstruction(b));
+        manager.willNotify(publisher);
+        CityView before = publisher.getView(this.city.getId());
+        Assertions.assertEquals(BaseCityManagerMock.POSITIONS, before.getBuildings().size());
+
+        manager.createBuilding(new BaseBuilding(this.city.getId(), DATA, BuildingPosition.valueOf(2), Level.valueOf(2), Staff.valueOf(0)));
+        Assertions.assertSame(before, publisher.getView(this.city.getId()));
+        publisher.frameEnded(1);
+
+        CityView after = publisher.getView(this.city.getId());
+        Assertions.assertNotSame(before, after);
+        Assertions.assertEquals(before.getVersion() + 1, after.getVersion());
+        Assertions.assertEquals(Level.ONE, before.getBuilding(2).getLevel());
+        Assertions.assertEquals(Level.valueOf(2), after.getBuilding(2).getLevel());
+        Assertions.assertSame(before.getBuilding(0), after.getBuilding(0));
+        Assertions.assertSame(before.getBuilding(4), after.getBuilding(4));
+    }
+
+    @Test
+    public void unchangedCityKeepsItsView() {
+        CityViewPublisher<Building, BuildingData, BaseCity<Building, BuildingData>> publisher = new CityViewPublisher<>(this.cityManager);
+        CityView before = publisher.getView(this.city.getId());
+        publisher.markDirty(this.city);
+        publisher.frameEnded(1);
+        Assertions.assertSame(before, publisher.getView(this.city.getId()));
+    }
+
+    @Test
+    public void ownerChange() {
+        CityViewPublisher<Building, BuildingData, BaseCity<Building, BuildingData>> publisher = new CityViewPublisher<>(this.cityManager);
+        CityView before = publisher.getView(this.city.getId());
+        this.cityManager.transferCity(this.city.getId(), PlayerId.valueOf(2));
+        publisher.markDirty(this.city);
+        publisher.frameEnded(1);
+        CityView after = publisher.getView(this.city.getId());
+        Assertions.assertEquals(PlayerId.valueOf(2), after.getOwner());
+        Assertions.assertSame(before.getBuildings().get(0), after.getBuildings().get(0));
+    }
+
+    @Test
+    public void viewsAreReadOnly() {
+        CityViewPublisher<Building, BuildingData, BaseCity<Building, BuildingData>> publisher = new CityViewPublisher<>(this.cityManager);
+        Assertions.assertEquals(1, publisher.getViews().size());
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> publisher.getView(this.city.getId()).getBuildings().remove(0));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> publisher.getViews().clear());
+    }
+}